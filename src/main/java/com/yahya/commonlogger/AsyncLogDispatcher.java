@@ -0,0 +1,298 @@
+package com.yahya.commonlogger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.LogLevel;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves serialization and appender I/O for structured log events off the calling thread.
+ * <p>
+ * Producers ({@link LoggingAspect}, {@link StructuredLogger}) publish the captured payload into a
+ * bounded, pre-allocated multi-producer / single-consumer ring buffer; a dedicated daemon thread
+ * renders each payload to JSON and hands it to SLF4J. Publishing is lock-free: a producer claims a
+ * slot with a single CAS and publishes it with a volatile write of the slot's sequence number.
+ * <p>
+ * When the buffer is full the configured {@link CommonLoggerProperties.Async.OverflowPolicy} decides
+ * whether the event waits or is dropped. ERROR (and FATAL) events are never dropped; they wait for
+ * space under every policy. After {@link #close()} events are emitted synchronously on the caller.
+ * <p>
+ * Registered by {@link CommonLoggerAutoConfiguration} when {@code common.logger.async.enabled=true};
+ * the Spring context calls {@link #close()} on shutdown, which drains queued events for up to
+ * {@code common.logger.async.shutdown-timeout}.
+ */
+public class AsyncLogDispatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncLogDispatcher.class);
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long BLOCKING_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Turns a captured payload into the message handed to SLF4J: the JSON line, or a
+     * {@link StructuredLogEvent} with {@code common.logger.structured-arguments=true}. Runs on the
+     * consumer thread. Returns {@code null} when rendering failed and the renderer has already
+     * reported it.
+     */
+    @FunctionalInterface
+    interface PayloadRenderer {
+        Object render(LogLevel level, Object payload);
+    }
+
+    private final CommonLoggerProperties.Async settings;
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread consumer;
+
+    private volatile long head;
+    private volatile boolean consumerParked;
+    private volatile boolean running = true;
+    private volatile boolean closed;
+
+    public AsyncLogDispatcher(CommonLoggerProperties.Async settings) {
+        this.settings = settings;
+        int capacity = Integer.highestOneBit(settings.getCapacity() - 1) << 1;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot(i);
+        }
+        this.mask = capacity - 1;
+        this.consumer = new Thread(this::consume, "common-logger-async");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * Number of events currently waiting in the ring buffer.
+     */
+    public long getQueuedCount() {
+        return Math.max(0, tail.get() - head);
+    }
+
+    /**
+     * Total number of events accepted into the ring buffer.
+     */
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    /**
+     * Total number of events discarded by the overflow policy.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Ring buffer size after rounding up to a power of two.
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Publishes an event for asynchronous emission, or emits it on the caller thread once the
+     * dispatcher is closed.
+     *
+     * @param logger   the SLF4J logger to write to
+     * @param level    event level
+     * @param payload  captured payload; must not be mutated by the caller afterwards
+     * @param renderer renders {@code payload} to the JSON line
+     */
+    void dispatch(Logger logger, LogLevel level, Object payload, PayloadRenderer renderer) {
+        if (closed) {
+            emit(logger, level, payload, renderer);
+            return;
+        }
+        boolean mustDeliver = level.compareTo(LogLevel.ERROR) >= 0;
+        if (!mustDeliver && !admit()) {
+            dropped.increment();
+            return;
+        }
+        while (!tryPublish(logger, level, payload, renderer)) {
+            if (!mustDeliver && !waitsWhenFull(level)) {
+                dropped.increment();
+                return;
+            }
+            if (closed || !consumer.isAlive()) {
+                emit(logger, level, payload, renderer);
+                return;
+            }
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        published.increment();
+        if (consumerParked) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Stops accepting events, waits up to the configured shutdown timeout for queued events to be
+     * written and stops the consumer thread.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(Math.max(1, settings.getShutdownTimeout().toMillis()));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (consumer.isAlive()) {
+            log.warn("Async log dispatcher did not drain within {}; {} event(s) may be lost",
+                    settings.getShutdownTimeout(), getQueuedCount());
+        } else {
+            // Producers that passed the closed check before it flipped may have published late.
+            drain();
+        }
+    }
+
+    /**
+     * Pre-admission check applied before trying to claim a slot.
+     */
+    private boolean admit() {
+        if (settings.getOverflowPolicy() != CommonLoggerProperties.Async.OverflowPolicy.SAMPLE) {
+            return true;
+        }
+        if (getQueuedCount() < (slots.length >> 1)) {
+            return true;
+        }
+        return ThreadLocalRandom.current().nextDouble() < settings.getSampleRate();
+    }
+
+    private boolean waitsWhenFull(LogLevel level) {
+        return switch (settings.getOverflowPolicy()) {
+            case BLOCK -> true;
+            case DROP_LOWEST_LEVEL -> level.compareTo(settings.getDiscardThreshold()) > 0;
+            case SAMPLE -> false;
+        };
+    }
+
+    private boolean tryPublish(Logger logger, LogLevel level, Object payload, PayloadRenderer renderer) {
+        long position = tail.get();
+        for (;;) {
+            Slot slot = slots[(int) position & mask];
+            long difference = slot.sequence - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slot.logger = logger;
+                    slot.level = level;
+                    slot.payload = payload;
+                    slot.renderer = renderer;
+                    slot.sequence = position + 1;
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private void consume() {
+        int idle = 0;
+        while (running) {
+            if (drain() > 0) {
+                idle = 0;
+            } else {
+                idle = await(idle);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Emits every published event; only ever called by one thread at a time.
+     */
+    private int drain() {
+        int count = 0;
+        for (;;) {
+            long position = head;
+            Slot slot = slots[(int) position & mask];
+            if (slot.sequence != position + 1) {
+                return count;
+            }
+            Logger logger = slot.logger;
+            LogLevel level = slot.level;
+            Object payload = slot.payload;
+            PayloadRenderer renderer = slot.renderer;
+            slot.logger = null;
+            slot.payload = null;
+            slot.renderer = null;
+            slot.sequence = position + slots.length;
+            head = position + 1;
+            try {
+                emit(logger, level, payload, renderer);
+            } catch (Throwable ex) {
+                log.warn("Async log emission failed: {}", ex.getMessage());
+            }
+            count++;
+        }
+    }
+
+    private static void emit(Logger logger, LogLevel level, Object payload, PayloadRenderer renderer) {
+        Object message = renderer.render(level, payload);
+        if (message != null) {
+            LogLevelSupport.log(logger, level, message);
+        }
+    }
+
+    private int await(int idle) {
+        switch (settings.getWaitStrategy()) {
+            case BUSY_SPIN -> Thread.onSpinWait();
+            case YIELDING -> {
+                if (idle < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            case SLEEPING -> {
+                if (idle < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+            case BLOCKING -> {
+                consumerParked = true;
+                if (slots[(int) head & mask].sequence != head + 1 && running) {
+                    LockSupport.parkNanos(this, BLOCKING_PARK_NANOS);
+                }
+                consumerParked = false;
+            }
+        }
+        return idle == Integer.MAX_VALUE ? idle : idle + 1;
+    }
+
+    private static final class Slot {
+        volatile long sequence;
+        Logger logger;
+        LogLevel level;
+        Object payload;
+        PayloadRenderer renderer;
+
+        Slot(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,621 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * {@link JsonGenerator} wrapper that bounds one captured value (see {@link CapturedValue}) while it
+ * is serialized, instead of serializing it in full and cutting the resulting string.
+ * <ul>
+ *     <li>Containers nested deeper than {@code maxDepth} are written as {@code "..."}.</li>
+ *     <li>Arrays keep their first {@code maxElements} elements followed by {@code "..."}; objects keep
+ *     their first {@code maxElements} fields followed by {@code "_truncated": true}.</li>
+ *     <li>Once about {@code maxChars} characters have been written, the current string is cut and
+ *     ends with {@code ...} (other values become {@code "..."}) and serialization is aborted with
+ *     an exception; {@link #closeOpenContainers()} then closes what is open so the output stays
+ *     valid JSON. The rest of the object graph is never visited.</li>
+ * </ul>
+ * Characters are estimated per token (value length plus quotes and separators), so the limit may be
+ * exceeded by a few characters.
+ * <p>
+ * Not thread-safe; one instance per captured value.
+ */
+final class BoundedJsonGenerator extends JsonGeneratorDelegate {
+
+    static final String ELLIPSIS = "...";
+    static final String TRUNCATED_FIELD = "_truncated";
+
+    private final int maxDepth;
+    private final int maxElements;
+    private final int maxChars;
+    private int used;
+
+    /** Elements or fields written to each open container; index 0 is the root. */
+    private int[] counts = new int[8];
+    /** Whether each open container is an array. */
+    private boolean[] arrays = new boolean[8];
+    /** Whether the truncation marker was written to each open container. */
+    private boolean[] marked = new boolean[8];
+    private int depth;
+    /** The value of a dropped field must be swallowed. */
+    private boolean dropPending;
+    /** Nesting depth of a dropped object or array currently being swallowed. */
+    private int suppressed;
+    private boolean exhausted;
+
+    BoundedJsonGenerator(JsonGenerator delegate, int maxDepth, int maxElements, int maxChars) {
+        super(delegate, false);
+        this.maxDepth = maxDepth;
+        this.maxElements = maxElements;
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * Whether serialization was aborted because the character budget ran out.
+     */
+    boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Whether anything was written for the root value.
+     */
+    boolean hasOutput() {
+        return counts[0] > 0;
+    }
+
+    /**
+     * Ends every container this generator opened, after serialization stopped half way.
+     */
+    void closeOpenContainers() throws IOException {
+        while (depth > 0) {
+            if (arrays[depth]) {
+                delegate.writeEndArray();
+            } else {
+                delegate.writeEndObject();
+            }
+            depth--;
+        }
+        suppressed = 0;
+        dropPending = false;
+    }
+
+    // ── structure ───────────────────────────────────────────────────────────
+
+    @Override
+    public void writeStartObject() throws IOException {
+        if (enterContainer(false)) {
+            delegate.writeStartObject();
+        }
+    }
+
+    @Override
+    public void writeStartObject(Object forValue) throws IOException {
+        if (enterContainer(false)) {
+            delegate.writeStartObject(forValue);
+        }
+    }
+
+    @Override
+    public void writeStartObject(Object forValue, int size) throws IOException {
+        if (enterContainer(false)) {
+            delegate.writeStartObject(forValue, size);
+        }
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        if (exitContainer()) {
+            delegate.writeEndObject();
+        }
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        if (enterContainer(true)) {
+            delegate.writeStartArray();
+        }
+    }
+
+    /**
+     * Still reachable through callers of the deprecated API; routed like
+     * {@link #writeStartArray(Object, int)} so the array is tracked all the same.
+     */
+    @Deprecated
+    @Override
+    public void writeStartArray(int size) throws IOException {
+        writeStartArray(null, size);
+    }
+
+    @Override
+    public void writeStartArray(Object forValue) throws IOException {
+        if (enterContainer(true)) {
+            delegate.writeStartArray(forValue);
+        }
+    }
+
+    @Override
+    public void writeStartArray(Object forValue, int size) throws IOException {
+        if (enterContainer(true)) {
+            delegate.writeStartArray(forValue, size);
+        }
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        if (exitContainer()) {
+            delegate.writeEndArray();
+        }
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        if (writesField(name)) {
+            delegate.writeFieldName(name);
+        }
+    }
+
+    @Override
+    public void writeFieldName(SerializableString name) throws IOException {
+        if (writesField(name.getValue())) {
+            delegate.writeFieldName(name);
+        }
+    }
+
+    @Override
+    public void writeFieldId(long id) throws IOException {
+        writeFieldName(Long.toString(id));
+    }
+
+    @Override
+    public void writeOmittedField(String fieldName) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeOmittedField(fieldName);
+        }
+    }
+
+    // ── values ──────────────────────────────────────────────────────────────
+
+    @Override
+    public void writeArray(int[] array, int offset, int length) throws IOException {
+        // Element-wise, so that the element limit and budget apply.
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(long[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(double[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(String[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeString(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        if (text == null) {
+            writeNull();
+        } else if (admitsValue() && fitsText(text.length())) {
+            delegate.writeString(text);
+        } else if (exhausted) {
+            delegate.writeString(cut(text));
+            abort();
+        }
+    }
+
+    @Override
+    public void writeString(Reader reader, int len) throws IOException {
+        if (writesValue(len < 0 ? maxChars : len + 3)) {
+            delegate.writeString(reader, len);
+        }
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        if (admitsValue() && fitsText(len)) {
+            delegate.writeString(text, offset, len);
+        } else if (exhausted) {
+            delegate.writeString(cut(new String(text, offset, len)));
+            abort();
+        }
+    }
+
+    @Override
+    public void writeString(SerializableString text) throws IOException {
+        writeString(text.getValue());
+    }
+
+    @Override
+    public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+        if (writesValue(length + 3)) {
+            delegate.writeRawUTF8String(text, offset, length);
+        }
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+        if (writesValue(length + 3)) {
+            delegate.writeUTF8String(text, offset, length);
+        }
+    }
+
+    @Override
+    public void writeRaw(String text) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeRaw(text);
+        }
+    }
+
+    @Override
+    public void writeRaw(String text, int offset, int len) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeRaw(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeRaw(SerializableString raw) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeRaw(raw);
+        }
+    }
+
+    @Override
+    public void writeRaw(char[] text, int offset, int len) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeRaw(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeRaw(char c) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeRaw(c);
+        }
+    }
+
+    @Override
+    public void writeRawValue(String text) throws IOException {
+        if (writesValue(text.length() + 1)) {
+            delegate.writeRawValue(text);
+        }
+    }
+
+    @Override
+    public void writeRawValue(String text, int offset, int len) throws IOException {
+        if (writesValue(len + 1)) {
+            delegate.writeRawValue(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeRawValue(char[] text, int offset, int len) throws IOException {
+        if (writesValue(len + 1)) {
+            delegate.writeRawValue(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeBinary(Base64Variant b64variant, byte[] data, int offset, int len) throws IOException {
+        if (writesValue(len / 3 * 4 + 7)) {
+            delegate.writeBinary(b64variant, data, offset, len);
+        }
+    }
+
+    @Override
+    public int writeBinary(Base64Variant b64variant, InputStream data, int dataLength) throws IOException {
+        if (writesValue(dataLength < 0 ? maxChars : dataLength / 3 * 4 + 7)) {
+            return delegate.writeBinary(b64variant, data, dataLength);
+        }
+        return 0;
+    }
+
+    @Override
+    public void writeNumber(short v) throws IOException {
+        if (writesValue(7)) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(int v) throws IOException {
+        if (writesValue(digits(v) + 1)) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(long v) throws IOException {
+        if (writesValue(digits(v) + 1)) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(BigInteger v) throws IOException {
+        if (v == null) {
+            writeNull();
+        } else if (writesValue(v.bitLength() / 3 + 2)) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(double v) throws IOException {
+        if (writesValue(25)) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(float v) throws IOException {
+        if (writesValue(16)) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(BigDecimal v) throws IOException {
+        if (v == null) {
+            writeNull();
+        } else if (writesValue(v.precision() + 8)) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(String encodedValue) throws IOException {
+        if (encodedValue == null) {
+            writeNull();
+        } else if (writesValue(encodedValue.length() + 1)) {
+            delegate.writeNumber(encodedValue);
+        }
+    }
+
+    @Override
+    public void writeNumber(char[] encodedValueBuffer, int offset, int length) throws IOException {
+        if (writesValue(length + 1)) {
+            delegate.writeNumber(encodedValueBuffer, offset, length);
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean state) throws IOException {
+        if (writesValue(6)) {
+            delegate.writeBoolean(state);
+        }
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        if (writesValue(5)) {
+            delegate.writeNull();
+        }
+    }
+
+    @Override
+    public void writeEmbeddedObject(Object object) throws IOException {
+        if (writesValue(16)) {
+            delegate.writeEmbeddedObject(object);
+        }
+    }
+
+    @Override
+    public void writeObjectId(Object id) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeObjectId(id);
+        }
+    }
+
+    @Override
+    public void writeObjectRef(Object id) throws IOException {
+        if (writesValue(16)) {
+            delegate.writeObjectRef(id);
+        }
+    }
+
+    @Override
+    public void writeTypeId(Object id) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeTypeId(id);
+        }
+    }
+
+    // ── state ───────────────────────────────────────────────────────────────
+
+    /**
+     * Called before a field name; returns whether it should be written.
+     */
+    private boolean writesField(String name) throws IOException {
+        if (suppressed > 0) {
+            return false;
+        }
+        if (counts[depth] >= maxElements) {
+            markTruncatedObject();
+            dropPending = true;
+            return false;
+        }
+        int cost = name.length() + 4;
+        if (used + cost > maxChars) {
+            markTruncatedObject();
+            abort();
+        }
+        used += cost;
+        counts[depth]++;
+        return true;
+    }
+
+    private void markTruncatedObject() throws IOException {
+        if (!marked[depth]) {
+            marked[depth] = true;
+            delegate.writeFieldName(TRUNCATED_FIELD);
+            delegate.writeBoolean(true);
+        }
+    }
+
+    /**
+     * Called before a scalar value; returns whether it should be written. Aborts when the value does
+     * not fit into the remaining budget, after writing {@code "..."} in its place.
+     */
+    private boolean writesValue(int cost) throws IOException {
+        if (!admitsValue()) {
+            return false;
+        }
+        if (used + cost > maxChars) {
+            delegate.writeString(ELLIPSIS);
+            abort();
+        }
+        used += cost;
+        return true;
+    }
+
+    /**
+     * Applies suppression and the element limit to the next value; returns whether it may be written.
+     */
+    private boolean admitsValue() throws IOException {
+        if (suppressed > 0) {
+            return false;
+        }
+        if (dropPending) {
+            dropPending = false;
+            return false;
+        }
+        if (depth == 0 || arrays[depth]) {
+            if (depth > 0 && counts[depth] >= maxElements) {
+                if (!marked[depth]) {
+                    marked[depth] = true;
+                    delegate.writeString(ELLIPSIS);
+                }
+                return false;
+            }
+            counts[depth]++;
+        }
+        return true;
+    }
+
+    /**
+     * Charges a string of {@code length} characters, if it fits; otherwise marks the budget exhausted
+     * so that the caller writes the string cut. Only called after {@link #admitsValue()} returned
+     * {@code true}.
+     */
+    private boolean fitsText(int length) {
+        int cost = length + 3;
+        if (used + cost > maxChars) {
+            exhausted = true;
+            return false;
+        }
+        used += cost;
+        return true;
+    }
+
+    private String cut(String text) {
+        int keep = Math.max(0, Math.min(text.length(), maxChars - used - 3 - ELLIPSIS.length()));
+        return text.substring(0, keep) + ELLIPSIS;
+    }
+
+    /**
+     * Called before a container start; returns whether it should be written.
+     */
+    private boolean enterContainer(boolean array) throws IOException {
+        if (suppressed > 0) {
+            suppressed++;
+            return false;
+        }
+        if (!admitsValue()) {
+            suppressed = 1;
+            return false;
+        }
+        if (depth >= maxDepth) {
+            delegate.writeString(ELLIPSIS);
+            suppressed = 1;
+            return false;
+        }
+        if (used + 2 > maxChars) {
+            delegate.writeString(ELLIPSIS);
+            abort();
+        }
+        used += 2;
+        if (++depth == counts.length) {
+            counts = Arrays.copyOf(counts, depth << 1);
+            arrays = Arrays.copyOf(arrays, depth << 1);
+            marked = Arrays.copyOf(marked, depth << 1);
+        }
+        counts[depth] = 0;
+        arrays[depth] = array;
+        marked[depth] = false;
+        return true;
+    }
+
+    /**
+     * Called before a container end; returns whether it should be written.
+     */
+    private boolean exitContainer() {
+        if (suppressed > 0) {
+            suppressed--;
+            return false;
+        }
+        depth--;
+        return true;
+    }
+
+    private void abort() throws IOException {
+        exhausted = true;
+        throw new BudgetExhaustedException();
+    }
+
+    private static int digits(long v) {
+        int digits = v < 0 ? 2 : 1;
+        long rest = v < 0 ? -(v / 10) : v / 10;
+        while (rest > 0) {
+            rest /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Stops serialization of a captured value; carries no stack trace.
+     */
+    static final class BudgetExhaustedException extends IOException {
+
+        BudgetExhaustedException() {
+            super("capture limit reached");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+
+/**
+ * An argument array or result captured by {@link LoggingAspect}, serialized within the limits of
+ * {@code common.logger.capture.*} through a {@link BoundedJsonGenerator}.
+ * <p>
+ * When the event is written on the calling thread, the value is serialized straight into the
+ * event's JSON, and the limits apply the same way in the streaming encoder and the map model. When
+ * the event is deferred (async dispatch or a request buffer), {@link #snapshot(ObjectMapper)}
+ * serializes it on the calling thread first and drops the reference, so the object graph is neither
+ * read from another thread nor kept alive while the event waits. Serialization failures do not fail
+ * the event: what was written so far is closed, or {@code "<unserializable: Type>"} is written when
+ * nothing was.
+ * <p>
+ * Maskers cannot see into the value, so they configure it instead: {@link SensitiveFieldPlan#mask}
+ * hands over the plan and the trie node of the field holding it ({@link #mask}), and
+ * {@link PatternRedactingMasker} its {@link ValueRedactor} ({@link #redact}). Both are then
+ * enforced while the value is written, by a {@link MaskingJsonGenerator} and by redacting every
+ * string token.
+ */
+@JsonSerialize(using = CapturedValue.Serializer.class)
+final class CapturedValue {
+
+    private Object value;
+    private final CommonLoggerProperties.Capture limits;
+    /** The bounded, masked tokens of {@link #value}, once taken. */
+    private TokenBuffer snapshot;
+    private SensitiveFieldPlan plan;
+    private SensitiveFieldPlan.Node node;
+    private String mask;
+    private ValueRedactor redactor;
+
+    CapturedValue(Object value, CommonLoggerProperties.Capture limits) {
+        this.value = value;
+        this.limits = limits;
+    }
+
+    /**
+     * Masks the fields {@code plan} marks as sensitive, with {@code node} as the trie node of the
+     * value itself.
+     */
+    void mask(SensitiveFieldPlan plan, SensitiveFieldPlan.Node node, String mask) {
+        this.plan = plan;
+        this.node = node;
+        this.mask = mask;
+    }
+
+    /**
+     * Redacts every string written for the value with {@code redactor}.
+     */
+    void redact(ValueRedactor redactor) {
+        this.redactor = redactor;
+    }
+
+    /**
+     * Serializes the value now, with the limits, mask and redactor configured so far, and releases
+     * it; later renderings replay the recorded tokens. Called once maskers have run.
+     */
+    void snapshot(ObjectMapper mapper) {
+        if (snapshot != null) {
+            return;
+        }
+        TokenBuffer buffer = new TokenBuffer(mapper, false);
+        try {
+            mapper.writeValue(buffer, this);
+        } catch (IOException ex) {
+            // Not expected for an in-memory buffer; the value is then serialized when rendered.
+            return;
+        }
+        snapshot = buffer;
+        value = null;
+    }
+
+    static final class Serializer extends StdSerializer<CapturedValue> {
+
+        Serializer() {
+            super(CapturedValue.class);
+        }
+
+        @Override
+        public void serialize(CapturedValue captured, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (captured.snapshot != null) {
+                captured.snapshot.serialize(gen);
+                return;
+            }
+            JsonGenerator target = gen;
+            if (captured.redactor != null) {
+                target = new RedactingJsonGenerator(target, captured.redactor);
+            }
+            if (captured.plan != null) {
+                target = new MaskingJsonGenerator(target).reset(captured.plan, captured.node, captured.mask);
+            }
+            CommonLoggerProperties.Capture limits = captured.limits;
+            BoundedJsonGenerator bounded = new BoundedJsonGenerator(target, limits.getMaxDepth(),
+                    limits.getMaxElements(), limits.getMaxBytes());
+            try {
+                provider.defaultSerializeValue(captured.value, bounded);
+            } catch (IOException | RuntimeException ex) {
+                bounded.closeOpenContainers();
+                if (!bounded.hasOutput()) {
+                    gen.writeString("<unserializable: " + captured.value.getClass().getSimpleName() + ">");
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes string values through a {@link ValueRedactor}; field names are left alone.
+     */
+    private static final class RedactingJsonGenerator extends JsonGeneratorDelegate {
+
+        private final ValueRedactor redactor;
+
+        RedactingJsonGenerator(JsonGenerator delegate, ValueRedactor redactor) {
+            super(delegate, false);
+            this.redactor = redactor;
+        }
+
+        @Override
+        public void writeString(String text) throws IOException {
+            delegate.writeString(redactor.redact(text));
+        }
+
+        @Override
+        public void writeString(char[] text, int offset, int len) throws IOException {
+            writeString(new String(text, offset, len));
+        }
+
+        @Override
+        public void writeString(SerializableString text) throws IOException {
+            writeString(text.getValue());
+        }
+
+        @Override
+        public void writeArray(String[] array, int offset, int length) throws IOException {
+            writeStartArray(array, length);
+            for (int i = offset, end = offset + length; i < end; i++) {
+                writeString(array[i]);
+            }
+            writeEndArray();
+        }
+    }
+}
@@ -1,37 +1,63 @@
 package com.yahya.commonlogger;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
 
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
-@AutoConfiguration
+@AutoConfiguration(afterName = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
 @ConditionalOnClass(Logger.class)
 @EnableConfigurationProperties(CommonLoggerProperties.class)
 public class CommonLoggerAutoConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(CommonLoggerAutoConfiguration.class);
 
+    private ObjectMapper loggingObjectMapperSource;
+    private ObjectMapper loggingObjectMapper;
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CorrelationIdGenerator correlationIdGenerator(CommonLoggerProperties properties) {
+        return properties.getCorrelationIdGenerator().create();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ContextPropagation contextPropagation(CommonLoggerProperties properties) {
+        return new ContextPropagation(properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "common.logger.propagation", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean
+    public TaskDecorator contextPropagationTaskDecorator(ContextPropagation contextPropagation) {
+        return contextPropagation.taskDecorator();
+    }
+
     @Bean
     @ConditionalOnClass(name = "jakarta.servlet.Filter")
     @ConditionalOnMissingBean
-    public CorrelationIdFilter correlationIdFilter(CommonLoggerProperties properties) {
+    public CorrelationIdFilter correlationIdFilter(CommonLoggerProperties properties,
+                                                   CorrelationIdGenerator correlationIdGenerator) {
         if (logger.isDebugEnabled()) {
             logger.debug("Registering CorrelationIdFilter with header [{}]", properties.getCorrelationIdHeader());
         }
-        return new CorrelationIdFilter(properties);
+        return new CorrelationIdFilter(properties, correlationIdGenerator);
     }
 
     @Bean
@@ -43,12 +69,36 @@ public class CommonLoggerAutoConfiguration {
     @Bean("defaultSensitiveDataMasker")
     @ConditionalOnMissingBean(name = "defaultSensitiveDataMasker")
     public SensitiveDataMasker defaultSensitiveDataMasker(CommonLoggerProperties properties) {
-        return payload -> {
-            Set<String> fields = new HashSet<>(properties.getSensitiveFields());
-            if (!fields.isEmpty()) {
-                maskRecursive(payload, fields);
-            }
-        };
+        return new PropertySensitiveDataMasker(properties);
+    }
+
+    @Bean("patternRedactingMasker")
+    @ConditionalOnProperty(prefix = "common.logger.redaction", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean(name = "patternRedactingMasker")
+    public SensitiveDataMasker patternRedactingMasker(CommonLoggerProperties properties) {
+        return new PatternRedactingMasker(properties.getRedaction());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "common.logger.async", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean
+    public AsyncLogDispatcher asyncLogDispatcher(CommonLoggerProperties properties) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Registering AsyncLogDispatcher with capacity [{}] and overflow policy [{}]",
+                    properties.getAsync().getCapacity(), properties.getAsync().getOverflowPolicy());
+        }
+        return new AsyncLogDispatcher(properties.getAsync());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "common.logger.error-coalescing", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean
+    public ErrorCoalescer errorCoalescer(CommonLoggerProperties properties) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Registering ErrorCoalescer with window [{}] and [{}] full occurrence(s)",
+                    properties.getErrorCoalescing().getWindow(), properties.getErrorCoalescing().getFullOccurrences());
+        }
+        return new ErrorCoalescer(properties.getErrorCoalescing());
     }
 
     @Bean
@@ -57,29 +107,71 @@ public class CommonLoggerAutoConfiguration {
     public LoggingAspect loggingAspect(CommonLoggerProperties properties,
                                        ObjectProvider<List<StructuredLogCustomizer>> customizersProvider,
                                        ObjectProvider<List<SensitiveDataMasker>> maskersProvider,
-                                       ObjectMapper commonLoggerObjectMapper) {
+                                       ObjectMapper commonLoggerObjectMapper,
+                                       ObjectProvider<AsyncLogDispatcher> asyncDispatcherProvider,
+                                       ObjectProvider<ErrorCoalescer> errorCoalescerProvider,
+                                       ObjectProvider<LoggableMetrics> metricsProvider) {
         List<StructuredLogCustomizer> customizers = customizersProvider.getIfAvailable(Collections::emptyList);
         List<SensitiveDataMasker> maskers = maskersProvider.getIfAvailable(Collections::emptyList);
-        return new LoggingAspect(properties, customizers, maskers, commonLoggerObjectMapper);
+        return new LoggingAspect(properties, customizers, maskers,
+                loggingObjectMapper(commonLoggerObjectMapper),
+                asyncDispatcherProvider.getIfAvailable(), errorCoalescerProvider.getIfAvailable(),
+                metricsProvider.getIfAvailable());
     }
 
     @Bean
     @ConditionalOnMissingBean
     public StructuredLogger structuredLogger(CommonLoggerProperties properties,
                                              ObjectMapper commonLoggerObjectMapper,
-                                             ObjectProvider<List<SensitiveDataMasker>> maskersProvider) {
+                                             ObjectProvider<List<SensitiveDataMasker>> maskersProvider,
+                                             ObjectProvider<AsyncLogDispatcher> asyncDispatcherProvider) {
         List<SensitiveDataMasker> maskers = maskersProvider.getIfAvailable(Collections::emptyList);
-        return new StructuredLogger(properties, commonLoggerObjectMapper, maskers);
+        return new StructuredLogger(properties, loggingObjectMapper(commonLoggerObjectMapper), maskers,
+                asyncDispatcherProvider.getIfAvailable());
     }
 
-    @SuppressWarnings("unchecked")
-    private static void maskRecursive(Map<String, Object> map, Set<String> sensitiveFields) {
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            if (sensitiveFields.contains(entry.getKey())) {
-                entry.setValue("***");
-            } else if (entry.getValue() instanceof Map<?, ?> nested) {
-                maskRecursive((Map<String, Object>) nested, sensitiveFields);
+    /**
+     * The mapper both emitters log through: a copy of {@code objectMapper} with {@link MaskFieldModule},
+     * made once and shared, so {@code @MaskField} never changes what the application's own mapper
+     * (e.g. for HTTP bodies) writes.
+     */
+    private synchronized ObjectMapper loggingObjectMapper(ObjectMapper objectMapper) {
+        if (loggingObjectMapper == null || loggingObjectMapperSource != objectMapper) {
+            loggingObjectMapperSource = objectMapper;
+            loggingObjectMapper = MaskFieldModule.ensureRegistered(objectMapper);
+        }
+        return loggingObjectMapper;
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @ConditionalOnClass(name = {"org.springframework.web.server.WebFilter", "reactor.core.publisher.Mono"})
+    static class ReactiveCorrelationConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public CorrelationIdWebFilter correlationIdWebFilter(CommonLoggerProperties properties,
+                                                             CorrelationIdGenerator correlationIdGenerator) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Registering CorrelationIdWebFilter with header [{}]", properties.getCorrelationIdHeader());
+            }
+            return new CorrelationIdWebFilter(properties, correlationIdGenerator);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(prefix = "common.logger.metrics", name = "enabled", havingValue = "true")
+    static class MetricsConfiguration {
+
+        @Bean
+        @ConditionalOnBean(MeterRegistry.class)
+        @ConditionalOnMissingBean
+        public LoggableMetrics loggableMetrics(MeterRegistry meterRegistry, CommonLoggerProperties properties) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Registering LoggableMetrics with timer [{}]", properties.getMetrics().getName());
             }
+            return new LoggableMetrics(meterRegistry, properties.getMetrics());
         }
     }
 }
@@ -2,15 +2,26 @@ package com.yahya.commonlogger;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.logging.LogLevel;
+import org.springframework.util.ClassUtils;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @ConfigurationProperties(prefix = "common.logger")
 public class CommonLoggerProperties {
     private String correlationIdHeader = "X-Correlation-Id";
     private String correlationIdMdcKey = "correlationId";
 
+    /**
+     * Generator used when a request carries no correlation id header. Ignored when a
+     * {@link CorrelationIdGenerator} bean is registered.
+     */
+    private CorrelationIdGenerator.Kind correlationIdGenerator = CorrelationIdGenerator.Kind.UUID;
+
     /**
      * Log level used for successful method executions.
      */
@@ -31,6 +42,43 @@ public class CommonLoggerProperties {
      */
     private int errorHttpStatusCode = 500;
 
+    /**
+     * Successful executions taking at least this long are always logged, regardless of sampling, at
+     * {@code WARN} or above with {@code slowCall=true}; {@code 0} disables slow-call detection.
+     * Overridden per method by {@link Loggable#slowThresholdMs()}.
+     */
+    private Duration slowThreshold = Duration.ZERO;
+
+    /**
+     * Whether successful executions below the slow threshold are logged at all. With {@code false},
+     * only failures and slow calls are logged; {@link Loggable#logSuccess()} disables this per method.
+     */
+    private boolean logSuccess = true;
+
+    /**
+     * Unit of {@code processTime}. Durations are measured with {@link System#nanoTime()} and converted
+     * once per event, so sub-millisecond executions are not reported as {@code 0} with
+     * {@code MICROSECONDS} or {@code NANOSECONDS}.
+     */
+    private ProcessTimeUnit processTimeUnit = ProcessTimeUnit.MILLISECONDS;
+
+    /**
+     * Whether events additionally carry {@code processTimeNanos}, the measured duration in
+     * nanoseconds, regardless of {@link #processTimeUnit}.
+     */
+    private boolean processTimeNanos = false;
+
+    /**
+     * Whether {@link Loggable} methods returning a {@code CompletionStage}, {@code Mono} or
+     * {@code Flux} are logged when the result completes instead of when the method returns.
+     */
+    private boolean awaitAsyncResults = true;
+
+    /**
+     * Format of {@code logTimestamp}, shared by {@link LoggingAspect} and {@link StructuredLogger}.
+     */
+    private TimestampFormat timestampFormat = TimestampFormat.ISO_OFFSET;
+
     /**
      * MDC key used to resolve the transaction identifier (defaults to correlationIdMdcKey).
      */
@@ -38,11 +86,106 @@ public class CommonLoggerProperties {
 
     /**
      * List of payload field names whose values will be replaced with {@code "***"} in log output.
-     * Nested map fields are also masked recursively.
-     * Example: {@code common.logger.sensitive-fields=password,token,cardNumber}
+     * A plain name is masked at any depth, including inside lists and arrays; a dotted path
+     * (e.g. {@code request.card.number}) is masked only at that position from the payload root.
+     * Example: {@code common.logger.sensitive-fields=password,token,request.card.number}
      */
     private List<String> sensitiveFields = new ArrayList<>();
 
+    /**
+     * Whether {@link #sensitiveFields} are matched case-insensitively.
+     */
+    private boolean sensitiveFieldsIgnoreCase = false;
+
+    /**
+     * Where {@link #sensitiveFields} are enforced. {@code PAYLOAD} masks the payload map before
+     * serialization; {@code SERIALIZATION} masks inside the JSON writer, which also covers POJOs
+     * and avoids the extra traversal.
+     */
+    private MaskingMode maskingMode = MaskingMode.PAYLOAD;
+
+    /**
+     * Whether {@link LoggingAspect} writes its built-in fields straight through a reused Jackson
+     * generator instead of building an intermediate map first. The map model is still used whenever
+     * a {@link StructuredLogCustomizer} is registered or a {@link SensitiveDataMasker} is active.
+     */
+    private boolean streamingEncoder = true;
+
+    /**
+     * Whether {@link StructuredLogger} reuses one builder and its payload map per thread instead of
+     * allocating them for every event. A pooled builder must not be used after
+     * {@code onSuccess} / {@code onFailure} nor passed to another thread. Use from another thread is
+     * always rejected; use after completion only until the thread obtains the builder again, after
+     * which a stale reference writes into the new event.
+     */
+    private boolean pooledBuilders = false;
+
+    /**
+     * Hand payloads to SLF4J as a {@link StructuredLogEvent} argument instead of a rendered JSON
+     * line, so {@link StructuredLogEncoder} can write them straight to bytes. Other appenders and
+     * layouts still see the JSON line as the formatted message.
+     */
+    private boolean structuredArguments = false;
+
+    /**
+     * Log payloads through the Log4j2 API as a per-thread, reused {@link StructuredLogMessage}
+     * instead of a rendered JSON line; together with {@link StructuredJsonLayout} and Log4j2's
+     * garbage-free mode nothing is allocated to write an event. Requires {@code log4j-api} and takes
+     * precedence over {@code structured-arguments}.
+     */
+    private boolean reusableMessages = false;
+
+    /**
+     * Asynchronous emission settings ({@code common.logger.async.*}).
+     */
+    private final Async async = new Async();
+
+    /**
+     * Content-based redaction settings ({@code common.logger.redaction.*}).
+     */
+    private final Redaction redaction = new Redaction();
+
+    /**
+     * Rendering of {@code logException} ({@code common.logger.stack-trace.*}).
+     */
+    private final StackTrace stackTrace = new StackTrace();
+
+    /**
+     * Deduplication of repeated failures ({@code common.logger.error-coalescing.*}).
+     */
+    private final ErrorCoalescing errorCoalescing = new ErrorCoalescing();
+
+    /**
+     * Sampling of successful executions ({@code common.logger.sampling.*}).
+     */
+    private final Sampling sampling = new Sampling();
+
+    /**
+     * Per-request buffering of low-level events ({@code common.logger.request-buffer.*}).
+     */
+    private final RequestBuffer requestBuffer = new RequestBuffer();
+
+    /**
+     * Micrometer timers per {@link Loggable} method ({@code common.logger.metrics.*}).
+     */
+    private final Metrics metrics = new Metrics();
+
+    /**
+     * MDC propagation to executor threads ({@code common.logger.propagation.*}).
+     */
+    private final Propagation propagation = new Propagation();
+
+    /**
+     * Limits for arguments and results captured via {@link Loggable#logArguments()} and
+     * {@link Loggable#logResult()} ({@code common.logger.capture.*}).
+     */
+    private final Capture capture = new Capture();
+
+    /**
+     * {@link StructuredLogger#batch()} settings ({@code common.logger.batch.*}).
+     */
+    private final Batch batch = new Batch();
+
     public String getCorrelationIdHeader() {
         return correlationIdHeader;
     }
@@ -65,6 +208,16 @@ public class CommonLoggerProperties {
         this.correlationIdMdcKey = correlationIdMdcKey;
     }
 
+    public CorrelationIdGenerator.Kind getCorrelationIdGenerator() {
+        return correlationIdGenerator;
+    }
+
+    public void setCorrelationIdGenerator(CorrelationIdGenerator.Kind correlationIdGenerator) {
+        this.correlationIdGenerator = correlationIdGenerator == null
+                ? CorrelationIdGenerator.Kind.UUID
+                : correlationIdGenerator;
+    }
+
     public LogLevel getLogLevel() {
         return logLevel;
     }
@@ -105,6 +258,58 @@ public class CommonLoggerProperties {
         this.errorHttpStatusCode = errorHttpStatusCode;
     }
 
+    public Duration getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public void setSlowThreshold(Duration slowThreshold) {
+        if (slowThreshold != null && slowThreshold.isNegative()) {
+            throw new IllegalArgumentException(
+                    "common.logger.slow-threshold must not be negative, but was: " + slowThreshold);
+        }
+        this.slowThreshold = slowThreshold == null ? Duration.ZERO : slowThreshold;
+    }
+
+    public boolean isLogSuccess() {
+        return logSuccess;
+    }
+
+    public void setLogSuccess(boolean logSuccess) {
+        this.logSuccess = logSuccess;
+    }
+
+    public ProcessTimeUnit getProcessTimeUnit() {
+        return processTimeUnit;
+    }
+
+    public void setProcessTimeUnit(ProcessTimeUnit processTimeUnit) {
+        this.processTimeUnit = processTimeUnit == null ? ProcessTimeUnit.MILLISECONDS : processTimeUnit;
+    }
+
+    public boolean isProcessTimeNanos() {
+        return processTimeNanos;
+    }
+
+    public void setProcessTimeNanos(boolean processTimeNanos) {
+        this.processTimeNanos = processTimeNanos;
+    }
+
+    public boolean isAwaitAsyncResults() {
+        return awaitAsyncResults;
+    }
+
+    public void setAwaitAsyncResults(boolean awaitAsyncResults) {
+        this.awaitAsyncResults = awaitAsyncResults;
+    }
+
+    public TimestampFormat getTimestampFormat() {
+        return timestampFormat;
+    }
+
+    public void setTimestampFormat(TimestampFormat timestampFormat) {
+        this.timestampFormat = timestampFormat == null ? TimestampFormat.ISO_OFFSET : timestampFormat;
+    }
+
     public String getTransactionIdMdcKey() {
         return transactionIdMdcKey == null ? correlationIdMdcKey : transactionIdMdcKey;
     }
@@ -120,4 +325,993 @@ public class CommonLoggerProperties {
     public void setSensitiveFields(List<String> sensitiveFields) {
         this.sensitiveFields = sensitiveFields == null ? new ArrayList<>() : sensitiveFields;
     }
+
+    public boolean isSensitiveFieldsIgnoreCase() {
+        return sensitiveFieldsIgnoreCase;
+    }
+
+    public void setSensitiveFieldsIgnoreCase(boolean sensitiveFieldsIgnoreCase) {
+        this.sensitiveFieldsIgnoreCase = sensitiveFieldsIgnoreCase;
+    }
+
+    public MaskingMode getMaskingMode() {
+        return maskingMode;
+    }
+
+    public void setMaskingMode(MaskingMode maskingMode) {
+        this.maskingMode = maskingMode == null ? MaskingMode.PAYLOAD : maskingMode;
+    }
+
+    public boolean isStreamingEncoder() {
+        return streamingEncoder;
+    }
+
+    public void setStreamingEncoder(boolean streamingEncoder) {
+        this.streamingEncoder = streamingEncoder;
+    }
+
+    public boolean isPooledBuilders() {
+        return pooledBuilders;
+    }
+
+    public void setPooledBuilders(boolean pooledBuilders) {
+        this.pooledBuilders = pooledBuilders;
+    }
+
+    public boolean isStructuredArguments() {
+        return structuredArguments;
+    }
+
+    public void setStructuredArguments(boolean structuredArguments) {
+        this.structuredArguments = structuredArguments;
+    }
+
+    public boolean isReusableMessages() {
+        return reusableMessages;
+    }
+
+    public void setReusableMessages(boolean reusableMessages) {
+        if (reusableMessages && !ClassUtils.isPresent("org.apache.logging.log4j.message.ReusableMessage",
+                CommonLoggerProperties.class.getClassLoader())) {
+            throw new IllegalArgumentException("common.logger.reusable-messages requires log4j-api on the classpath");
+        }
+        this.reusableMessages = reusableMessages;
+    }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    public Redaction getRedaction() {
+        return redaction;
+    }
+
+    public StackTrace getStackTrace() {
+        return stackTrace;
+    }
+
+    public ErrorCoalescing getErrorCoalescing() {
+        return errorCoalescing;
+    }
+
+    public Sampling getSampling() {
+        return sampling;
+    }
+
+    public RequestBuffer getRequestBuffer() {
+        return requestBuffer;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Propagation getPropagation() {
+        return propagation;
+    }
+
+    public Capture getCapture() {
+        return capture;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    /**
+     * How {@code common.logger.sensitive-fields} are applied.
+     */
+    public enum MaskingMode {
+        /** Mask the payload map in place before it is serialized (a separate pass over maps only). */
+        PAYLOAD,
+        /** Mask while writing JSON, for maps and POJOs alike, in the same pass as serialization. */
+        SERIALIZATION
+    }
+
+    /**
+     * Unit in which {@code processTime} is written.
+     */
+    public enum ProcessTimeUnit {
+        MILLISECONDS(TimeUnit.MILLISECONDS),
+        MICROSECONDS(TimeUnit.MICROSECONDS),
+        NANOSECONDS(TimeUnit.NANOSECONDS);
+
+        private final TimeUnit timeUnit;
+
+        ProcessTimeUnit(TimeUnit timeUnit) {
+            this.timeUnit = timeUnit;
+        }
+
+        /**
+         * Converts a {@link System#nanoTime()} delta into this unit, truncating.
+         */
+        public long fromNanos(long nanos) {
+            return timeUnit.convert(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * How {@code logTimestamp} is written.
+     */
+    public enum TimestampFormat {
+        /** {@code yyyy-MM-dd'T'HH:mm:ss.SSSXXX} in the system time zone, e.g. {@code 2026-03-17T15:00:00.000+07:00}. */
+        ISO_OFFSET,
+        /** Milliseconds since the epoch, as a number. */
+        EPOCH_MILLIS,
+        /** Microseconds since the epoch, as a number. */
+        EPOCH_MICROS
+    }
+
+    /**
+     * What {@link StructuredLogger.StructuredLogBatch#flush()} writes.
+     */
+    public enum BatchMode {
+        /** Every enabled event, as newline-separated JSON objects in one logging call. */
+        EVENTS,
+        /** One aggregate {@code batchSummary} event with counts and {@code processTime} statistics. */
+        SUMMARY
+    }
+
+    /**
+     * Opt-in asynchronous emission: events are published into a bounded lock-free ring buffer and
+     * serialized and written by a dedicated consumer thread. ERROR events are never dropped.
+     */
+    public static class Async {
+
+        /**
+         * How the consumer thread waits when the ring buffer is empty.
+         */
+        public enum WaitStrategy {
+            /** Park until a producer signals; lowest CPU use. */
+            BLOCKING,
+            /** Spin, then yield, then park briefly; a balance of latency and CPU. */
+            SLEEPING,
+            /** Spin, then yield; low latency, keeps a core busy under load. */
+            YIELDING,
+            /** Spin continuously; lowest latency, dedicates a core. */
+            BUSY_SPIN
+        }
+
+        /**
+         * What producers do when the ring buffer is full.
+         */
+        public enum OverflowPolicy {
+            /** Drop events at or below {@code discard-threshold}; higher levels wait for space. */
+            DROP_LOWEST_LEVEL,
+            /** Every event waits for space. */
+            BLOCK,
+            /** Once the buffer is half full, admit non-error events with probability {@code sample-rate}. */
+            SAMPLE
+        }
+
+        /**
+         * Enables asynchronous emission.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Ring buffer size; rounded up to the next power of two.
+         */
+        private int capacity = 8192;
+
+        private WaitStrategy waitStrategy = WaitStrategy.BLOCKING;
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_LOWEST_LEVEL;
+
+        /**
+         * Highest level that {@link OverflowPolicy#DROP_LOWEST_LEVEL} may drop.
+         */
+        private LogLevel discardThreshold = LogLevel.INFO;
+
+        /**
+         * Fraction of non-error events admitted by {@link OverflowPolicy#SAMPLE} under pressure.
+         */
+        private double sampleRate = 0.1;
+
+        /**
+         * How long context shutdown waits for queued events to be written.
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            if (capacity < 2 || capacity > (1 << 30)) {
+                throw new IllegalArgumentException(
+                        "common.logger.async.capacity must be between 2 and 1073741824, but was: " + capacity);
+            }
+            this.capacity = capacity;
+        }
+
+        public WaitStrategy getWaitStrategy() {
+            return waitStrategy;
+        }
+
+        public void setWaitStrategy(WaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy == null ? WaitStrategy.BLOCKING : waitStrategy;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy == null ? OverflowPolicy.DROP_LOWEST_LEVEL : overflowPolicy;
+        }
+
+        public LogLevel getDiscardThreshold() {
+            return discardThreshold;
+        }
+
+        public void setDiscardThreshold(LogLevel discardThreshold) {
+            if (discardThreshold == null || discardThreshold.compareTo(LogLevel.WARN) > 0) {
+                throw new IllegalArgumentException(
+                        "common.logger.async.discard-threshold must be one of TRACE, DEBUG, INFO, WARN, but was: "
+                                + discardThreshold);
+            }
+            this.discardThreshold = discardThreshold;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            if (sampleRate < 0.0 || sampleRate > 1.0) {
+                throw new IllegalArgumentException(
+                        "common.logger.async.sample-rate must be between 0.0 and 1.0, but was: " + sampleRate);
+            }
+            this.sampleRate = sampleRate;
+        }
+
+        public Duration getShutdownTimeout() {
+            return shutdownTimeout;
+        }
+
+        public void setShutdownTimeout(Duration shutdownTimeout) {
+            this.shutdownTimeout = shutdownTimeout == null ? Duration.ofSeconds(5) : shutdownTimeout;
+        }
+    }
+
+    /**
+     * Redaction of sensitive content inside string values, regardless of the field name. Applied
+     * by a {@link SensitiveDataMasker} registered when {@code enabled} is {@code true}.
+     */
+    public static class Redaction {
+
+        /**
+         * Enables content-based redaction.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Redact Luhn-valid card numbers of 13-19 digits.
+         */
+        private boolean cardNumbers = true;
+
+        /**
+         * Redact JSON Web Tokens.
+         */
+        private boolean jwt = true;
+
+        /**
+         * Redact e-mail addresses.
+         */
+        private boolean email = true;
+
+        /**
+         * Redact phone numbers starting with {@code +} or {@code 0}.
+         */
+        private boolean phone = false;
+
+        /**
+         * Case-insensitive ASCII prefixes whose following token is redacted.
+         */
+        private List<String> keywords = new ArrayList<>(List.of(
+                "bearer ", "basic ", "password=", "token=", "secret=", "api_key=", "apikey="));
+
+        /**
+         * Replacement for redacted content.
+         */
+        private String replacement = "***";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isCardNumbers() {
+            return cardNumbers;
+        }
+
+        public void setCardNumbers(boolean cardNumbers) {
+            this.cardNumbers = cardNumbers;
+        }
+
+        public boolean isJwt() {
+            return jwt;
+        }
+
+        public void setJwt(boolean jwt) {
+            this.jwt = jwt;
+        }
+
+        public boolean isEmail() {
+            return email;
+        }
+
+        public void setEmail(boolean email) {
+            this.email = email;
+        }
+
+        public boolean isPhone() {
+            return phone;
+        }
+
+        public void setPhone(boolean phone) {
+            this.phone = phone;
+        }
+
+        public List<String> getKeywords() {
+            return keywords;
+        }
+
+        public void setKeywords(List<String> keywords) {
+            this.keywords = keywords == null ? new ArrayList<>() : keywords;
+        }
+
+        public String getReplacement() {
+            return replacement;
+        }
+
+        public void setReplacement(String replacement) {
+            if (replacement == null) {
+                throw new IllegalArgumentException("common.logger.redaction.replacement must not be null");
+            }
+            this.replacement = replacement;
+        }
+    }
+
+    /**
+     * How exceptions are rendered into {@code logException}. Rendered frames are cached per
+     * exception fingerprint, which is also logged as {@code exceptionFingerprint}.
+     */
+    public static class StackTrace {
+
+        /**
+         * What to write for an exception whose fingerprint was already rendered.
+         */
+        public enum Mode {
+            /** Always write the full stack trace. */
+            FULL,
+            /** Write the full stack trace once; repeats carry only the fingerprint and first-seen time. */
+            REFERENCE
+        }
+
+        private Mode mode = Mode.FULL;
+
+        /**
+         * Maximum frames written per exception in the chain; {@code 0} writes all frames.
+         */
+        private int maxDepth = 0;
+
+        /**
+         * Class name prefixes of frames to collapse into a {@code ... n filtered} line. CGLIB proxy
+         * frames are collapsed as well unless this list is empty.
+         */
+        private List<String> excludedFrames = new ArrayList<>(List.of(
+                "java.lang.reflect.", "jdk.internal.reflect.", "sun.reflect.",
+                "org.springframework.aop.", "org.springframework.cglib.", "org.aspectj.runtime."));
+
+        /**
+         * Number of distinct fingerprints whose rendered frames are kept; {@code 0} disables caching.
+         */
+        private int cacheSize = 256;
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode == null ? Mode.FULL : mode;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public void setMaxDepth(int maxDepth) {
+            if (maxDepth < 0) {
+                throw new IllegalArgumentException(
+                        "common.logger.stack-trace.max-depth must be >= 0, but was: " + maxDepth);
+            }
+            this.maxDepth = maxDepth;
+        }
+
+        public List<String> getExcludedFrames() {
+            return excludedFrames;
+        }
+
+        public void setExcludedFrames(List<String> excludedFrames) {
+            this.excludedFrames = excludedFrames == null ? new ArrayList<>() : excludedFrames;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            if (cacheSize < 0) {
+                throw new IllegalArgumentException(
+                        "common.logger.stack-trace.cache-size must be >= 0, but was: " + cacheSize);
+            }
+            this.cacheSize = cacheSize;
+        }
+    }
+
+    /**
+     * Opt-in coalescing of repeated failures. Per window, the first {@code full-occurrences} failures
+     * with the same log point, exception class and stack trace fingerprint are logged in full; the
+     * rest are only counted and reported in one summary event when the window closes.
+     */
+    public static class ErrorCoalescing {
+
+        /**
+         * Enables error coalescing.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Failures per key and window that are still logged in full.
+         */
+        private int fullOccurrences = 5;
+
+        /**
+         * Length of a coalescing window; a summary is emitted for every key with suppressed failures.
+         */
+        private Duration window = Duration.ofMinutes(1);
+
+        /**
+         * Number of {@code transactionId}s of suppressed failures kept as samples in the summary.
+         */
+        private int sampleSize = 5;
+
+        /**
+         * Maximum number of keys tracked per window; failures for further keys are logged in full.
+         */
+        private int maxKeys = 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getFullOccurrences() {
+            return fullOccurrences;
+        }
+
+        public void setFullOccurrences(int fullOccurrences) {
+            if (fullOccurrences < 0) {
+                throw new IllegalArgumentException(
+                        "common.logger.error-coalescing.full-occurrences must be >= 0, but was: " + fullOccurrences);
+            }
+            this.fullOccurrences = fullOccurrences;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            if (window == null || window.isNegative() || window.isZero()) {
+                throw new IllegalArgumentException(
+                        "common.logger.error-coalescing.window must be positive, but was: " + window);
+            }
+            this.window = window;
+        }
+
+        public int getSampleSize() {
+            return sampleSize;
+        }
+
+        public void setSampleSize(int sampleSize) {
+            if (sampleSize < 0) {
+                throw new IllegalArgumentException(
+                        "common.logger.error-coalescing.sample-size must be >= 0, but was: " + sampleSize);
+            }
+            this.sampleSize = sampleSize;
+        }
+
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(int maxKeys) {
+            if (maxKeys < 1) {
+                throw new IllegalArgumentException(
+                        "common.logger.error-coalescing.max-keys must be >= 1, but was: " + maxKeys);
+            }
+            this.maxKeys = maxKeys;
+        }
+    }
+
+    /**
+     * Opt-in sampling of successful {@link Loggable} executions. The decision is taken before the
+     * payload is built; failures and calls slower than {@code common.logger.slow-threshold} are
+     * always logged. Sampled events carry a {@code sampleRate} field for reweighting.
+     */
+    public static class Sampling {
+
+        /**
+         * How the fraction of logged successful executions is chosen.
+         */
+        public enum Mode {
+            /** Log each execution with probability {@code rate}. */
+            FIXED,
+            /** Like {@code FIXED}, with a per log point override from {@code log-point-rates}. */
+            PER_LOG_POINT,
+            /** Log at most {@code max-events-per-second} executions per method (token bucket). */
+            ADAPTIVE
+        }
+
+        /**
+         * Enables sampling of successful executions.
+         */
+        private boolean enabled = false;
+
+        private Mode mode = Mode.FIXED;
+
+        /**
+         * Probability that a successful execution is logged, for {@code FIXED} and as the default
+         * of {@code PER_LOG_POINT}.
+         */
+        private double rate = 1.0;
+
+        /**
+         * Per log point probabilities for {@code PER_LOG_POINT}, keyed by the success log point,
+         * e.g. {@code common.logger.sampling.log-point-rates[OrderService-getorder-End]=0.01}.
+         */
+        private Map<String, Double> logPointRates = new HashMap<>();
+
+        /**
+         * Upper bound of logged successful executions per second and method for {@code ADAPTIVE};
+         * bursts of up to one second's worth are allowed.
+         */
+        private int maxEventsPerSecond = 100;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode == null ? Mode.FIXED : mode;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            if (rate < 0.0 || rate > 1.0) {
+                throw new IllegalArgumentException(
+                        "common.logger.sampling.rate must be between 0.0 and 1.0, but was: " + rate);
+            }
+            this.rate = rate;
+        }
+
+        public Map<String, Double> getLogPointRates() {
+            return logPointRates;
+        }
+
+        public void setLogPointRates(Map<String, Double> logPointRates) {
+            if (logPointRates != null) {
+                logPointRates.forEach((logPoint, rate) -> {
+                    if (rate == null || rate < 0.0 || rate > 1.0) {
+                        throw new IllegalArgumentException("common.logger.sampling.log-point-rates[" + logPoint
+                                + "] must be between 0.0 and 1.0, but was: " + rate);
+                    }
+                });
+            }
+            this.logPointRates = logPointRates == null ? new HashMap<>() : logPointRates;
+        }
+
+        public int getMaxEventsPerSecond() {
+            return maxEventsPerSecond;
+        }
+
+        public void setMaxEventsPerSecond(int maxEventsPerSecond) {
+            if (maxEventsPerSecond < 1) {
+                throw new IllegalArgumentException(
+                        "common.logger.sampling.max-events-per-second must be >= 1, but was: " + maxEventsPerSecond);
+            }
+            this.maxEventsPerSecond = maxEventsPerSecond;
+        }
+    }
+
+    /**
+     * Opt-in tail-based buffering within {@link CorrelationIdFilter}: events at or below {@code level}
+     * are held per request and only written when the request fails, logs an ERROR, responds with
+     * {@code flush-status} or above, or takes longer than {@code latency-threshold}.
+     */
+    public static class RequestBuffer {
+
+        /**
+         * Enables per-request buffering.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Highest level that is buffered; buffered events are captured even if the level is
+         * disabled on the logger.
+         */
+        private LogLevel level = LogLevel.DEBUG;
+
+        /**
+         * Level at which flushed events are written; their {@code logLevel} field is unchanged.
+         */
+        private LogLevel flushLevel = LogLevel.INFO;
+
+        /**
+         * Maximum events kept per request; older events are overwritten.
+         */
+        private int capacity = 256;
+
+        /**
+         * Response status at or above which the buffer is flushed.
+         */
+        private int flushStatus = 500;
+
+        /**
+         * Requests taking at least this long are flushed; {@code 0} disables the latency trigger.
+         */
+        private Duration latencyThreshold = Duration.ZERO;
+
+        /**
+         * Number of idle buffers kept for reuse.
+         */
+        private int poolSize = 64;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public LogLevel getLevel() {
+            return level;
+        }
+
+        public void setLevel(LogLevel level) {
+            if (level == null || level.compareTo(LogLevel.WARN) > 0) {
+                throw new IllegalArgumentException(
+                        "common.logger.request-buffer.level must be one of TRACE, DEBUG, INFO, WARN, but was: " + level);
+            }
+            this.level = level;
+        }
+
+        public LogLevel getFlushLevel() {
+            return flushLevel;
+        }
+
+        public void setFlushLevel(LogLevel flushLevel) {
+            if (flushLevel == null || flushLevel == LogLevel.OFF) {
+                throw new IllegalArgumentException(
+                        "common.logger.request-buffer.flush-level must not be OFF, but was: " + flushLevel);
+            }
+            this.flushLevel = flushLevel;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException(
+                        "common.logger.request-buffer.capacity must be >= 1, but was: " + capacity);
+            }
+            this.capacity = capacity;
+        }
+
+        public int getFlushStatus() {
+            return flushStatus;
+        }
+
+        public void setFlushStatus(int flushStatus) {
+            if (flushStatus < 100 || flushStatus > 599) {
+                throw new IllegalArgumentException(
+                        "common.logger.request-buffer.flush-status must be between 100 and 599, but was: " + flushStatus);
+            }
+            this.flushStatus = flushStatus;
+        }
+
+        public Duration getLatencyThreshold() {
+            return latencyThreshold;
+        }
+
+        public void setLatencyThreshold(Duration latencyThreshold) {
+            if (latencyThreshold != null && latencyThreshold.isNegative()) {
+                throw new IllegalArgumentException(
+                        "common.logger.request-buffer.latency-threshold must not be negative, but was: " + latencyThreshold);
+            }
+            this.latencyThreshold = latencyThreshold == null ? Duration.ZERO : latencyThreshold;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            if (poolSize < 1) {
+                throw new IllegalArgumentException(
+                        "common.logger.request-buffer.pool-size must be >= 1, but was: " + poolSize);
+            }
+            this.poolSize = poolSize;
+        }
+    }
+
+    /**
+     * Opt-in Micrometer integration: every {@link Loggable} execution is recorded in a timer tagged
+     * with {@code apiId}, {@code logPoint}, {@code outcome} and {@code errorType}, whether or not it
+     * is logged. Requires Micrometer and a {@code MeterRegistry} bean.
+     */
+    public static class Metrics {
+
+        /**
+         * Enables the timers.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Name of the timer.
+         */
+        private String name = "loggable.invocation";
+
+        /**
+         * Percentiles computed client-side, e.g. {@code 0.5, 0.95, 0.99}.
+         */
+        private List<Double> percentiles = new ArrayList<>();
+
+        /**
+         * Publishes histogram buckets for server-side percentiles (e.g. Prometheus).
+         */
+        private boolean percentileHistogram = false;
+
+        /**
+         * Maximum number of methods with their own timers; further methods share the timers tagged
+         * {@code logPoint=OTHER}.
+         */
+        private int maxLogPoints = 500;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            if (name == null || name.isBlank()) {
+                throw new IllegalArgumentException("common.logger.metrics.name must not be blank");
+            }
+            this.name = name;
+        }
+
+        public List<Double> getPercentiles() {
+            return percentiles;
+        }
+
+        public void setPercentiles(List<Double> percentiles) {
+            if (percentiles != null) {
+                for (Double percentile : percentiles) {
+                    if (percentile == null || percentile < 0.0 || percentile > 1.0) {
+                        throw new IllegalArgumentException(
+                                "common.logger.metrics.percentiles must be between 0.0 and 1.0, but was: " + percentile);
+                    }
+                }
+            }
+            this.percentiles = percentiles == null ? new ArrayList<>() : percentiles;
+        }
+
+        public boolean isPercentileHistogram() {
+            return percentileHistogram;
+        }
+
+        public void setPercentileHistogram(boolean percentileHistogram) {
+            this.percentileHistogram = percentileHistogram;
+        }
+
+        public int getMaxLogPoints() {
+            return maxLogPoints;
+        }
+
+        public void setMaxLogPoints(int maxLogPoints) {
+            if (maxLogPoints < 1) {
+                throw new IllegalArgumentException(
+                        "common.logger.metrics.max-log-points must be >= 1, but was: " + maxLogPoints);
+            }
+            this.maxLogPoints = maxLogPoints;
+        }
+    }
+
+    /**
+     * Propagation of the correlation and transaction ids, plus {@code mdc-keys}, to threads that run
+     * tasks submitted by a request thread (see {@link ContextPropagation}).
+     */
+    public static class Propagation {
+
+        /**
+         * Registers a {@code TaskDecorator} bean, picked up by Spring Boot's {@code @Async} executor,
+         * unless the application defines its own.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Further MDC keys to propagate besides the correlation and transaction id keys.
+         */
+        private List<String> mdcKeys = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getMdcKeys() {
+            return mdcKeys;
+        }
+
+        public void setMdcKeys(List<String> mdcKeys) {
+            this.mdcKeys = mdcKeys == null ? new ArrayList<>() : mdcKeys;
+        }
+    }
+
+    /**
+     * Bounds for captured arguments and results, enforced while they are serialized: deeper
+     * containers, surplus elements and text beyond the budget are never written. Each captured
+     * value ({@code arguments} as a whole, {@code result}) has its own budget.
+     */
+    public static class Capture {
+
+        /**
+         * Approximate maximum number of JSON characters written per captured value; the string being
+         * written when the limit is reached is cut and serialization stops.
+         */
+        private int maxBytes = 4096;
+
+        /**
+         * Maximum number of elements written per array or collection, and of fields per object or map.
+         */
+        private int maxElements = 50;
+
+        /**
+         * Maximum nesting depth of objects and arrays; deeper containers are written as {@code "..."}.
+         */
+        private int maxDepth = 5;
+
+        public int getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(int maxBytes) {
+            if (maxBytes < 16) {
+                throw new IllegalArgumentException(
+                        "common.logger.capture.max-bytes must be >= 16, but was: " + maxBytes);
+            }
+            this.maxBytes = maxBytes;
+        }
+
+        public int getMaxElements() {
+            return maxElements;
+        }
+
+        public void setMaxElements(int maxElements) {
+            if (maxElements < 1) {
+                throw new IllegalArgumentException(
+                        "common.logger.capture.max-elements must be >= 1, but was: " + maxElements);
+            }
+            this.maxElements = maxElements;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public void setMaxDepth(int maxDepth) {
+            if (maxDepth < 1) {
+                throw new IllegalArgumentException(
+                        "common.logger.capture.max-depth must be >= 1, but was: " + maxDepth);
+            }
+            this.maxDepth = maxDepth;
+        }
+    }
+
+    /**
+     * Defaults for batches started with {@link StructuredLogger#batch()}.
+     */
+    public static class Batch {
+
+        /**
+         * {@code events} or {@code summary}.
+         */
+        private BatchMode mode = BatchMode.EVENTS;
+
+        /**
+         * Number of collected events after which an {@code events} batch flushes on its own.
+         */
+        private int maxEvents = 1000;
+
+        public BatchMode getMode() {
+            return mode;
+        }
+
+        public void setMode(BatchMode mode) {
+            this.mode = mode == null ? BatchMode.EVENTS : mode;
+        }
+
+        public int getMaxEvents() {
+            return maxEvents;
+        }
+
+        public void setMaxEvents(int maxEvents) {
+            if (maxEvents < 1) {
+                throw new IllegalArgumentException(
+                        "common.logger.batch.max-events must be >= 1, but was: " + maxEvents);
+            }
+            this.maxEvents = maxEvents;
+        }
+    }
 }
@@ -0,0 +1,228 @@
+package com.yahya.commonlogger;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Carries the correlation id, the transaction id and {@code common.logger.propagation.mdc-keys} from
+ * the submitting thread to the thread running a task, so that {@link LoggingAspect} and
+ * {@link StructuredLogger} still find them after a hop to an {@code @Async} executor,
+ * {@code CompletableFuture.supplyAsync} or a virtual thread.
+ * <p>
+ * Only those keys are captured, into a small array, instead of copying the whole MDC map per task.
+ * When none of them is set on the submitting thread the task is returned unwrapped, so fan-out from
+ * threads without a correlation id costs nothing. While the task runs the captured values are put
+ * into the worker's MDC, and the worker's previous values are restored afterwards; this also holds
+ * for virtual threads, which carry their own MDC. The binding is confined to {@link Snapshot#open()},
+ * so a {@code ScopedValue} carrier can replace it once the library targets a Java release where
+ * {@code ScopedValue} is final.
+ * <p>
+ * The keys are read once at construction. Thread-safe.
+ */
+public class ContextPropagation {
+
+    private final String[] keys;
+
+    public ContextPropagation(CommonLoggerProperties properties) {
+        Set<String> distinct = new LinkedHashSet<>();
+        distinct.add(properties.getCorrelationIdMdcKey());
+        distinct.add(properties.getTransactionIdMdcKey());
+        List<String> extraKeys = properties.getPropagation().getMdcKeys();
+        for (String key : extraKeys) {
+            if (key != null && !key.isBlank()) {
+                distinct.add(key);
+            }
+        }
+        this.keys = distinct.toArray(new String[0]);
+    }
+
+    /**
+     * Captures the propagated keys of the calling thread's MDC, or returns {@code null} when none of
+     * them is set.
+     */
+    public Snapshot capture() {
+        String[] values = null;
+        for (int i = 0; i < keys.length; i++) {
+            String value = MDC.get(keys[i]);
+            if (value != null) {
+                if (values == null) {
+                    values = new String[keys.length];
+                }
+                values[i] = value;
+            }
+        }
+        return values == null ? null : new Snapshot(keys, values);
+    }
+
+    public Runnable wrap(Runnable task) {
+        Snapshot snapshot = capture();
+        if (snapshot == null) {
+            return task;
+        }
+        return () -> {
+            try (Snapshot.Scope ignored = snapshot.open()) {
+                task.run();
+            }
+        };
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        Snapshot snapshot = capture();
+        if (snapshot == null) {
+            return task;
+        }
+        return () -> {
+            try (Snapshot.Scope ignored = snapshot.open()) {
+                return task.call();
+            }
+        };
+    }
+
+    /**
+     * For {@code CompletableFuture.supplyAsync(propagation.wrapSupplier(supplier), executor)}; named
+     * apart from {@link #wrap(Callable)} so that lambdas are not ambiguous.
+     */
+    public <T> Supplier<T> wrapSupplier(Supplier<T> task) {
+        Snapshot snapshot = capture();
+        if (snapshot == null) {
+            return task;
+        }
+        return () -> {
+            try (Snapshot.Scope ignored = snapshot.open()) {
+                return task.get();
+            }
+        };
+    }
+
+    /**
+     * Returns an executor that captures the submitting thread's keys for every task.
+     */
+    public Executor wrap(Executor executor) {
+        return task -> executor.execute(wrap(task));
+    }
+
+    /**
+     * Returns an executor service that captures the submitting thread's keys for every task, e.g.
+     * around {@code Executors.newVirtualThreadPerTaskExecutor()}. Lifecycle calls go to
+     * {@code executor}.
+     */
+    public ExecutorService wrap(ExecutorService executor) {
+        return new PropagatingExecutorService(executor, this);
+    }
+
+    /**
+     * A {@link TaskDecorator} for Spring's {@code ThreadPoolTaskExecutor}, used by {@code @Async}.
+     */
+    public TaskDecorator taskDecorator() {
+        return this::wrap;
+    }
+
+    /**
+     * Values of the propagated keys captured on one thread. Immutable; can be opened any number of
+     * times, on any thread.
+     */
+    public static final class Snapshot {
+        private final String[] keys;
+        private final String[] values;
+
+        private Snapshot(String[] keys, String[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        /**
+         * Puts the captured values into the calling thread's MDC until the returned scope is closed,
+         * which restores the previous values.
+         */
+        public Scope open() {
+            String[] previous = new String[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                previous[i] = MDC.get(keys[i]);
+                put(keys[i], values[i]);
+            }
+            return new Scope(keys, previous);
+        }
+
+        /**
+         * Restores the MDC values that were replaced by {@link Snapshot#open()}.
+         */
+        public static final class Scope implements AutoCloseable {
+            private final String[] keys;
+            private final String[] previous;
+
+            private Scope(String[] keys, String[] previous) {
+                this.keys = keys;
+                this.previous = previous;
+            }
+
+            @Override
+            public void close() {
+                for (int i = keys.length - 1; i >= 0; i--) {
+                    put(keys[i], previous[i]);
+                }
+            }
+        }
+
+        private static void put(String key, String value) {
+            if (value == null) {
+                MDC.remove(key);
+            } else {
+                MDC.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * Tasks submitted through {@link AbstractExecutorService} all pass through {@link #execute(Runnable)},
+     * where they are wrapped once.
+     */
+    private static final class PropagatingExecutorService extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final ContextPropagation propagation;
+
+        private PropagatingExecutorService(ExecutorService delegate, ContextPropagation propagation) {
+            this.delegate = delegate;
+            this.propagation = propagation;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(propagation.wrap(command));
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -10,17 +10,31 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.UUID;
 
 /**
  * Ensures every request has a correlation identifier and exposes it via MDC and response headers.
+ * Missing identifiers are created by the configured {@link CorrelationIdGenerator}.
+ * <p>
+ * With {@code common.logger.request-buffer.enabled=true}, the filter also binds a pooled
+ * {@link RequestLogBuffer} to the request thread and decides at the end of the request whether its
+ * events are written or discarded.
  */
 public class CorrelationIdFilter extends OncePerRequestFilter {
 
     private final CommonLoggerProperties properties;
+    private final CorrelationIdGenerator generator;
+    private final RequestLogBuffer.Pool bufferPool;
 
     public CorrelationIdFilter(CommonLoggerProperties properties) {
+        this(properties, properties.getCorrelationIdGenerator().create());
+    }
+
+    public CorrelationIdFilter(CommonLoggerProperties properties, CorrelationIdGenerator generator) {
         this.properties = properties;
+        this.generator = generator;
+        this.bufferPool = properties.getRequestBuffer().isEnabled()
+                ? new RequestLogBuffer.Pool(properties.getRequestBuffer())
+                : null;
     }
 
     @Override
@@ -30,16 +44,46 @@ public class CorrelationIdFilter extends OncePerRequestFilter {
         String headerName = properties.getCorrelationIdHeader();
         String correlationId = request.getHeader(headerName);
         if (!StringUtils.hasText(correlationId)) {
-            correlationId = UUID.randomUUID().toString();
+            correlationId = generator.generate();
         }
 
         String mdcKey = properties.getCorrelationIdMdcKey();
         MDC.put(mdcKey, correlationId);
+        RequestLogBuffer buffer = null;
+        if (bufferPool != null) {
+            buffer = bufferPool.acquire();
+            buffer.bind();
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
         try {
             response.setHeader(headerName, correlationId);
             filterChain.doFilter(request, response);
+            failed = false;
         } finally {
+            if (buffer != null) {
+                completeBuffer(buffer, failed, response, System.nanoTime() - start);
+            }
             MDC.remove(mdcKey);
         }
     }
+
+    /**
+     * Flushes the request's buffered events if the request failed, logged an ERROR, responded with
+     * {@code flush-status} or above, or was slow; otherwise they are discarded unrendered.
+     */
+    private void completeBuffer(RequestLogBuffer buffer, boolean failed, HttpServletResponse response,
+                                long elapsedNanos) {
+        buffer.unbind();
+        try {
+            CommonLoggerProperties.RequestBuffer settings = properties.getRequestBuffer();
+            long latencyThreshold = settings.getLatencyThreshold().toNanos();
+            if (failed || buffer.isErrorSeen() || response.getStatus() >= settings.getFlushStatus()
+                    || latencyThreshold > 0 && elapsedNanos >= latencyThreshold) {
+                buffer.flush();
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
 }
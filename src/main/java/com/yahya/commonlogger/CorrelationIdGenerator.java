@@ -0,0 +1,65 @@
+package com.yahya.commonlogger;
+
+/**
+ * Creates correlation identifiers for requests that arrive without one.
+ * <p>
+ * {@link CorrelationIdFilter} calls {@link #generate()} once per request, so implementations must be
+ * thread-safe and cheap. Register a bean of this type to replace the built-in generator, or pick one
+ * of the built-in {@link Kind}s via {@code common.logger.correlation-id-generator}.
+ * <p>
+ * Example:
+ * <pre>
+ * {@code
+ * @Bean
+ * public CorrelationIdGenerator correlationIdGenerator() {
+ *     return () -> "svc-" + CorrelationIdGenerator.Kind.RANDOM_HEX.create().generate();
+ * }
+ * }
+ * </pre>
+ */
+@FunctionalInterface
+public interface CorrelationIdGenerator {
+
+    /**
+     * @return a new, non-blank correlation identifier
+     */
+    String generate();
+
+    /**
+     * Built-in generators.
+     */
+    enum Kind {
+        /**
+         * Random (version 4) UUID from {@link java.util.UUID#randomUUID()}, 36 characters. Uses the
+         * shared {@code SecureRandom}; kept as the default for compatibility.
+         */
+        UUID,
+        /**
+         * 128 random bits from {@link java.util.concurrent.ThreadLocalRandom} as 32 lower-case hex
+         * characters. No shared state, so it does not contend under load.
+         */
+        RANDOM_HEX,
+        /**
+         * Time-ordered (version 7) UUID: 48-bit Unix millisecond timestamp followed by thread-local
+         * random bits. Sorts by creation time at millisecond granularity.
+         */
+        UUID_V7,
+        /**
+         * ULID: 48-bit Unix millisecond timestamp and 80 random bits as 26 Crockford base32
+         * characters. Lexicographically sortable by creation time.
+         */
+        ULID;
+
+        /**
+         * @return a shared, thread-safe generator of this kind
+         */
+        public CorrelationIdGenerator create() {
+            return switch (this) {
+                case UUID -> CorrelationIdGenerators.UUID;
+                case RANDOM_HEX -> CorrelationIdGenerators.RANDOM_HEX;
+                case UUID_V7 -> CorrelationIdGenerators.UUID_V7;
+                case ULID -> CorrelationIdGenerators.ULID;
+            };
+        }
+    }
+}
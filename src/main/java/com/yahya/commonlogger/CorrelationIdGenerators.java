@@ -0,0 +1,83 @@
+package com.yahya.commonlogger;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Implementations behind {@link CorrelationIdGenerator.Kind}.
+ * <p>
+ * The non-UUID generators draw from {@link ThreadLocalRandom} and encode into a stack-sized
+ * {@code char[]}, so each call allocates only the resulting {@link String}. The identifiers are
+ * unique for tracing purposes but are not suitable as secrets.
+ */
+final class CorrelationIdGenerators {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    static final CorrelationIdGenerator UUID = () -> java.util.UUID.randomUUID().toString();
+
+    static final CorrelationIdGenerator RANDOM_HEX = () -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] chars = new char[32];
+        hex(random.nextLong(), chars, 0, 16);
+        hex(random.nextLong(), chars, 16, 16);
+        return new String(chars);
+    };
+
+    static final CorrelationIdGenerator UUID_V7 = () -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long millis = System.currentTimeMillis();
+        long msb = (millis << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return uuidString(msb, lsb);
+    };
+
+    static final CorrelationIdGenerator ULID = () -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long millis = System.currentTimeMillis() & 0xFFFFFFFFFFFFL;
+        long randomHigh = random.nextLong() & 0xFFFFFL;     // 20 bits
+        long randomLow = random.nextLong() & 0xFFFFFFFFFFFFFFFL; // 60 bits
+        char[] chars = new char[26];
+        // 48-bit timestamp as 10 base32 digits (the top digit carries 3 bits)
+        for (int i = 9; i >= 0; i--) {
+            chars[i] = CROCKFORD[(int) (millis & 0x1F)];
+            millis >>>= 5;
+        }
+        // 80 random bits as 16 base32 digits: 4 from the high part, 12 from the low part
+        for (int i = 25; i >= 14; i--) {
+            chars[i] = CROCKFORD[(int) (randomLow & 0x1F)];
+            randomLow >>>= 5;
+        }
+        for (int i = 13; i >= 10; i--) {
+            chars[i] = CROCKFORD[(int) (randomHigh & 0x1F)];
+            randomHigh >>>= 5;
+        }
+        return new String(chars);
+    };
+
+    private CorrelationIdGenerators() {}
+
+    private static String uuidString(long msb, long lsb) {
+        char[] chars = new char[36];
+        hex(msb >>> 32, chars, 0, 8);
+        chars[8] = '-';
+        hex(msb >>> 16, chars, 9, 4);
+        chars[13] = '-';
+        hex(msb, chars, 14, 4);
+        chars[18] = '-';
+        hex(lsb >>> 48, chars, 19, 4);
+        chars[23] = '-';
+        hex(lsb, chars, 24, 12);
+        return new String(chars);
+    }
+
+    /**
+     * Writes the lowest {@code digits} nibbles of {@code value} as hex into {@code chars}.
+     */
+    private static void hex(long value, char[] chars, int offset, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
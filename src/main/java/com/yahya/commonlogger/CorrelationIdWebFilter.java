@@ -0,0 +1,75 @@
+package com.yahya.commonlogger;
+
+import org.slf4j.MDC;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Reactive counterpart of {@link CorrelationIdFilter}: ensures every request has a correlation
+ * identifier and exposes it via the response header and the Reactor {@link Context}.
+ * Missing identifiers are created by the configured {@link CorrelationIdGenerator}.
+ * <p>
+ * The identifier is stored in the subscriber context under {@code common.logger.correlation-id-mdc-key}
+ * instead of the MDC, because a request hops between event-loop threads. {@link LoggingAspect} reads it
+ * from there for {@code Mono} / {@code Flux} results and puts it into the MDC only while the event is
+ * logged; for manual logging, wrap the call in {@link #withMdc(ContextView, Runnable)}. Nothing is
+ * copied into the MDC per operator, so no thread-local state leaks between requests.
+ * <p>
+ * Per-request buffering ({@code common.logger.request-buffer.*}) is bound to the request thread and
+ * therefore not applied here.
+ */
+public class CorrelationIdWebFilter implements WebFilter {
+
+    private final CommonLoggerProperties properties;
+    private final CorrelationIdGenerator generator;
+
+    public CorrelationIdWebFilter(CommonLoggerProperties properties) {
+        this(properties, properties.getCorrelationIdGenerator().create());
+    }
+
+    public CorrelationIdWebFilter(CommonLoggerProperties properties, CorrelationIdGenerator generator) {
+        this.properties = properties;
+        this.generator = generator;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String headerName = properties.getCorrelationIdHeader();
+        String correlationId = exchange.getRequest().getHeaders().getFirst(headerName);
+        if (!StringUtils.hasText(correlationId)) {
+            correlationId = generator.generate();
+        }
+        exchange.getResponse().getHeaders().set(headerName, correlationId);
+        return chain.filter(exchange).contextWrite(Context.of(properties.getCorrelationIdMdcKey(), correlationId));
+    }
+
+    /**
+     * Runs {@code action} with the correlation id found in {@code context} put into the MDC, and
+     * restores the previous MDC value afterwards. Use it around log statements in reactive code, e.g.
+     * {@code Mono.deferContextual(ctx -> ...)} or {@code doOnEach(signal -> filter.withMdc(signal.getContextView(), ...))}.
+     */
+    public void withMdc(ContextView context, Runnable action) {
+        String mdcKey = properties.getCorrelationIdMdcKey();
+        Object correlationId = context.getOrDefault(mdcKey, null);
+        if (correlationId == null) {
+            action.run();
+            return;
+        }
+        String previous = MDC.get(mdcKey);
+        MDC.put(mdcKey, correlationId.toString());
+        try {
+            action.run();
+        } finally {
+            if (previous == null) {
+                MDC.remove(mdcKey);
+            } else {
+                MDC.put(mdcKey, previous);
+            }
+        }
+    }
+}
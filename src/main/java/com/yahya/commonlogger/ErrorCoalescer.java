@@ -0,0 +1,238 @@
+package com.yahya.commonlogger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps error storms out of the log pipeline: when a dependency goes down, every failing call
+ * would otherwise log a full ERROR payload with stack trace.
+ * <p>
+ * Failures are keyed by log point, exception class and stack trace fingerprint (see
+ * {@link StackTraceRenderer}). Within a window, the first {@code full-occurrences} failures of a key
+ * are logged in full; later ones are only counted. When the window closes, every key with
+ * suppressed failures produces one {@link Summary}: number of occurrences, min / max / average
+ * {@code processTime} and a few sample {@code transactionId}s. A key starts over with full logging
+ * in the next window.
+ * <p>
+ * The hot path is contention-free once a key is suppressing: statistics are kept in striped
+ * {@link LongAdder}s and {@link LongAccumulator}s, and the full-occurrence and sample counters are
+ * only written while they are below their limit. Counts of a window may miss failures that race
+ * with its closing.
+ * <p>
+ * Registered by {@link CommonLoggerAutoConfiguration} when
+ * {@code common.logger.error-coalescing.enabled=true}; the Spring context calls {@link #close()} on
+ * shutdown, which stops the timer and emits the summaries of the current window.
+ */
+public class ErrorCoalescer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ErrorCoalescer.class);
+
+    /**
+     * Receives window summaries. Runs on the coalescer's timer thread.
+     */
+    @FunctionalInterface
+    interface SummarySink {
+        void emit(Summary summary);
+    }
+
+    /**
+     * Failures of one key during one window.
+     *
+     * @param error                message of the first failure in the window
+     * @param occurrences          all failures, including those logged in full
+     * @param suppressed           failures that were not logged individually
+     * @param sampleTransactionIds {@code transactionId}s of some suppressed failures
+     */
+    record Summary(String apiId,
+                   String logMessage,
+                   String logPoint,
+                   String exceptionClass,
+                   String fingerprint,
+                   String error,
+                   long occurrences,
+                   long suppressed,
+                   long minProcessTime,
+                   long maxProcessTime,
+                   long avgProcessTime,
+                   List<String> sampleTransactionIds,
+                   Instant windowStart,
+                   Instant windowEnd) {
+    }
+
+    private final CommonLoggerProperties.ErrorCoalescing settings;
+    private final ConcurrentHashMap<Key, Bucket> buckets = new ConcurrentHashMap<>();
+    private final LongAdder suppressedTotal = new LongAdder();
+    private final ScheduledExecutorService timer;
+
+    private volatile boolean closed;
+
+    public ErrorCoalescer(CommonLoggerProperties.ErrorCoalescing settings) {
+        this.settings = settings;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "common-logger-error-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long window = settings.getWindow().toMillis();
+        this.timer.scheduleAtFixedRate(this::flush, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Total number of failures that were coalesced instead of logged individually.
+     */
+    public long getSuppressedCount() {
+        return suppressedTotal.sum();
+    }
+
+    /**
+     * Number of keys seen in the current window.
+     */
+    public int getTrackedKeyCount() {
+        return buckets.size();
+    }
+
+    /**
+     * Records a failure and decides whether it is logged in full.
+     *
+     * @param metadata      metadata of the failing method
+     * @param failure       the failure
+     * @param fingerprint   stack trace fingerprint of {@code failure}
+     * @param processTime   duration of the failing call
+     * @param transactionId transaction id of the failing call, may be {@code null}
+     * @param sink          receives the summary of the key's window
+     * @return {@code true} to log the failure in full, {@code false} when it was coalesced
+     */
+    boolean admit(JoinPointMetadata metadata, Throwable failure, long fingerprint, long processTime,
+                  String transactionId, SummarySink sink) {
+        if (closed) {
+            return true;
+        }
+        Key key = new Key(metadata.logPoint(false), failure.getClass().getName(), fingerprint);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= settings.getMaxKeys()) {
+                return true;
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(metadata, failure.getMessage(), sink,
+                    settings.getSampleSize()));
+        }
+        if (bucket.record(processTime, transactionId, settings.getFullOccurrences())) {
+            return true;
+        }
+        suppressedTotal.increment();
+        return false;
+    }
+
+    /**
+     * Closes the current window: emits a summary for every key with suppressed failures and
+     * resets all keys.
+     */
+    void flush() {
+        Instant windowEnd = Instant.now();
+        for (Map.Entry<Key, Bucket> entry : buckets.entrySet()) {
+            Key key = entry.getKey();
+            Bucket bucket = entry.getValue();
+            if (!buckets.remove(key, bucket) || bucket.suppressed.sum() == 0) {
+                continue;
+            }
+            try {
+                bucket.sink.emit(bucket.summarize(key, windowEnd));
+            } catch (RuntimeException ex) {
+                log.warn("Failed to emit error summary for [{}]: {}", key.logPoint(), ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops the timer and emits the summaries of the current window. Failures recorded afterwards
+     * are logged in full.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        timer.shutdownNow();
+        flush();
+    }
+
+    private record Key(String logPoint, String exceptionClass, long fingerprint) {
+    }
+
+    /**
+     * Statistics of one key in the current window.
+     */
+    private static final class Bucket {
+
+        private final JoinPointMetadata metadata;
+        private final String error;
+        private final SummarySink sink;
+        private final Instant windowStart = Instant.now();
+        private final AtomicInteger fullEmitted = new AtomicInteger();
+        private final LongAdder occurrences = new LongAdder();
+        private final LongAdder suppressed = new LongAdder();
+        private final LongAdder totalProcessTime = new LongAdder();
+        private final LongAccumulator minProcessTime = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxProcessTime = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        private final AtomicReferenceArray<String> samples;
+        private final AtomicInteger sampled = new AtomicInteger();
+
+        private Bucket(JoinPointMetadata metadata, String error, SummarySink sink, int sampleSize) {
+            this.metadata = metadata;
+            this.error = error;
+            this.sink = sink;
+            this.samples = new AtomicReferenceArray<>(sampleSize);
+        }
+
+        /**
+         * Returns {@code true} while the key is still within its full occurrences.
+         */
+        private boolean record(long processTime, String transactionId, int fullOccurrences) {
+            occurrences.increment();
+            totalProcessTime.add(processTime);
+            minProcessTime.accumulate(processTime);
+            maxProcessTime.accumulate(processTime);
+            // Read before increment so that the counter stops being written once the limit is reached.
+            if (fullEmitted.get() < fullOccurrences && fullEmitted.getAndIncrement() < fullOccurrences) {
+                return true;
+            }
+            suppressed.increment();
+            if (transactionId != null && sampled.get() < samples.length()) {
+                int index = sampled.getAndIncrement();
+                if (index < samples.length()) {
+                    samples.set(index, transactionId);
+                }
+            }
+            return false;
+        }
+
+        private Summary summarize(Key key, Instant windowEnd) {
+            long count = occurrences.sum();
+            List<String> sampleIds = new ArrayList<>(samples.length());
+            for (int i = 0; i < samples.length(); i++) {
+                String id = samples.get(i);
+                if (id != null) {
+                    sampleIds.add(id);
+                }
+            }
+            return new Summary(metadata.apiId(), metadata.logMessage(false), key.logPoint(), key.exceptionClass(),
+                    StackTraceRenderer.toHex(key.fingerprint()), error, count, suppressed.sum(),
+                    minProcessTime.get(), maxProcessTime.get(), count == 0 ? 0 : totalProcessTime.sum() / count,
+                    sampleIds, windowStart, windowEnd);
+        }
+    }
+}
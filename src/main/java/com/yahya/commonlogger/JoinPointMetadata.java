@@ -0,0 +1,223 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Locale;
+
+/**
+ * Per-method strings used by {@link LoggingAspect}, computed once and reused for every invocation.
+ * <p>
+ * Holds the resolved {@code apiId} and the success / failure variants of {@code logMessage} and
+ * {@code logPoint}, both as interned {@link String}s for the map model and as pre-escaped
+ * {@link SerializedString}s for the streaming encoder. Also records which parameters carry
+ * {@link MaskField}, so captured arguments can be masked without inspecting annotations per call,
+ * resolves the {@link Loggable} attributes of the method (or its class), and carries the method's
+ * {@link SuccessSampler.Budget} for adaptive sampling.
+ */
+final class JoinPointMetadata {
+
+    private final String configuredApiId;
+    private final String apiId;
+    private final String successMessage;
+    private final String failureMessage;
+    private final String successPoint;
+    private final String failurePoint;
+    private final SerializedString apiIdJson;
+    private final SerializedString successMessageJson;
+    private final SerializedString failureMessageJson;
+    private final SerializedString successPointJson;
+    private final SerializedString failurePointJson;
+    private final String[] parameterMasks;
+    private final long slowThresholdMs;
+    private final boolean logSuccess;
+    private final boolean logArguments;
+    private final boolean logResult;
+    private final SuccessSampler.Budget successBudget = new SuccessSampler.Budget();
+
+    private JoinPointMetadata(String configuredApiId, String apiId, String methodKey, String[] parameterMasks,
+                              Loggable loggable) {
+        this.configuredApiId = configuredApiId;
+        this.parameterMasks = parameterMasks;
+        this.slowThresholdMs = loggable == null ? -1 : loggable.slowThresholdMs();
+        this.logSuccess = loggable == null || loggable.logSuccess();
+        this.logArguments = loggable != null && loggable.logArguments();
+        this.logResult = loggable != null && loggable.logResult();
+        this.apiId = apiId.intern();
+        String prefix = apiId + "-" + methodKey;
+        this.successMessage = (prefix + " Completed").intern();
+        this.failureMessage = (prefix + " Failed").intern();
+        this.successPoint = (prefix + "-End").intern();
+        this.failurePoint = (prefix + "-Error").intern();
+        this.apiIdJson = new SerializedString(this.apiId);
+        this.successMessageJson = new SerializedString(successMessage);
+        this.failureMessageJson = new SerializedString(failureMessage);
+        this.successPointJson = new SerializedString(successPoint);
+        this.failurePointJson = new SerializedString(failurePoint);
+    }
+
+    /**
+     * Resolves the metadata for the given signature, reading {@link Loggable} from the method's
+     * declaring class.
+     */
+    static JoinPointMetadata resolve(Signature signature, String configuredApiId) {
+        return resolve(signature, null, configuredApiId);
+    }
+
+    /**
+     * Resolves the metadata for the given signature.
+     *
+     * @param signature       join point signature
+     * @param targetClass     class of the invoked object, or {@code null} to use the method's declaring class
+     * @param configuredApiId {@code common.logger.api-id}; the declaring class' simple name is used when blank
+     */
+    static JoinPointMetadata resolve(Signature signature, Class<?> targetClass, String configuredApiId) {
+        String apiId = StringUtils.hasText(configuredApiId) ? configuredApiId : simpleTypeName(signature);
+        String methodKey = signature.getName().toLowerCase(Locale.ROOT);
+        return new JoinPointMetadata(configuredApiId, apiId, methodKey, parameterMasks(signature),
+                loggable(signature, targetClass));
+    }
+
+    /**
+     * Whether this entry was built for the given {@code common.logger.api-id} value.
+     */
+    boolean isFor(String configuredApiId) {
+        return this.configuredApiId == configuredApiId || this.configuredApiId.equals(configuredApiId);
+    }
+
+    String apiId() {
+        return apiId;
+    }
+
+    String logMessage(boolean success) {
+        return success ? successMessage : failureMessage;
+    }
+
+    String logPoint(boolean success) {
+        return success ? successPoint : failurePoint;
+    }
+
+    SerializableString apiIdJson() {
+        return apiIdJson;
+    }
+
+    SerializableString logMessageJson(boolean success) {
+        return success ? successMessageJson : failureMessageJson;
+    }
+
+    SerializableString logPointJson(boolean success) {
+        return success ? successPointJson : failurePointJson;
+    }
+
+    /**
+     * {@link Loggable#slowThresholdMs()}, or {@code -1} when the global threshold applies.
+     */
+    long slowThresholdMs() {
+        return slowThresholdMs;
+    }
+
+    /**
+     * {@link Loggable#logSuccess()}.
+     */
+    boolean logSuccess() {
+        return logSuccess;
+    }
+
+    /**
+     * {@link Loggable#logArguments()}.
+     */
+    boolean logArguments() {
+        return logArguments;
+    }
+
+    /**
+     * {@link Loggable#logResult()}.
+     */
+    boolean logResult() {
+        return logResult;
+    }
+
+    SuccessSampler.Budget successBudget() {
+        return successBudget;
+    }
+
+    /**
+     * Whether any parameter of the method is annotated with {@link MaskField}.
+     */
+    boolean hasMaskedParameters() {
+        return parameterMasks != null;
+    }
+
+    /**
+     * Returns the arguments with every non-null {@link MaskField} parameter replaced by its mask;
+     * {@code null} arguments stay {@code null}. The given array is returned unchanged when no
+     * parameter is masked.
+     */
+    Object[] maskArguments(Object[] args) {
+        if (parameterMasks == null || args == null) {
+            return args;
+        }
+        Object[] masked = args.clone();
+        for (int i = 0; i < masked.length && i < parameterMasks.length; i++) {
+            if (parameterMasks[i] != null && masked[i] != null) {
+                masked[i] = parameterMasks[i];
+            }
+        }
+        return masked;
+    }
+
+    /**
+     * Per-parameter {@link MaskField#mask()} values, or {@code null} when no parameter is masked.
+     */
+    private static String[] parameterMasks(Signature signature) {
+        if (!(signature instanceof MethodSignature methodSignature) || methodSignature.getMethod() == null) {
+            return null;
+        }
+        Method method = methodSignature.getMethod();
+        Annotation[][] annotations = method.getParameterAnnotations();
+        String[] masks = null;
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof MaskField maskField) {
+                    if (masks == null) {
+                        masks = new String[annotations.length];
+                    }
+                    masks[i] = maskField.mask();
+                }
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * The {@link Loggable} of the most specific method on the target class (including the methods it
+     * overrides or implements), else of the target class or its supertypes, or {@code null} when the
+     * signature does not expose the method.
+     */
+    private static Loggable loggable(Signature signature, Class<?> targetClass) {
+        if (!(signature instanceof MethodSignature methodSignature) || methodSignature.getMethod() == null) {
+            return null;
+        }
+        Method method = methodSignature.getMethod();
+        Class<?> type = targetClass != null ? targetClass : method.getDeclaringClass();
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, type);
+        Loggable loggable = AnnotatedElementUtils.findMergedAnnotation(specificMethod, Loggable.class);
+        return loggable != null ? loggable : AnnotatedElementUtils.findMergedAnnotation(type, Loggable.class);
+    }
+
+    private static String simpleTypeName(Signature signature) {
+        String declaringType = signature.getDeclaringTypeName();
+        if (!StringUtils.hasText(declaringType)) {
+            return "unknown";
+        }
+        int lastDot = declaringType.lastIndexOf('.');
+        return lastDot >= 0 ? declaringType.substring(lastDot + 1) : declaringType;
+    }
+}
@@ -0,0 +1,260 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Streams structured log payloads through a per-thread, reused {@link JsonGenerator}.
+ * <p>
+ * Each thread keeps one generator bound to a growable character buffer, so writing a payload
+ * does not allocate a map, a {@link java.io.StringWriter} or a new generator. The only allocation
+ * on the happy path is the resulting {@link String}.
+ * <p>
+ * Usage follows an acquire / finish / release cycle:
+ * <pre>
+ * {@code
+ * JsonPayloadEncoder.Buffer buffer = encoder.acquire();
+ * try {
+ *     JsonGenerator gen = buffer.generator();
+ *     gen.writeStartObject();
+ *     ...
+ *     gen.writeEndObject();
+ *     return buffer.finish();
+ * } finally {
+ *     encoder.release(buffer);
+ * }
+ * }
+ * </pre>
+ * Re-entrant use on the same thread (e.g. a serializer that itself triggers logging) falls back
+ * to a throwaway buffer instead of corrupting the one in use.
+ */
+final class JsonPayloadEncoder {
+
+    /**
+     * Buffers larger than this are dropped after use so a single huge payload does not pin memory
+     * for the lifetime of the thread.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final ThreadLocal<Buffer> buffers;
+
+    JsonPayloadEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.buffers = ThreadLocal.withInitial(() -> new Buffer(objectMapper, true));
+    }
+
+    ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Serializes {@code value} with the configured {@link ObjectMapper} through the calling
+     * thread's buffer, enforcing {@code plan} while writing when it is non-null.
+     *
+     * @param plan sensitive fields to mask during serialization, or {@code null}
+     * @param mask replacement written for masked values
+     */
+    String encode(Object value, SensitiveFieldPlan plan, String mask) throws IOException {
+        Buffer buffer = acquire();
+        try {
+            objectMapper.writeValue(buffer.generator(plan, mask), value);
+            return buffer.finish();
+        } catch (IOException | RuntimeException ex) {
+            buffer.discard();
+            throw ex;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * Serializes each of {@code values} like {@link #encode}, separated by {@code '\n'}, into one
+     * string through the calling thread's buffer.
+     */
+    String encodeLines(List<?> values, SensitiveFieldPlan plan, String mask) throws IOException {
+        Buffer buffer = acquire();
+        try {
+            JsonGenerator gen = buffer.generator(plan, mask);
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    gen.writeRaw('\n');
+                }
+                objectMapper.writeValue(gen, values.get(i));
+            }
+            return buffer.finish();
+        } catch (IOException | RuntimeException ex) {
+            buffer.discard();
+            throw ex;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * Returns the calling thread's buffer, or a fresh throwaway buffer if it is already in use.
+     */
+    Buffer acquire() throws IOException {
+        Buffer buffer = buffers.get();
+        if (buffer.inUse) {
+            buffer = new Buffer(objectMapper, false);
+        }
+        buffer.open();
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to the calling thread. Must be called in a {@code finally} block.
+     */
+    void release(Buffer buffer) {
+        buffer.inUse = false;
+        if (buffer.pooled && (buffer.broken || buffer.writer.capacity() > MAX_RETAINED_CAPACITY)) {
+            buffers.remove();
+        }
+    }
+
+    /**
+     * Target of a {@link StructuredLogEvent.Writer}: a {@link Buffer} when rendering a JSON line,
+     * or {@link StructuredLogEncoder}'s byte output.
+     */
+    interface Output {
+
+        /**
+         * Returns the generator to write to, wrapped so that {@code plan} is enforced while writing
+         * when {@code plan} is non-null and not empty.
+         */
+        JsonGenerator generator(SensitiveFieldPlan plan, String mask);
+    }
+
+    /**
+     * A generator bound to a reusable character buffer.
+     */
+    static final class Buffer implements Output {
+        private final ObjectMapper objectMapper;
+        private final boolean pooled;
+        private final CharBufferWriter writer = new CharBufferWriter();
+        private JsonGenerator generator;
+        private MaskingJsonGenerator maskingGenerator;
+        private boolean inUse;
+        private boolean broken;
+
+        private Buffer(ObjectMapper objectMapper, boolean pooled) {
+            this.objectMapper = objectMapper;
+            this.pooled = pooled;
+        }
+
+        private void open() throws IOException {
+            if (generator == null) {
+                generator = objectMapper.createGenerator(writer);
+                // Every payload is a separate root value; no separator between them.
+                generator.setRootValueSeparator(null);
+            }
+            writer.reset();
+            inUse = true;
+        }
+
+        JsonGenerator generator() {
+            return generator;
+        }
+
+        @Override
+        public JsonGenerator generator(SensitiveFieldPlan plan, String mask) {
+            if (plan == null || plan.isEmpty()) {
+                return generator;
+            }
+            if (maskingGenerator == null) {
+                maskingGenerator = new MaskingJsonGenerator(generator);
+            }
+            return maskingGenerator.reset(plan, mask);
+        }
+
+        /**
+         * Flushes the generator and returns everything written since {@link JsonPayloadEncoder#acquire()}.
+         * If writing failed half way, call this anyway: the buffer is marked unusable and replaced on
+         * the next acquire.
+         */
+        String finish() throws IOException {
+            try {
+                generator.flush();
+                return writer.toString();
+            } catch (IOException | RuntimeException ex) {
+                broken = true;
+                throw ex;
+            }
+        }
+
+        /**
+         * Marks the buffer as unusable after a serialization failure left the generator mid-object.
+         */
+        void discard() {
+            broken = true;
+        }
+    }
+
+    /**
+     * Unsynchronized {@link Writer} over a growable {@code char[]}, reset between payloads.
+     */
+    static final class CharBufferWriter extends Writer {
+        private char[] chars = new char[1024];
+        private int length;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            ensureCapacity(length + len);
+            System.arraycopy(cbuf, off, chars, length, len);
+            length += len;
+        }
+
+        @Override
+        public void write(int c) {
+            ensureCapacity(length + 1);
+            chars[length++] = (char) c;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            ensureCapacity(length + len);
+            str.getChars(off, off + len, chars, length);
+            length += len;
+        }
+
+        @Override
+        public void flush() {
+            // nothing buffered beyond the char array
+        }
+
+        @Override
+        public void close() {
+            // reused across payloads
+        }
+
+        int length() {
+            return length;
+        }
+
+        int capacity() {
+            return chars.length;
+        }
+
+        void reset() {
+            length = 0;
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+
+        private void ensureCapacity(int required) {
+            if (required > chars.length) {
+                char[] grown = new char[Math.max(required, chars.length << 1)];
+                System.arraycopy(chars, 0, grown, 0, length);
+                chars = grown;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.yahya.commonlogger;
+
+import org.slf4j.Logger;
+import org.springframework.boot.logging.LogLevel;
+
+import java.util.Locale;
+
+/**
+ * Maps Spring Boot {@link LogLevel}s onto SLF4J calls for the emitters in this package.
+ */
+final class LogLevelSupport {
+
+    private static final String[] NAMES = new String[LogLevel.values().length];
+
+    static {
+        for (LogLevel level : LogLevel.values()) {
+            NAMES[level.ordinal()] = level.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private LogLevelSupport() {}
+
+    /**
+     * Lower-case level name as written in the {@code logLevel} field.
+     */
+    static String name(LogLevel level) {
+        return NAMES[level.ordinal()];
+    }
+
+    static boolean isEnabled(Logger logger, LogLevel level) {
+        return switch (level) {
+            case TRACE -> logger.isTraceEnabled();
+            case DEBUG -> logger.isDebugEnabled();
+            case INFO -> logger.isInfoEnabled();
+            case WARN -> logger.isWarnEnabled();
+            case ERROR, FATAL -> logger.isErrorEnabled();
+            case OFF -> false;
+        };
+    }
+
+    /**
+     * Logs a rendered JSON line as the message itself, a {@link StructuredLogEvent} as the single
+     * argument of {@code "{}"} so that encoders can pick it up, and a {@link StructuredLogMessage}
+     * through the Log4j2 API.
+     */
+    static void log(Logger logger, LogLevel level, Object message) {
+        if (message instanceof String text) {
+            log(logger, level, text);
+            return;
+        }
+        if (!(message instanceof StructuredLogEvent)) {
+            // Only reached with common.logger.reusable-messages, i.e. with log4j-api present.
+            ((StructuredLogMessage) message).log(logger, level);
+            return;
+        }
+        switch (level) {
+            case TRACE -> logger.trace("{}", message);
+            case DEBUG -> logger.debug("{}", message);
+            case WARN -> logger.warn("{}", message);
+            case ERROR, FATAL -> logger.error("{}", message);
+            default -> logger.info("{}", message);
+        }
+    }
+
+    static void log(Logger logger, LogLevel level, String message) {
+        switch (level) {
+            case TRACE -> logger.trace(message);
+            case DEBUG -> logger.debug(message);
+            case WARN -> logger.warn(message);
+            case ERROR, FATAL -> logger.error(message);
+            default -> logger.info(message);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Produces the {@code logTimestamp} field for {@link LoggingAspect} and {@link StructuredLogger},
+ * so that both emitters write the same format.
+ * <p>
+ * A timestamp is taken in two steps: {@link #now()} captures a {@code long} on the calling thread
+ * (epoch milliseconds, or epoch microseconds for {@code EPOCH_MICROS}), and {@link #value(long)} or
+ * {@link #write(JsonGenerator, long)} renders it later, possibly on another thread.
+ * <p>
+ * {@code ISO_OFFSET} renders {@code yyyy-MM-dd'T'HH:mm:ss.SSSXXX} in the system time zone. The
+ * date, time and offset are formatted once per second into a template shared by all threads; each
+ * event copies the template into a per-thread {@code char[]} and patches the three millisecond
+ * digits, so {@link #write(JsonGenerator, long)} allocates nothing and {@link #value(long)} only
+ * the resulting {@link String}. The epoch formats are written as plain numbers.
+ * <p>
+ * The format and zone are read once at construction. Thread-safe.
+ */
+final class LogTimestampFormatter {
+
+    private static final DateTimeFormatter SECOND_TEMPLATE =
+            DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss'.000'XXX");
+
+    private final CommonLoggerProperties.TimestampFormat format;
+    private final ZoneId zone;
+    private final Clock clock;
+    private final ThreadLocal<char[]> scratch = ThreadLocal.withInitial(() -> new char[40]);
+    private volatile Second cached;
+
+    LogTimestampFormatter(CommonLoggerProperties.TimestampFormat format) {
+        this(format, ZoneId.systemDefault(), Clock.systemUTC());
+    }
+
+    LogTimestampFormatter(CommonLoggerProperties.TimestampFormat format, ZoneId zone, Clock clock) {
+        this.format = format;
+        this.zone = zone;
+        this.clock = clock;
+    }
+
+    /**
+     * Captures the current time in the unit {@link #value(long)} and {@link #write(JsonGenerator, long)}
+     * expect.
+     */
+    long now() {
+        if (format == CommonLoggerProperties.TimestampFormat.EPOCH_MICROS) {
+            return capture(clock.instant());
+        }
+        return clock.millis();
+    }
+
+    /**
+     * Captures {@code instant} like {@link #now()}.
+     */
+    long capture(Instant instant) {
+        if (format == CommonLoggerProperties.TimestampFormat.EPOCH_MICROS) {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+        }
+        return instant.toEpochMilli();
+    }
+
+    /**
+     * The captured timestamp as a payload map value: a {@link String} for {@code ISO_OFFSET}, a
+     * {@link Long} otherwise.
+     */
+    Object value(long timestamp) {
+        if (format != CommonLoggerProperties.TimestampFormat.ISO_OFFSET) {
+            return timestamp;
+        }
+        char[] chars = scratch.get();
+        return new String(chars, 0, render(timestamp, chars));
+    }
+
+    /**
+     * Writes the captured timestamp as the current value of {@code generator}.
+     */
+    void write(JsonGenerator generator, long timestamp) throws IOException {
+        if (format != CommonLoggerProperties.TimestampFormat.ISO_OFFSET) {
+            generator.writeNumber(timestamp);
+            return;
+        }
+        char[] chars = scratch.get();
+        generator.writeString(chars, 0, render(timestamp, chars));
+    }
+
+    /**
+     * Renders an epoch millisecond timestamp into {@code chars} and returns its length.
+     */
+    private int render(long epochMillis, char[] chars) {
+        long epochSecond = Math.floorDiv(epochMillis, 1000L);
+        int millis = (int) Math.floorMod(epochMillis, 1000L);
+        Second second = cached;
+        if (second == null || second.epochSecond != epochSecond) {
+            second = format(epochSecond);
+            cached = second;
+        }
+        char[] template = second.template;
+        System.arraycopy(template, 0, chars, 0, template.length);
+        int fraction = second.fractionIndex;
+        chars[fraction] = (char) ('0' + millis / 100);
+        chars[fraction + 1] = (char) ('0' + millis / 10 % 10);
+        chars[fraction + 2] = (char) ('0' + millis % 10);
+        return template.length;
+    }
+
+    private Second format(long epochSecond) {
+        Instant instant = Instant.ofEpochSecond(epochSecond);
+        ZoneOffset offset = zone.getRules().getOffset(instant);
+        String text = SECOND_TEMPLATE.format(OffsetDateTime.ofInstant(instant, offset));
+        return new Second(epochSecond, text.toCharArray(), text.indexOf('.') + 1);
+    }
+
+    /**
+     * A formatted second with {@code 000} at {@code fractionIndex}; immutable once published.
+     */
+    private record Second(long epochSecond, char[] template, int fractionIndex) {
+    }
+}
@@ -5,7 +5,38 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Logs every execution of the annotated method, or of every method of the annotated class, as a
+ * structured JSON event (see {@link LoggingAspect}). A method-level annotation takes precedence
+ * over the class-level one. Attributes are resolved once per method.
+ */
 @Target({ElementType.METHOD, ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Loggable {
+
+    /**
+     * Successful executions taking at least this many milliseconds are logged at {@code WARN} (or
+     * the configured level, if higher) with {@code slowCall=true}. {@code -1} uses
+     * {@code common.logger.slow-threshold}; {@code 0} disables slow-call detection for this method.
+     */
+    long slowThresholdMs() default -1;
+
+    /**
+     * Whether successful executions below the slow threshold are logged. With {@code false}, only
+     * failures and slow calls are logged and fast successes skip payload construction entirely.
+     */
+    boolean logSuccess() default true;
+
+    /**
+     * Whether the method's arguments are written as {@code arguments}, an array in parameter order.
+     * Parameters annotated with {@link MaskField} are written as their mask. Bounded by
+     * {@code common.logger.capture.*}.
+     */
+    boolean logArguments() default false;
+
+    /**
+     * Whether the return value of successful executions is written as {@code result}; for
+     * asynchronous results, the value they complete with. Bounded by {@code common.logger.capture.*}.
+     */
+    boolean logResult() default false;
 }
@@ -0,0 +1,118 @@
+package com.yahya.commonlogger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the duration measured by {@link LoggingAspect} in a Micrometer {@link Timer} per
+ * {@link Loggable} method, so that no separate timing aspect is needed. Every execution is
+ * recorded, including those whose log event is sampled out, suppressed or disabled.
+ * <p>
+ * Timers are named {@code common.logger.metrics.name} and tagged with {@code apiId},
+ * {@code logPoint} (the method's success or error log point), {@code outcome}
+ * ({@code SUCCESS} / {@code FAILURE}) and {@code errorType} ({@code NONE} on success). They are
+ * registered on a method's first execution and cached by its log point, so that recording is a map
+ * lookup plus {@link Timer#record(long, TimeUnit)}. Once {@code max-log-points} methods have timers,
+ * further methods share the timers tagged {@code apiId=OTHER}, {@code logPoint=OTHER}.
+ * <p>
+ * Registered by {@link CommonLoggerAutoConfiguration} when Micrometer is on the classpath, a
+ * {@link MeterRegistry} bean exists and {@code common.logger.metrics.enabled=true}.
+ */
+public class LoggableMetrics {
+
+    static final String OTHER = "OTHER";
+
+    private final MeterRegistry registry;
+    private final CommonLoggerProperties.Metrics settings;
+    private final ConcurrentHashMap<String, MethodTimers> timers = new ConcurrentHashMap<>();
+    private volatile MethodTimers overflow;
+
+    public LoggableMetrics(MeterRegistry registry, CommonLoggerProperties.Metrics settings) {
+        this.registry = registry;
+        this.settings = settings;
+    }
+
+    /**
+     * Number of methods with their own timers.
+     */
+    public int getTrackedLogPointCount() {
+        return timers.size();
+    }
+
+    /**
+     * Records one execution.
+     *
+     * @param metadata  metadata of the executed method
+     * @param duration  duration of the execution
+     * @param unit      unit of {@code duration}
+     * @param errorType error type of a failed execution, {@code null} on success
+     */
+    void record(JoinPointMetadata metadata, long duration, TimeUnit unit, String errorType) {
+        MethodTimers methodTimers = timers.get(metadata.logPoint(true));
+        if (methodTimers == null) {
+            methodTimers = register(metadata);
+        }
+        Timer timer = errorType == null ? methodTimers.success : methodTimers.failure(errorType);
+        timer.record(duration, unit);
+    }
+
+    private MethodTimers register(JoinPointMetadata metadata) {
+        if (timers.size() >= settings.getMaxLogPoints()) {
+            MethodTimers shared = overflow;
+            if (shared == null) {
+                // Racing threads build equal timers; the registry hands out the same instances.
+                shared = new MethodTimers(OTHER, OTHER, OTHER);
+                overflow = shared;
+            }
+            return shared;
+        }
+        return timers.computeIfAbsent(metadata.logPoint(true),
+                logPoint -> new MethodTimers(metadata.apiId(), logPoint, metadata.logPoint(false)));
+    }
+
+    private Timer timer(String apiId, String logPoint, String outcome, String errorType) {
+        Timer.Builder builder = Timer.builder(settings.getName())
+                .description("Duration of @Loggable executions")
+                .tag("apiId", apiId)
+                .tag("logPoint", logPoint)
+                .tag("outcome", outcome)
+                .tag("errorType", errorType);
+        if (!settings.getPercentiles().isEmpty()) {
+            builder.publishPercentiles(settings.getPercentiles().stream().mapToDouble(Double::doubleValue).toArray());
+        }
+        if (settings.isPercentileHistogram()) {
+            builder.publishPercentileHistogram();
+        }
+        return builder.register(registry);
+    }
+
+    /**
+     * Timers of one method. The success timer is registered up front; failure timers per error type
+     * on the first failure.
+     */
+    private final class MethodTimers {
+
+        private final String apiId;
+        private final String failureLogPoint;
+        private final Timer success;
+        private final ConcurrentHashMap<String, Timer> failures = new ConcurrentHashMap<>(4);
+
+        private MethodTimers(String apiId, String successLogPoint, String failureLogPoint) {
+            this.apiId = apiId;
+            this.failureLogPoint = failureLogPoint;
+            this.success = timer(apiId, successLogPoint, "SUCCESS", "NONE");
+        }
+
+        private Timer failure(String errorType) {
+            Timer timer = failures.get(errorType);
+            if (timer == null) {
+                timer = failures.computeIfAbsent(errorType,
+                        type -> timer(apiId, failureLogPoint, "FAILURE", type));
+            }
+            return timer;
+        }
+    }
+}
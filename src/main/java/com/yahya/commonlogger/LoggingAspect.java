@@ -1,23 +1,31 @@
 package com.yahya.commonlogger;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.boot.logging.LogLevel;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
-import java.time.OffsetDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * AOP aspect that intercepts methods annotated with {@link Loggable} (on method or class level)
@@ -28,9 +36,49 @@ import java.util.Map;
  * {@code transactionId}. On failure, {@code errorType}, {@code error}, and
  * {@code logException} (full stack trace) are added.
  *
+ * <p>Durations are measured with {@link System#nanoTime()}; {@code processTime} is written in
+ * {@code common.logger.process-time-unit} (milliseconds by default), optionally alongside
+ * {@code processTimeNanos}.
+ *
  * <p>The payload can be extended via {@link StructuredLogCustomizer} beans registered
  * in the Spring context. Sensitive fields can be redacted via {@link SensitiveDataMasker} beans.
  *
+ * <p>When no customizer is registered and no masker is active, the built-in fields are written
+ * straight through a reused {@link JsonGenerator} (see {@link JsonPayloadEncoder}) instead of
+ * going through an intermediate map; disable with {@code common.logger.streaming-encoder=false}.
+ *
+ * <p>With {@code common.logger.async.enabled=true}, the captured payload is handed to an
+ * {@link AsyncLogDispatcher} and serialized and written on its consumer thread.
+ *
+ * <p>With {@code common.logger.sampling.enabled=true}, only a sample of successful executions is
+ * logged (see {@link SuccessSampler}); the decision is taken before the payload is built, and
+ * kept events carry {@code sampleRate}.
+ *
+ * <p>Successful executions slower than {@link Loggable#slowThresholdMs()} (or
+ * {@code common.logger.slow-threshold}) are always logged, at {@code WARN} or above with
+ * {@code slowCall=true}. With {@link Loggable#logSuccess()} or {@code common.logger.log-success} set
+ * to {@code false}, faster successes are not logged at all.
+ *
+ * <p>Within a request handled by {@link CorrelationIdFilter} with
+ * {@code common.logger.request-buffer.enabled=true}, low-level events go to the request's
+ * {@link RequestLogBuffer} and are only written if the request ends badly.
+ *
+ * <p>With {@code common.logger.error-coalescing.enabled=true}, repeated failures are passed through
+ * an {@link ErrorCoalescer} before the payload is built; coalesced failures are reported in a
+ * periodic {@code errorSummary} event instead.
+ *
+ * <p>Methods returning a {@link CompletionStage}, or a Reactor {@code Mono} or {@code Flux} when
+ * Reactor is on the classpath, are logged when the result completes rather than when the method
+ * returns, with the value or error it completed with; disable with
+ * {@code common.logger.await-async-results=false}.
+ *
+ * <p>With {@link Loggable#logArguments()} and {@link Loggable#logResult()}, the arguments and the
+ * result are written as {@code arguments} and {@code result}, bounded by
+ * {@code common.logger.capture.*} while they are serialized (see {@link CapturedValue}).
+ *
+ * <p>With a {@link LoggableMetrics}, the same duration is also recorded in a Micrometer timer per
+ * method, independently of the log level, sampling and coalescing.
+ *
  * <p>Registered automatically by {@link CommonLoggerAutoConfiguration} when AspectJ is on
  * the classpath.
  */
@@ -39,79 +87,440 @@ public class LoggingAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
 
+    private static final SerializedString LOG_LEVEL = new SerializedString("logLevel");
+    private static final SerializedString API_ID = new SerializedString("apiId");
+    private static final SerializedString HTTP_STATUS_CODE = new SerializedString("httpStatusCode");
+    private static final SerializedString LOG_MESSAGE = new SerializedString("logMessage");
+    private static final SerializedString LOG_POINT = new SerializedString("logPoint");
+    private static final SerializedString LOG_TIMESTAMP = new SerializedString("logTimestamp");
+    private static final SerializedString PROCESS_TIME = new SerializedString("processTime");
+    private static final SerializedString PROCESS_TIME_NANOS = new SerializedString("processTimeNanos");
+    private static final SerializedString TRANSACTION_ID = new SerializedString("transactionId");
+    private static final SerializedString SAMPLE_RATE = new SerializedString("sampleRate");
+    private static final SerializedString SLOW_CALL = new SerializedString("slowCall");
+    private static final SerializedString ARGUMENTS = new SerializedString("arguments");
+    private static final SerializedString RESULT = new SerializedString("result");
+    private static final SerializedString ERROR_TYPE = new SerializedString("errorType");
+    private static final SerializedString ERROR = new SerializedString("error");
+    private static final SerializedString LOG_EXCEPTION = new SerializedString("logException");
+    private static final SerializedString EXCEPTION_FINGERPRINT = new SerializedString("exceptionFingerprint");
+
+    /**
+     * {@link Invocation#processTimeNanos()} when {@code processTimeNanos} is not written.
+     */
+    private static final long NO_NANOS = -1;
+
+    private static final boolean REACTOR_PRESENT =
+            ClassUtils.isPresent("reactor.core.publisher.Mono", LoggingAspect.class.getClassLoader());
+
     private final CommonLoggerProperties properties;
     private final List<StructuredLogCustomizer> customizers;
     private final List<SensitiveDataMasker> maskers;
-    private final ObjectMapper objectMapper;
+    private final JsonPayloadEncoder encoder;
+    private final PropertySensitiveDataMasker serializationMasking;
+    private final StackTraceRenderer stackTraceRenderer;
+    private final LogTimestampFormatter timestamps;
+    private final SuccessSampler successSampler;
+    private final AsyncLogDispatcher asyncDispatcher;
+    private final StructuredLogEvent.Writer writer = this::write;
+    private final AsyncLogDispatcher.PayloadRenderer renderer;
+    private final ErrorCoalescer errorCoalescer;
+    private final ErrorCoalescer.SummarySink summarySink = this::emitSummary;
+    private final LoggableMetrics metrics;
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Object, JoinPointMetadata>> metadataCache =
+            new ConcurrentHashMap<>();
 
     public LoggingAspect(CommonLoggerProperties properties,
                          List<StructuredLogCustomizer> customizers,
                          List<SensitiveDataMasker> maskers,
                          ObjectMapper objectMapper) {
+        this(properties, customizers, maskers, objectMapper, null);
+    }
+
+    /**
+     * @param asyncDispatcher when non-null, payloads are serialized and written on the dispatcher's
+     *                        consumer thread instead of the calling thread
+     */
+    public LoggingAspect(CommonLoggerProperties properties,
+                         List<StructuredLogCustomizer> customizers,
+                         List<SensitiveDataMasker> maskers,
+                         ObjectMapper objectMapper,
+                         AsyncLogDispatcher asyncDispatcher) {
+        this(properties, customizers, maskers, objectMapper, asyncDispatcher, null);
+    }
+
+    /**
+     * @param asyncDispatcher when non-null, payloads are serialized and written on the dispatcher's
+     *                        consumer thread instead of the calling thread
+     * @param errorCoalescer  when non-null, repeated failures are coalesced into summary events
+     */
+    public LoggingAspect(CommonLoggerProperties properties,
+                         List<StructuredLogCustomizer> customizers,
+                         List<SensitiveDataMasker> maskers,
+                         ObjectMapper objectMapper,
+                         AsyncLogDispatcher asyncDispatcher,
+                         ErrorCoalescer errorCoalescer) {
+        this(properties, customizers, maskers, objectMapper, asyncDispatcher, errorCoalescer, null);
+    }
+
+    /**
+     * @param asyncDispatcher when non-null, payloads are serialized and written on the dispatcher's
+     *                        consumer thread instead of the calling thread
+     * @param errorCoalescer  when non-null, repeated failures are coalesced into summary events
+     * @param metrics         when non-null, every execution is recorded in a Micrometer timer
+     */
+    public LoggingAspect(CommonLoggerProperties properties,
+                         List<StructuredLogCustomizer> customizers,
+                         List<SensitiveDataMasker> maskers,
+                         ObjectMapper objectMapper,
+                         AsyncLogDispatcher asyncDispatcher,
+                         ErrorCoalescer errorCoalescer,
+                         LoggableMetrics metrics) {
         this.properties = properties;
         this.customizers = customizers == null ? Collections.emptyList() : customizers;
         this.maskers = maskers == null ? Collections.emptyList() : maskers;
-        this.objectMapper = objectMapper;
+        this.encoder = new JsonPayloadEncoder(objectMapper);
+        this.serializationMasking = new PropertySensitiveDataMasker(properties);
+        this.stackTraceRenderer = new StackTraceRenderer(properties.getStackTrace());
+        this.timestamps = new LogTimestampFormatter(properties.getTimestampFormat());
+        this.successSampler = new SuccessSampler(properties.getSampling());
+        this.asyncDispatcher = asyncDispatcher;
+        this.errorCoalescer = errorCoalescer;
+        this.metrics = metrics;
+        if (properties.isReusableMessages()) {
+            this.renderer = (level, payload) -> StructuredLogMessage.acquire(level, payload, writer, objectMapper);
+        } else if (properties.isStructuredArguments()) {
+            this.renderer = (level, payload) -> new StructuredLogEvent(level, payload, writer, encoder);
+        } else {
+            this.renderer = this::render;
+        }
     }
 
     @Around("@annotation(com.yahya.commonlogger.Loggable) || @within(com.yahya.commonlogger.Loggable)")
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
-        long start = System.currentTimeMillis();
-        boolean success = false;
-        Object result = null;
-        Throwable failure = null;
+        long start = System.nanoTime();
+        Object result;
         try {
             result = joinPoint.proceed();
-            success = true;
-            return result;
         } catch (Throwable ex) {
-            failure = ex;
+            finish(joinPoint, System.nanoTime() - start, null, ex);
             throw ex;
+        }
+        if (result != null && properties.isAwaitAsyncResults()) {
+            Object deferred = deferFinish(joinPoint, start, result);
+            if (deferred != null) {
+                return deferred;
+            }
+        }
+        finish(joinPoint, System.nanoTime() - start, result, null);
+        return result;
+    }
+
+    /**
+     * Records and logs one finished execution; {@code failure} is {@code null} on success.
+     */
+    private void finish(ProceedingJoinPoint joinPoint, long elapsedNanos, Object result, Throwable failure) {
+        boolean success = failure == null;
+        JoinPointMetadata metadata = null;
+        if (metrics != null) {
+            metadata = metadata(joinPoint);
+            metrics.record(metadata, elapsedNanos, TimeUnit.NANOSECONDS,
+                    success ? null : resolveErrorType(resolveStatusCode(failure)));
+        }
+        if (properties.getLogLevel() != LogLevel.OFF) {
+            if (success) {
+                logSuccess(joinPoint, metadata, result, elapsedNanos);
+            } else {
+                logFailure(joinPoint, metadata, failure, elapsedNanos);
+            }
+        }
+    }
+
+    /**
+     * Postpones {@link #finish} until an asynchronous result completes. A {@link CompletionStage} is
+     * timed from the call and returned as is; a Reactor {@code Mono} or {@code Flux} is timed from
+     * each subscription and returned decorated (see {@link ReactorSupport}). Returns {@code null} when
+     * {@code result} is not asynchronous.
+     * <p>
+     * The transaction and correlation ids are taken from the Reactor {@code Context} when present,
+     * otherwise from the MDC of the calling thread, and put into the MDC of the completing thread
+     * only while the event is logged.
+     */
+    private Object deferFinish(ProceedingJoinPoint joinPoint, long start, Object result) {
+        if (result instanceof CompletionStage<?> stage) {
+            String transactionId = MDC.get(properties.getTransactionIdMdcKey());
+            String correlationId = MDC.get(properties.getCorrelationIdMdcKey());
+            stage.whenComplete((value, error) -> finishDeferred(joinPoint, System.nanoTime() - start,
+                    value, unwrap(error), transactionId, correlationId));
+            return result;
+        }
+        if (REACTOR_PRESENT) {
+            return ReactorSupport.decorate(result, properties.getTransactionIdMdcKey(),
+                    properties.getCorrelationIdMdcKey(),
+                    (elapsedNanos, value, error, transactionId, correlationId) -> finishDeferred(joinPoint,
+                            elapsedNanos, value, error, transactionId, correlationId));
+        }
+        return null;
+    }
+
+    private void finishDeferred(ProceedingJoinPoint joinPoint, long elapsedNanos, Object result, Throwable failure,
+                                String transactionId, String correlationId) {
+        String transactionIdKey = properties.getTransactionIdMdcKey();
+        String correlationIdKey = properties.getCorrelationIdMdcKey();
+        String previousTransactionId = MDC.get(transactionIdKey);
+        String previousCorrelationId = MDC.get(correlationIdKey);
+        putMdc(correlationIdKey, correlationId);
+        putMdc(transactionIdKey, transactionId);
+        try {
+            finish(joinPoint, elapsedNanos, result, failure);
+        } catch (RuntimeException ex) {
+            logger.warn("Failed to log asynchronous completion: {}", ex.getMessage());
         } finally {
-            long duration = System.currentTimeMillis() - start;
-            LogLevel configuredLevel = resolveConfiguredLevel();
-            LogLevel levelToUse = failure != null ? LogLevel.ERROR : configuredLevel;
-            boolean shouldLog = properties.getLogLevel() != LogLevel.OFF
-                    && (failure != null ? logger.isErrorEnabled() : isLevelEnabled(configuredLevel));
-
-            if (shouldLog) {
-                String payload = buildStructuredPayload(joinPoint, result, duration, success, failure, levelToUse);
-                emit(payload, levelToUse);
+            putMdc(correlationIdKey, previousCorrelationId);
+            putMdc(transactionIdKey, previousTransactionId);
+        }
+    }
+
+    private static void putMdc(String key, String value) {
+        if (value == null) {
+            MDC.remove(key);
+        } else {
+            MDC.put(key, value);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Slow executions are logged at {@code WARN} or above with {@code slowCall=true}, bypassing
+     * sampling; fast ones are subject to {@link Loggable#logSuccess()} and sampling. Every check runs
+     * before the payload is built.
+     *
+     * @param metadata the method's metadata if already resolved, otherwise {@code null}
+     */
+    private void logSuccess(ProceedingJoinPoint joinPoint, JoinPointMetadata metadata, Object result,
+                            long elapsedNanos) {
+        LogLevel configuredLevel = resolveConfiguredLevel();
+        boolean configuredEnabled = LogLevelSupport.isEnabled(logger, configuredLevel)
+                || RequestLogBuffer.captures(configuredLevel);
+        if (!configuredEnabled && !logger.isWarnEnabled()) {
+            return;
+        }
+        if (metadata == null) {
+            metadata = metadata(joinPoint);
+        }
+        boolean sampling = properties.getSampling().isEnabled();
+        double sampleRate = SuccessSampler.SKIP;
+        LogLevel level = configuredLevel;
+        boolean slow = isSlow(metadata, elapsedNanos);
+        if (slow) {
+            if (level.compareTo(LogLevel.WARN) < 0) {
+                level = LogLevel.WARN;
+            }
+            if (!LogLevelSupport.isEnabled(logger, level) && !RequestLogBuffer.captures(level)) {
+                return;
             }
+            sampleRate = sampling ? 1.0 : SuccessSampler.SKIP;
+        } else {
+            if (!configuredEnabled || !metadata.logSuccess() || !properties.isLogSuccess()) {
+                return;
+            }
+            if (sampling) {
+                sampleRate = successSampler.sample(metadata);
+                if (sampleRate == SuccessSampler.SKIP) {
+                    return;
+                }
+            }
+        }
+        emit(level, capturePayload(joinPoint, metadata, result, elapsedNanos, null, level, sampleRate, slow));
+    }
+
+    private void logFailure(ProceedingJoinPoint joinPoint, JoinPointMetadata metadata, Throwable failure,
+                            long elapsedNanos) {
+        if (!logger.isErrorEnabled()) {
+            return;
+        }
+        if (metadata == null) {
+            metadata = metadata(joinPoint);
+        }
+        if (errorCoalescer != null && !errorCoalescer.admit(metadata, failure, stackTraceRenderer.fingerprint(failure),
+                properties.getProcessTimeUnit().fromNanos(elapsedNanos), resolveTransactionId(), summarySink)) {
+            return;
+        }
+        emit(LogLevel.ERROR, capturePayload(joinPoint, metadata, null, elapsedNanos, failure, LogLevel.ERROR,
+                SuccessSampler.SKIP, false));
+    }
+
+    /**
+     * {@link Loggable#slowThresholdMs()} of the method, falling back to {@code common.logger.slow-threshold}.
+     */
+    private boolean isSlow(JoinPointMetadata metadata, long elapsedNanos) {
+        long threshold = metadata.slowThresholdMs();
+        if (threshold < 0) {
+            threshold = properties.getSlowThreshold().toMillis();
+        }
+        return threshold > 0 && elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(threshold);
+    }
+
+    private void emit(LogLevel level, Object payload) {
+        if (asyncDispatcher != null || RequestLogBuffer.captures(level)) {
+            snapshotCaptures(payload);
+        }
+        if (RequestLogBuffer.offer(logger, level, payload, renderer)) {
+            return;
+        }
+        if (asyncDispatcher != null) {
+            asyncDispatcher.dispatch(logger, level, payload, renderer);
+        } else {
+            LogLevelSupport.log(logger, level, renderer.render(level, payload));
         }
     }
 
-    private String buildStructuredPayload(ProceedingJoinPoint joinPoint,
-                                          Object result,
-                                          long duration,
-                                          boolean success,
-                                          Throwable failure,
-                                          LogLevel logLevel) {
+    /**
+     * Serializes captured arguments and results on the calling thread, for events that are rendered
+     * later; see {@link CapturedValue#snapshot(ObjectMapper)}.
+     */
+    private void snapshotCaptures(Object payload) {
+        Object arguments;
+        Object result;
+        if (payload instanceof Invocation invocation) {
+            arguments = invocation.arguments();
+            result = invocation.result();
+        } else if (payload instanceof Map<?, ?> map) {
+            arguments = map.get("arguments");
+            result = map.get("result");
+        } else {
+            return;
+        }
+        if (arguments instanceof CapturedValue captured) {
+            captured.snapshot(encoder.objectMapper());
+        }
+        if (result instanceof CapturedValue captured) {
+            captured.snapshot(encoder.objectMapper());
+        }
+    }
+
+    /**
+     * Emits the window summary of a coalesced failure key. Runs on the coalescer's timer thread.
+     */
+    private void emitSummary(ErrorCoalescer.Summary summary) {
+        if (properties.getLogLevel() == LogLevel.OFF || !logger.isErrorEnabled()) {
+            return;
+        }
+        int statusCode = properties.getErrorHttpStatusCode();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("logLevel", LogLevelSupport.name(LogLevel.ERROR));
+        payload.put("apiId", summary.apiId());
+        payload.put("httpStatusCode", statusCode);
+        payload.put("logMessage", summary.logMessage());
+        payload.put("logPoint", summary.logPoint());
+        payload.put("logTimestamp", timestamps.value(timestamps.capture(summary.windowEnd())));
+        payload.put("errorType", resolveErrorType(statusCode));
+        payload.put("error", summary.error());
+        payload.put("exceptionClass", summary.exceptionClass());
+        payload.put("exceptionFingerprint", summary.fingerprint());
+
+        Map<String, Object> processTime = new LinkedHashMap<>();
+        processTime.put("min", summary.minProcessTime());
+        processTime.put("max", summary.maxProcessTime());
+        processTime.put("avg", summary.avgProcessTime());
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("occurrences", summary.occurrences());
+        details.put("suppressed", summary.suppressed());
+        details.put("processTime", processTime);
+        details.put("sampleTransactionIds", summary.sampleTransactionIds());
+        details.put("windowStart", summary.windowStart().toString());
+        details.put("windowEnd", summary.windowEnd().toString());
+        payload.put("errorSummary", details);
+
+        applyMaskers(payload);
+        emit(LogLevel.ERROR, payload);
+    }
+
+    /**
+     * Captures everything that depends on the calling thread (MDC, timestamp, customizers, maskers).
+     * Captured arguments and results are {@link CapturedValue}s in either model and are serialized
+     * when rendered, or by {@link #emit(LogLevel, Object)} if rendering is deferred. {@code sampleRate} is written when sampling kept the execution, i.e. when it is not
+     * {@link SuccessSampler#SKIP}, and {@code slowCall} for slow successful executions. Customizers
+     * receive the duration in milliseconds whatever {@code process-time-unit} is. Returns either an
+     * {@link Invocation} for the streaming encoder or the finished payload map;
+     * {@link #render(LogLevel, Object)} turns either into JSON, possibly on another thread.
+     */
+    private Object capturePayload(ProceedingJoinPoint joinPoint,
+                                  JoinPointMetadata metadata,
+                                  Object result,
+                                  long elapsedNanos,
+                                  Throwable failure,
+                                  LogLevel logLevel,
+                                  double sampleRate,
+                                  boolean slowCall) {
+        boolean success = failure == null;
         int statusCode = resolveStatusCode(failure);
+        long processTime = properties.getProcessTimeUnit().fromNanos(elapsedNanos);
+        boolean withNanos = properties.isProcessTimeNanos();
+        CapturedValue arguments = metadata.logArguments()
+                ? new CapturedValue(metadata.maskArguments(joinPoint.getArgs()), properties.getCapture())
+                : null;
+        CapturedValue capturedResult = success && metadata.logResult()
+                ? new CapturedValue(result, properties.getCapture())
+                : null;
+        if (canStream()) {
+            return new Invocation(metadata, success, statusCode, timestamps.now(), processTime,
+                    withNanos ? elapsedNanos : NO_NANOS, resolveTransactionId(), sampleRate, slowCall,
+                    arguments, capturedResult, failure);
+        }
         Map<String, Object> payload = new LinkedHashMap<>();
-        payload.put("logLevel", logLevel.name().toLowerCase(Locale.ROOT));
-        payload.put("apiId", resolveApiId(joinPoint));
+        payload.put("logLevel", LogLevelSupport.name(logLevel));
+        payload.put("apiId", metadata.apiId());
         payload.put("httpStatusCode", statusCode);
-        payload.put("logMessage", buildLogMessage(joinPoint, success));
-        payload.put("logPoint", buildLogPoint(joinPoint, success));
-        payload.put("logTimestamp", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(OffsetDateTime.now()));
-        payload.put("processTime", duration);
+        payload.put("logMessage", metadata.logMessage(success));
+        payload.put("logPoint", metadata.logPoint(success));
+        payload.put("logTimestamp", timestamps.value(timestamps.now()));
+        payload.put("processTime", processTime);
+        if (withNanos) {
+            payload.put("processTimeNanos", elapsedNanos);
+        }
         payload.put("transactionId", resolveTransactionId());
+        if (sampleRate != SuccessSampler.SKIP) {
+            payload.put("sampleRate", sampleRate);
+        }
+        if (slowCall) {
+            payload.put("slowCall", true);
+        }
+        if (arguments != null) {
+            payload.put("arguments", arguments);
+        }
+        if (capturedResult != null) {
+            payload.put("result", capturedResult);
+        }
 
         if (failure != null) {
             payload.put("errorType", resolveErrorType(statusCode));
             payload.put("error", failure.getMessage());
-            payload.put("logException", buildExceptionDetails(failure));
+            StackTraceRenderer.Rendered stackTrace = stackTraceRenderer.render(failure);
+            payload.put("logException", stackTrace.text());
+            payload.put("exceptionFingerprint", stackTrace.fingerprint());
         }
 
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
         for (StructuredLogCustomizer customizer : customizers) {
             try {
-                customizer.customize(payload, joinPoint, result, duration, success, failure);
+                customizer.customize(payload, joinPoint, result, durationMillis, success, failure);
             } catch (Exception ex) {
                 logger.warn("StructuredLogCustomizer [{}] failed: {}", customizer.getClass().getName(), ex.getMessage());
             }
         }
 
+        applyMaskers(payload);
+        return payload;
+    }
+
+    private void applyMaskers(Map<String, Object> payload) {
         for (SensitiveDataMasker masker : maskers) {
             try {
                 masker.mask(payload);
@@ -119,51 +528,132 @@ public class LoggingAspect {
                 logger.warn("SensitiveDataMasker [{}] failed: {}", masker.getClass().getName(), ex.getMessage());
             }
         }
+    }
 
+    private String render(LogLevel logLevel, Object payload) {
+        if (payload instanceof Invocation invocation) {
+            return encodeStreaming(logLevel, invocation);
+        }
         try {
-            return objectMapper.writeValueAsString(payload);
-        } catch (JsonProcessingException ex) {
+            return encoder.encode(payload, serializationMasking.serializationPlan(), PropertySensitiveDataMasker.MASK);
+        } catch (IOException ex) {
             logger.warn("Failed to serialize log payload: {}", ex.getMessage());
-            return "{\"logLevel\":\"" + logLevel.name().toLowerCase(Locale.ROOT) + "\",\"error\":\"log serialization failed\"}";
+            return StructuredLogEvent.failedPayload(logLevel);
         }
     }
 
-    private LogLevel resolveConfiguredLevel() {
-        LogLevel level = properties.getLogLevel();
-        return level == null ? LogLevel.INFO : level;
+    /**
+     * Writes either payload model through {@code output}; used for {@link StructuredLogEvent}s.
+     */
+    private void write(LogLevel logLevel, Object payload, JsonPayloadEncoder.Output output) throws IOException {
+        JsonGenerator gen = output.generator(serializationMasking.serializationPlan(), PropertySensitiveDataMasker.MASK);
+        if (payload instanceof Invocation invocation) {
+            writeStreaming(gen, logLevel, invocation);
+        } else {
+            encoder.objectMapper().writeValue(gen, payload);
+        }
     }
 
-    private boolean isLevelEnabled(LogLevel level) {
-        return switch (level) {
-            case TRACE -> logger.isTraceEnabled();
-            case DEBUG -> logger.isDebugEnabled();
-            case INFO -> logger.isInfoEnabled();
-            case WARN -> logger.isWarnEnabled();
-            case ERROR, FATAL -> logger.isErrorEnabled();
-            case OFF -> false;
-        };
+    /**
+     * Writes the built-in fields through the thread's reused generator.
+     */
+    private String encodeStreaming(LogLevel logLevel, Invocation invocation) {
+        JsonPayloadEncoder.Buffer buffer = null;
+        try {
+            buffer = encoder.acquire();
+            writeStreaming(buffer.generator(serializationMasking.serializationPlan(), PropertySensitiveDataMasker.MASK),
+                    logLevel, invocation);
+            return buffer.finish();
+        } catch (IOException | RuntimeException ex) {
+            if (buffer != null) {
+                buffer.discard();
+            }
+            logger.warn("Failed to serialize log payload: {}", ex.getMessage());
+            return StructuredLogEvent.failedPayload(logLevel);
+        } finally {
+            if (buffer != null) {
+                encoder.release(buffer);
+            }
+        }
     }
 
-    private void emit(String payload, LogLevel level) {
-        switch (level) {
-            case TRACE -> logger.trace(payload);
-            case DEBUG -> logger.debug(payload);
-            case WARN -> logger.warn(payload);
-            case ERROR, FATAL -> logger.error(payload);
-            default -> logger.info(payload);
+    /**
+     * Writes the built-in fields, in the same order as the map model, directly to {@code gen}.
+     */
+    private void writeStreaming(JsonGenerator gen, LogLevel logLevel, Invocation invocation) throws IOException {
+        JoinPointMetadata metadata = invocation.metadata();
+        boolean success = invocation.success();
+        Throwable failure = invocation.failure();
+        gen.writeStartObject();
+        gen.writeFieldName(LOG_LEVEL);
+        gen.writeString(LogLevelSupport.name(logLevel));
+        gen.writeFieldName(API_ID);
+        gen.writeString(metadata.apiIdJson());
+        gen.writeFieldName(HTTP_STATUS_CODE);
+        gen.writeNumber(invocation.statusCode());
+        gen.writeFieldName(LOG_MESSAGE);
+        gen.writeString(metadata.logMessageJson(success));
+        gen.writeFieldName(LOG_POINT);
+        gen.writeString(metadata.logPointJson(success));
+        gen.writeFieldName(LOG_TIMESTAMP);
+        timestamps.write(gen, invocation.timestamp());
+        gen.writeFieldName(PROCESS_TIME);
+        gen.writeNumber(invocation.processTime());
+        if (invocation.processTimeNanos() != NO_NANOS) {
+            gen.writeFieldName(PROCESS_TIME_NANOS);
+            gen.writeNumber(invocation.processTimeNanos());
+        }
+        gen.writeFieldName(TRANSACTION_ID);
+        gen.writeString(invocation.transactionId());
+        if (invocation.sampleRate() != SuccessSampler.SKIP) {
+            gen.writeFieldName(SAMPLE_RATE);
+            gen.writeNumber(invocation.sampleRate());
+        }
+        if (invocation.slowCall()) {
+            gen.writeFieldName(SLOW_CALL);
+            gen.writeBoolean(true);
         }
+        if (invocation.arguments() != null) {
+            gen.writeFieldName(ARGUMENTS);
+            gen.writeObject(invocation.arguments());
+        }
+        if (invocation.result() != null) {
+            gen.writeFieldName(RESULT);
+            gen.writeObject(invocation.result());
+        }
+        if (failure != null) {
+            gen.writeFieldName(ERROR_TYPE);
+            gen.writeString(resolveErrorType(invocation.statusCode()));
+            gen.writeFieldName(ERROR);
+            gen.writeString(failure.getMessage());
+            StackTraceRenderer.Rendered stackTrace = stackTraceRenderer.render(failure);
+            gen.writeFieldName(LOG_EXCEPTION);
+            gen.writeString(stackTrace.text());
+            gen.writeFieldName(EXCEPTION_FINGERPRINT);
+            gen.writeString(stackTrace.fingerprint());
+        }
+        gen.writeEndObject();
     }
 
-    private String resolveApiId(ProceedingJoinPoint joinPoint) {
-        if (StringUtils.hasText(properties.getApiId())) {
-            return properties.getApiId();
+    /**
+     * The map model is only needed when something may read or rewrite the payload before it is
+     * serialized.
+     */
+    private boolean canStream() {
+        if (!properties.isStreamingEncoder() || !customizers.isEmpty()) {
+            return false;
         }
-        String declaringType = joinPoint.getSignature().getDeclaringTypeName();
-        if (!StringUtils.hasText(declaringType)) {
-            return "unknown";
+        for (SensitiveDataMasker masker : maskers) {
+            if (masker.isActive()) {
+                return false;
+            }
         }
-        int lastDot = declaringType.lastIndexOf('.');
-        return lastDot >= 0 ? declaringType.substring(lastDot + 1) : declaringType;
+        return true;
+    }
+
+    private LogLevel resolveConfiguredLevel() {
+        LogLevel level = properties.getLogLevel();
+        return level == null ? LogLevel.INFO : level;
     }
 
     private int resolveStatusCode(Throwable failure) {
@@ -187,23 +677,70 @@ public class LoggingAspect {
         return MDC.get(properties.getCorrelationIdMdcKey());
     }
 
-    private String buildLogMessage(ProceedingJoinPoint joinPoint, boolean success) {
-        String method = toMethodKey(joinPoint);
-        String apiId = resolveApiId(joinPoint);
-        return apiId + "-" + method + (success ? " Completed" : " Failed");
+    /**
+     * Returns the cached metadata for the join point's method on its target class.
+     * <p>
+     * Entries are keyed by the target class and the {@link java.lang.reflect.Method} rather than the
+     * join point's {@code StaticPart}: Spring AOP creates a new join point (and static part) for every
+     * invocation, whereas the {@code Method} is stable. The target class is part of the key because an
+     * inherited method resolves {@link Loggable} from the class it is called on. Signatures that are
+     * not method signatures are used as their own key.
+     */
+    private JoinPointMetadata metadata(ProceedingJoinPoint joinPoint) {
+        Signature signature = joinPoint.getSignature();
+        Object key = signature instanceof MethodSignature methodSignature && methodSignature.getMethod() != null
+                ? methodSignature.getMethod()
+                : signature;
+        Object target = joinPoint.getTarget();
+        Class<?> targetClass = target != null ? AopUtils.getTargetClass(target) : signature.getDeclaringType();
+        if (targetClass == null) {
+            targetClass = Object.class;
+        }
+        ConcurrentMap<Object, JoinPointMetadata> methods = metadataCache.get(targetClass);
+        if (methods == null) {
+            methods = metadataCache.computeIfAbsent(targetClass, type -> new ConcurrentHashMap<>());
+        }
+        String configuredApiId = properties.getApiId();
+        JoinPointMetadata metadata = methods.get(key);
+        if (metadata == null || !metadata.isFor(configuredApiId)) {
+            metadata = JoinPointMetadata.resolve(signature, target != null ? targetClass : null, configuredApiId);
+            methods.put(key, metadata);
+        }
+        return metadata;
     }
 
-    private String buildLogPoint(ProceedingJoinPoint joinPoint, boolean success) {
-        String method = toMethodKey(joinPoint);
-        String apiId = resolveApiId(joinPoint);
-        return apiId + "-" + method + "-" + (success ? "End" : "Error");
+    /**
+     * Values captured on the calling thread for the streaming encoder. {@code timestamp} is a
+     * {@link LogTimestampFormatter#now()} value and {@code processTime} is already
+     * in the configured unit; {@code processTimeNanos} is {@link #NO_NANOS} when it is not written.
+     * {@code arguments} and {@code result} are {@code null} when not captured.
+     */
+    private record Invocation(JoinPointMetadata metadata,
+                              boolean success,
+                              int statusCode,
+                              long timestamp,
+                              long processTime,
+                              long processTimeNanos,
+                              String transactionId,
+                              double sampleRate,
+                              boolean slowCall,
+                              CapturedValue arguments,
+                              CapturedValue result,
+                              Throwable failure) {
     }
 
-    private String toMethodKey(ProceedingJoinPoint joinPoint) {
-        return joinPoint.getSignature().getName().toLowerCase(Locale.ROOT);
-    }
+    /**
+     * Receives the outcome of an asynchronous result once it completes.
+     */
+    @FunctionalInterface
+    interface Completion {
 
-    private String buildExceptionDetails(Throwable failure) {
-        return ExceptionUtils.getStackTrace(failure);
+        /**
+         * @param result        the emitted value, or {@code null}
+         * @param failure       the error the result completed with, or {@code null} on success
+         * @param transactionId value for the transaction id MDC key while logging, or {@code null}
+         * @param correlationId value for the correlation id MDC key while logging, or {@code null}
+         */
+        void complete(long elapsedNanos, Object result, Throwable failure, String transactionId, String correlationId);
     }
 }
@@ -9,8 +9,15 @@ import java.lang.annotation.Target;
  * Marks a field or method parameter as sensitive so that its value is
  * redacted in structured log output.
  * <p>
- * When placed on a field in a request/response DTO, any {@link SensitiveDataMasker}
- * targeting that field name will replace the value with {@code "***"} in the log payload.
+ * When placed on a field in a request/response DTO, the logger's {@code ObjectMapper} writes
+ * {@link #mask()} instead of the value whenever that DTO is serialized into a log payload
+ * (see {@link MaskFieldModule}).
+ * <p>
+ * When placed on a parameter of a {@link Loggable} method, the argument is replaced by
+ * {@link #mask()} when the method's arguments are captured into the log payload
+ * ({@link Loggable#logArguments()}).
+ * <p>
+ * {@code null} values are not masked, so the log still shows that the value was absent.
  * <p>
  * Example on a DTO field:
  * <pre>
@@ -27,7 +34,7 @@ import java.lang.annotation.Target;
  * Example on a method parameter in a {@link Loggable}-annotated method:
  * <pre>
  * {@code
- * @Loggable
+ * @Loggable(logArguments = true)
  * public void processPayment(@MaskField String cardNumber, int amount) { ... }
  * }
  * </pre>
@@ -0,0 +1,121 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Jackson module that honours {@link MaskField} on DTO properties.
+ * <p>
+ * A {@link BeanSerializerModifier} inspects each bean type once, when Jackson builds its
+ * serializer, and swaps the writer of every {@code @MaskField} property for one that emits
+ * {@link MaskField#mask()} in place of a non-null value; {@code null} is still written as
+ * {@code null} (subject to the mapper's inclusion rules), so an absent value stays visible.
+ * Jackson caches the resulting serializer per type, which takes the place of a separate
+ * {@code ClassValue} cache: there is no per-call reflection and no copy of the object before
+ * serialization.
+ * <p>
+ * {@link CommonLoggerAutoConfiguration} registers it on one copy of the {@link ObjectMapper} bean
+ * ({@code commonLoggerObjectMapper} or the application's own), shared by {@link LoggingAspect} and
+ * {@link StructuredLogger}; the bean itself is left untouched, so HTTP bodies are not masked.
+ */
+public class MaskFieldModule extends SimpleModule {
+
+    private static final Logger log = LoggerFactory.getLogger(MaskFieldModule.class);
+
+    /**
+     * Module name, also used by Jackson as its registration id.
+     */
+    static final String MODULE_NAME = "CommonLoggerMaskFieldModule";
+
+    public MaskFieldModule() {
+        super(MODULE_NAME);
+        setSerializerModifier(new MaskFieldSerializerModifier());
+    }
+
+    /**
+     * Returns {@code objectMapper} if it already has this module, otherwise a copy with the module
+     * registered. Falls back to {@code objectMapper} itself if it cannot be copied.
+     */
+    static ObjectMapper ensureRegistered(ObjectMapper objectMapper) {
+        if (objectMapper.getRegisteredModuleIds().contains(MODULE_NAME)) {
+            return objectMapper;
+        }
+        try {
+            return objectMapper.copy().registerModule(new MaskFieldModule());
+        } catch (IllegalStateException ex) {
+            log.warn("Cannot copy ObjectMapper {}; @MaskField will not be applied: {}",
+                    objectMapper.getClass().getName(), ex.getMessage());
+            return objectMapper;
+        }
+    }
+
+    private static final class MaskFieldSerializerModifier extends BeanSerializerModifier {
+
+        @Override
+        public List<BeanPropertyWriter> changeProperties(SerializationConfig config,
+                                                         BeanDescription beanDesc,
+                                                         List<BeanPropertyWriter> beanProperties) {
+            for (int i = 0; i < beanProperties.size(); i++) {
+                BeanPropertyWriter writer = beanProperties.get(i);
+                MaskField maskField = writer.getAnnotation(MaskField.class);
+                if (maskField != null) {
+                    beanProperties.set(i, new MaskedPropertyWriter(writer, maskField.mask()));
+                }
+            }
+            return beanProperties;
+        }
+    }
+
+    /**
+     * Writes the configured mask in place of a non-null property value.
+     */
+    static final class MaskedPropertyWriter extends BeanPropertyWriter {
+
+        private final String mask;
+
+        MaskedPropertyWriter(BeanPropertyWriter base, String mask) {
+            super(base);
+            this.mask = mask;
+        }
+
+        private MaskedPropertyWriter(MaskedPropertyWriter base, PropertyName name) {
+            super(base, name);
+            this.mask = base.mask;
+        }
+
+        @Override
+        protected BeanPropertyWriter _new(PropertyName newName) {
+            return new MaskedPropertyWriter(this, newName);
+        }
+
+        @Override
+        public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            if (get(bean) == null) {
+                super.serializeAsField(bean, gen, prov);
+                return;
+            }
+            gen.writeFieldName(_name);
+            gen.writeString(mask);
+        }
+
+        @Override
+        public void serializeAsElement(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            if (get(bean) == null) {
+                super.serializeAsElement(bean, gen, prov);
+                return;
+            }
+            gen.writeString(mask);
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * {@link JsonGenerator} wrapper that enforces a {@link SensitiveFieldPlan} while the payload is
+ * written, used when {@code common.logger.masking-mode=SERIALIZATION}.
+ * <p>
+ * Every field name is checked against the plan as it is written. For a sensitive field the mask
+ * is written instead, and the real value (scalar, object or array) is swallowed token by token as
+ * the serializer produces it, so the value never reaches the output and no map copy is needed.
+ * Because it sits below {@code ObjectMapper}, it applies equally to maps and to POJOs.
+ * <p>
+ * Not thread-safe; one instance is kept per {@link JsonPayloadEncoder.Buffer} and reset per payload.
+ */
+final class MaskingJsonGenerator extends JsonGeneratorDelegate {
+
+    private SensitiveFieldPlan plan;
+    /** Trie node of the root value. */
+    private SensitiveFieldPlan.Node root;
+    private String mask;
+
+    /** Trie node of each open container; index 0 is the root value. */
+    private SensitiveFieldPlan.Node[] nodes = new SensitiveFieldPlan.Node[16];
+    /** Whether each open container is an array. */
+    private boolean[] arrays = new boolean[16];
+    private int depth;
+    /** Trie node for the value following the last field name written. */
+    private SensitiveFieldPlan.Node fieldNode;
+    /** The next value belongs to a masked field and must be dropped. */
+    private boolean maskPending;
+    /** Nesting depth of a masked object or array currently being dropped. */
+    private int suppressed;
+
+    MaskingJsonGenerator(JsonGenerator delegate) {
+        super(delegate, false);
+    }
+
+    /**
+     * Prepares this generator for a new root value.
+     */
+    MaskingJsonGenerator reset(SensitiveFieldPlan plan, String mask) {
+        return reset(plan, plan.root(), mask);
+    }
+
+    /**
+     * Prepares this generator for a value nested in a payload, whose trie node is {@code root}
+     * ({@code null} if no configured path continues there).
+     */
+    MaskingJsonGenerator reset(SensitiveFieldPlan plan, SensitiveFieldPlan.Node root, String mask) {
+        this.plan = plan;
+        this.root = root;
+        this.mask = mask;
+        this.depth = 0;
+        this.fieldNode = null;
+        this.maskPending = false;
+        this.suppressed = 0;
+        return this;
+    }
+
+    // ── structure ───────────────────────────────────────────────────────────
+
+    @Override
+    public void writeStartObject() throws IOException {
+        if (enterContainer(false)) {
+            delegate.writeStartObject();
+        }
+    }
+
+    @Override
+    public void writeStartObject(Object forValue) throws IOException {
+        if (enterContainer(false)) {
+            delegate.writeStartObject(forValue);
+        }
+    }
+
+    @Override
+    public void writeStartObject(Object forValue, int size) throws IOException {
+        if (enterContainer(false)) {
+            delegate.writeStartObject(forValue, size);
+        }
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        if (exitContainer()) {
+            delegate.writeEndObject();
+        }
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        if (enterContainer(true)) {
+            delegate.writeStartArray();
+        }
+    }
+
+    /**
+     * Still reachable through callers of the deprecated API; routed like
+     * {@link #writeStartArray(Object, int)} so the array is tracked all the same.
+     */
+    @Deprecated
+    @Override
+    public void writeStartArray(int size) throws IOException {
+        writeStartArray(null, size);
+    }
+
+    @Override
+    public void writeStartArray(Object forValue) throws IOException {
+        if (enterContainer(true)) {
+            delegate.writeStartArray(forValue);
+        }
+    }
+
+    @Override
+    public void writeStartArray(Object forValue, int size) throws IOException {
+        if (enterContainer(true)) {
+            delegate.writeStartArray(forValue, size);
+        }
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        if (exitContainer()) {
+            delegate.writeEndArray();
+        }
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        if (suppressed > 0) {
+            return;
+        }
+        delegate.writeFieldName(name);
+        onFieldName(name);
+    }
+
+    @Override
+    public void writeFieldName(SerializableString name) throws IOException {
+        if (suppressed > 0) {
+            return;
+        }
+        delegate.writeFieldName(name);
+        onFieldName(name.getValue());
+    }
+
+    @Override
+    public void writeFieldId(long id) throws IOException {
+        writeFieldName(Long.toString(id));
+    }
+
+    @Override
+    public void writeOmittedField(String fieldName) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeOmittedField(fieldName);
+        }
+    }
+
+    // ── values ──────────────────────────────────────────────────────────────
+
+    @Override
+    public void writeArray(int[] array, int offset, int length) throws IOException {
+        if (writesValue()) {
+            delegate.writeArray(array, offset, length);
+        }
+    }
+
+    @Override
+    public void writeArray(long[] array, int offset, int length) throws IOException {
+        if (writesValue()) {
+            delegate.writeArray(array, offset, length);
+        }
+    }
+
+    @Override
+    public void writeArray(double[] array, int offset, int length) throws IOException {
+        if (writesValue()) {
+            delegate.writeArray(array, offset, length);
+        }
+    }
+
+    @Override
+    public void writeArray(String[] array, int offset, int length) throws IOException {
+        // Routed through this generator so that strings inside can be checked like any array.
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeString(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        if (writesValue()) {
+            delegate.writeString(text);
+        }
+    }
+
+    @Override
+    public void writeString(Reader reader, int len) throws IOException {
+        if (writesValue()) {
+            delegate.writeString(reader, len);
+        }
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        if (writesValue()) {
+            delegate.writeString(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeString(SerializableString text) throws IOException {
+        if (writesValue()) {
+            delegate.writeString(text);
+        }
+    }
+
+    @Override
+    public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+        if (writesValue()) {
+            delegate.writeRawUTF8String(text, offset, length);
+        }
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+        if (writesValue()) {
+            delegate.writeUTF8String(text, offset, length);
+        }
+    }
+
+    @Override
+    public void writeRaw(String text) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeRaw(text);
+        }
+    }
+
+    @Override
+    public void writeRaw(String text, int offset, int len) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeRaw(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeRaw(SerializableString raw) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeRaw(raw);
+        }
+    }
+
+    @Override
+    public void writeRaw(char[] text, int offset, int len) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeRaw(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeRaw(char c) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeRaw(c);
+        }
+    }
+
+    @Override
+    public void writeRawValue(String text) throws IOException {
+        if (writesValue()) {
+            delegate.writeRawValue(text);
+        }
+    }
+
+    @Override
+    public void writeRawValue(String text, int offset, int len) throws IOException {
+        if (writesValue()) {
+            delegate.writeRawValue(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeRawValue(char[] text, int offset, int len) throws IOException {
+        if (writesValue()) {
+            delegate.writeRawValue(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeBinary(Base64Variant b64variant, byte[] data, int offset, int len) throws IOException {
+        if (writesValue()) {
+            delegate.writeBinary(b64variant, data, offset, len);
+        }
+    }
+
+    @Override
+    public int writeBinary(Base64Variant b64variant, InputStream data, int dataLength) throws IOException {
+        if (writesValue()) {
+            return delegate.writeBinary(b64variant, data, dataLength);
+        }
+        return 0;
+    }
+
+    @Override
+    public void writeNumber(short v) throws IOException {
+        if (writesValue()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(int v) throws IOException {
+        if (writesValue()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(long v) throws IOException {
+        if (writesValue()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(BigInteger v) throws IOException {
+        if (writesValue()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(double v) throws IOException {
+        if (writesValue()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(float v) throws IOException {
+        if (writesValue()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(BigDecimal v) throws IOException {
+        if (writesValue()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(String encodedValue) throws IOException {
+        if (writesValue()) {
+            delegate.writeNumber(encodedValue);
+        }
+    }
+
+    @Override
+    public void writeNumber(char[] encodedValueBuffer, int offset, int length) throws IOException {
+        if (writesValue()) {
+            delegate.writeNumber(encodedValueBuffer, offset, length);
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean state) throws IOException {
+        if (writesValue()) {
+            delegate.writeBoolean(state);
+        }
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        if (writesValue()) {
+            delegate.writeNull();
+        }
+    }
+
+    @Override
+    public void writeEmbeddedObject(Object object) throws IOException {
+        if (writesValue()) {
+            delegate.writeEmbeddedObject(object);
+        }
+    }
+
+    @Override
+    public void writeObjectId(Object id) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeObjectId(id);
+        }
+    }
+
+    @Override
+    public void writeObjectRef(Object id) throws IOException {
+        if (writesValue()) {
+            delegate.writeObjectRef(id);
+        }
+    }
+
+    @Override
+    public void writeTypeId(Object id) throws IOException {
+        if (suppressed == 0) {
+            delegate.writeTypeId(id);
+        }
+    }
+
+    // ── state ───────────────────────────────────────────────────────────────
+
+    private void onFieldName(String name) throws IOException {
+        SensitiveFieldPlan.Node parent = nodes[depth];
+        if (plan.isSensitive(name, parent)) {
+            delegate.writeString(mask);
+            maskPending = true;
+        } else {
+            fieldNode = parent == null ? null : parent.child(name);
+        }
+    }
+
+    /**
+     * Called before a scalar value; returns whether it should be written.
+     */
+    private boolean writesValue() {
+        if (suppressed > 0) {
+            return false;
+        }
+        if (maskPending) {
+            maskPending = false;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Called before a container start; returns whether it should be written.
+     */
+    private boolean enterContainer(boolean array) {
+        if (suppressed > 0) {
+            suppressed++;
+            return false;
+        }
+        if (maskPending) {
+            maskPending = false;
+            suppressed = 1;
+            return false;
+        }
+        SensitiveFieldPlan.Node node;
+        if (depth == 0) {
+            node = root;
+        } else if (arrays[depth]) {
+            node = nodes[depth];
+        } else {
+            node = fieldNode;
+        }
+        if (++depth == nodes.length) {
+            nodes = Arrays.copyOf(nodes, depth << 1);
+            arrays = Arrays.copyOf(arrays, depth << 1);
+        }
+        nodes[depth] = node;
+        arrays[depth] = array;
+        return true;
+    }
+
+    /**
+     * Called before a container end; returns whether it should be written.
+     */
+    private boolean exitContainer() {
+        if (suppressed > 0) {
+            suppressed--;
+            return false;
+        }
+        nodes[depth] = null;
+        depth--;
+        return true;
+    }
+}
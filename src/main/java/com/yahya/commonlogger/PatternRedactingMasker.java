@@ -0,0 +1,127 @@
+package com.yahya.commonlogger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link SensitiveDataMasker} that redacts sensitive content inside string values, independent of
+ * the field name: card numbers, JWTs, e-mail addresses, phone numbers and the token after
+ * configured keywords such as {@code "Bearer "}. Catches secrets that leak through free text like
+ * {@code error} and {@code logException}.
+ * <p>
+ * Registered by {@link CommonLoggerAutoConfiguration} when
+ * {@code common.logger.redaction.enabled=true}. Detectors are compiled into a {@link ValueRedactor}
+ * once, from the {@code common.logger.redaction.*} settings at construction time.
+ * <p>
+ * Only the payload's own entries are replaced; nested maps, lists and arrays are never modified
+ * (see {@link #redact(Object, int)}). Captured arguments and results ({@link CapturedValue}) are
+ * redacted token by token as they are serialized.
+ */
+final class PatternRedactingMasker implements SensitiveDataMasker {
+
+    private static final int MAX_DEPTH = 64;
+
+    private final ValueRedactor redactor;
+
+    PatternRedactingMasker(CommonLoggerProperties.Redaction settings) {
+        this.redactor = new ValueRedactor(settings.isCardNumbers(), settings.isJwt(), settings.isEmail(),
+                settings.isPhone(), settings.getKeywords(), settings.getReplacement());
+    }
+
+    @Override
+    public void mask(Map<String, Object> payload) {
+        redactMap(payload, 0);
+    }
+
+    @Override
+    public boolean isActive() {
+        return redactor.isEnabled();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void redactMap(Map<?, ?> map, int depth) {
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            Object redacted = redact(value, depth + 1);
+            if (redacted != value) {
+                ((Map.Entry<Object, Object>) entry).setValue(redacted);
+            }
+        }
+    }
+
+    /**
+     * Returns {@code value} itself when nothing in it needs redacting, otherwise a redacted copy.
+     * Nested maps, lists and arrays belong to the caller and may be immutable, so they are copied
+     * (only along the path to a changed element) rather than modified.
+     */
+    private Object redact(Object value, int depth) {
+        if (value instanceof String text) {
+            return redactor.redact(text);
+        }
+        if (value == null || value instanceof Number || value instanceof Boolean || depth > MAX_DEPTH) {
+            return value;
+        }
+        if (value instanceof CapturedValue captured) {
+            // Created for this event only, so it is configured rather than copied.
+            captured.redact(redactor);
+            return captured;
+        }
+        if (value instanceof Map<?, ?> nested) {
+            return redactCopy(nested, depth);
+        }
+        if (value instanceof List<?> list) {
+            return redactCopy(list, depth);
+        }
+        if (value instanceof Object[] array) {
+            return redactCopy(array, depth);
+        }
+        return value;
+    }
+
+    private Map<?, ?> redactCopy(Map<?, ?> map, int depth) {
+        Map<Object, Object> copy = null;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            Object redacted = redact(value, depth + 1);
+            if (redacted != value) {
+                if (copy == null) {
+                    copy = new LinkedHashMap<>(map);
+                }
+                copy.put(entry.getKey(), redacted);
+            }
+        }
+        return copy == null ? map : copy;
+    }
+
+    private List<?> redactCopy(List<?> list, int depth) {
+        List<Object> copy = null;
+        int index = 0;
+        for (Object element : list) {
+            Object redacted = redact(element, depth + 1);
+            if (redacted != element) {
+                if (copy == null) {
+                    copy = new ArrayList<>(list);
+                }
+                copy.set(index, redacted);
+            }
+            index++;
+        }
+        return copy == null ? list : copy;
+    }
+
+    private Object[] redactCopy(Object[] array, int depth) {
+        Object[] copy = null;
+        for (int i = 0; i < array.length; i++) {
+            Object redacted = redact(array[i], depth + 1);
+            if (redacted != array[i]) {
+                if (copy == null) {
+                    copy = array.clone();
+                }
+                copy[i] = redacted;
+            }
+        }
+        return copy == null ? array : copy;
+    }
+}
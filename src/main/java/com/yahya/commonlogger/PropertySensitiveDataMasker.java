@@ -0,0 +1,70 @@
+package com.yahya.commonlogger;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Default {@link SensitiveDataMasker} driven by {@code common.logger.sensitive-fields}.
+ * <p>
+ * The configured names and dotted paths are compiled into a {@link SensitiveFieldPlan} the first
+ * time they are seen and reused for every event; the plan is rebuilt only when the property (or
+ * {@code common.logger.sensitive-fields-ignore-case}) changes, whether it is rebound or the list is
+ * modified in place.
+ * <p>
+ * With {@code common.logger.masking-mode=SERIALIZATION} this masker is inactive and the same plan
+ * is enforced by {@link MaskingJsonGenerator} instead; see {@link #serializationPlan()}.
+ */
+final class PropertySensitiveDataMasker implements SensitiveDataMasker {
+
+    static final String MASK = "***";
+
+    private final CommonLoggerProperties properties;
+    private volatile SensitiveFieldPlan plan;
+
+    PropertySensitiveDataMasker(CommonLoggerProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void mask(Map<String, Object> payload) {
+        if (properties.getMaskingMode() != CommonLoggerProperties.MaskingMode.PAYLOAD) {
+            return;
+        }
+        SensitiveFieldPlan current = currentPlan();
+        if (!current.isEmpty()) {
+            current.mask(payload, MASK);
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        return properties.getMaskingMode() == CommonLoggerProperties.MaskingMode.PAYLOAD
+                && !currentPlan().isEmpty();
+    }
+
+    /**
+     * The plan to enforce while writing JSON, or {@code null} unless
+     * {@code common.logger.masking-mode=SERIALIZATION} and sensitive fields are configured.
+     */
+    SensitiveFieldPlan serializationPlan() {
+        if (properties.getMaskingMode() != CommonLoggerProperties.MaskingMode.SERIALIZATION) {
+            return null;
+        }
+        SensitiveFieldPlan current = currentPlan();
+        return current.isEmpty() ? null : current;
+    }
+
+    /**
+     * Returns the plan for the current property values, compiling a new one if they changed.
+     */
+    SensitiveFieldPlan currentPlan() {
+        List<String> fields = properties.getSensitiveFields();
+        boolean ignoreCase = properties.isSensitiveFieldsIgnoreCase();
+        SensitiveFieldPlan current = plan;
+        if (current == null || !current.isFor(fields, ignoreCase)) {
+            current = SensitiveFieldPlan.compile(fields, ignoreCase);
+            plan = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,93 @@
+package com.yahya.commonlogger;
+
+import org.slf4j.MDC;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Times Reactor results of {@link Loggable} methods to completion for {@link LoggingAspect}.
+ * <p>
+ * Each subscription is timed from subscribe to {@code onComplete} / {@code onError}; a {@code Mono}
+ * reports its value (or {@code null} when empty), a {@code Flux} reports no value. Cancelled
+ * subscriptions are not reported. The transaction and correlation ids are read from the subscriber's
+ * {@link ContextView} under the MDC key names, falling back to the MDC of the thread that called the
+ * method, so no MDC copying happens per operator.
+ * <p>
+ * Only loaded when Reactor is on the classpath.
+ */
+final class ReactorSupport {
+
+    private ReactorSupport() {}
+
+    /**
+     * Returns {@code result} decorated to report to {@code completion}, or {@code null} when it is not
+     * a {@code Mono} or {@code Flux}.
+     */
+    static Object decorate(Object result, String transactionIdKey, String correlationIdKey,
+                           LoggingAspect.Completion completion) {
+        if (result instanceof Mono<?> mono) {
+            return decorate(mono, new Ids(transactionIdKey, correlationIdKey), completion);
+        }
+        if (result instanceof Flux<?> flux) {
+            return decorate(flux, new Ids(transactionIdKey, correlationIdKey), completion);
+        }
+        return null;
+    }
+
+    private static <T> Mono<T> decorate(Mono<T> mono, Ids ids, LoggingAspect.Completion completion) {
+        return Mono.deferContextual(context -> {
+            long start = System.nanoTime();
+            String transactionId = ids.transactionId(context);
+            String correlationId = ids.correlationId(context);
+            return mono
+                    .doOnSuccess(value -> completion.complete(System.nanoTime() - start, value, null,
+                            transactionId, correlationId))
+                    .doOnError(error -> completion.complete(System.nanoTime() - start, null, error,
+                            transactionId, correlationId));
+        });
+    }
+
+    private static <T> Flux<T> decorate(Flux<T> flux, Ids ids, LoggingAspect.Completion completion) {
+        return Flux.deferContextual(context -> {
+            long start = System.nanoTime();
+            String transactionId = ids.transactionId(context);
+            String correlationId = ids.correlationId(context);
+            return flux
+                    .doOnComplete(() -> completion.complete(System.nanoTime() - start, null, null,
+                            transactionId, correlationId))
+                    .doOnError(error -> completion.complete(System.nanoTime() - start, null, error,
+                            transactionId, correlationId));
+        });
+    }
+
+    /**
+     * Id keys plus the values found in the MDC of the calling thread at assembly time.
+     */
+    private static final class Ids {
+        private final String transactionIdKey;
+        private final String correlationIdKey;
+        private final String assemblyTransactionId;
+        private final String assemblyCorrelationId;
+
+        private Ids(String transactionIdKey, String correlationIdKey) {
+            this.transactionIdKey = transactionIdKey;
+            this.correlationIdKey = correlationIdKey;
+            this.assemblyTransactionId = MDC.get(transactionIdKey);
+            this.assemblyCorrelationId = MDC.get(correlationIdKey);
+        }
+
+        String transactionId(ContextView context) {
+            return read(context, transactionIdKey, assemblyTransactionId);
+        }
+
+        String correlationId(ContextView context) {
+            return read(context, correlationIdKey, assemblyCorrelationId);
+        }
+
+        private static String read(ContextView context, String key, String fallback) {
+            Object value = context.getOrDefault(key, null);
+            return value == null ? fallback : value.toString();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.yahya.commonlogger;
+
+import org.slf4j.Logger;
+import org.springframework.boot.logging.LogLevel;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Per-request buffer for low-level structured log events, owned by {@link CorrelationIdFilter}.
+ * <p>
+ * While a buffer is bound to the request thread, {@link LoggingAspect} and {@link StructuredLogger}
+ * hand it every event at or below {@code common.logger.request-buffer.level} instead of writing it,
+ * even if that level is disabled on the logger. Events are captured but not serialized. When the
+ * request ends, the filter either {@link #flush() flushes} the buffer, rendering and writing every
+ * event at {@code flush-level}, or discards it unrendered. ERROR events are never buffered; they are
+ * written immediately and mark the buffer for flushing.
+ * <p>
+ * A buffer keeps the most recent {@code capacity} events. Buffers are recycled through a bounded
+ * {@link Pool}, so their arrays are allocated once.
+ * <p>
+ * Not thread-safe: a buffer is only used by the thread it is bound to. Events logged on other
+ * threads (async servlet processing, executors) are written as usual.
+ */
+final class RequestLogBuffer {
+
+    private static final ThreadLocal<RequestLogBuffer> CURRENT = new ThreadLocal<>();
+
+    /** Set once a pool exists, so that emitters skip the thread-local lookup otherwise. */
+    private static volatile boolean inUse;
+
+    private final CommonLoggerProperties.RequestBuffer settings;
+    private final Logger[] loggers;
+    private final LogLevel[] levels;
+    private final Object[] payloads;
+    private final AsyncLogDispatcher.PayloadRenderer[] renderers;
+    private int next;
+    private int size;
+    private boolean errorSeen;
+
+    private RequestLogBuffer(CommonLoggerProperties.RequestBuffer settings) {
+        this.settings = settings;
+        int capacity = settings.getCapacity();
+        this.loggers = new Logger[capacity];
+        this.levels = new LogLevel[capacity];
+        this.payloads = new Object[capacity];
+        this.renderers = new AsyncLogDispatcher.PayloadRenderer[capacity];
+    }
+
+    /**
+     * Whether an event at {@code level} would be captured by the buffer bound to this thread.
+     */
+    static boolean captures(LogLevel level) {
+        if (!inUse) {
+            return false;
+        }
+        RequestLogBuffer buffer = CURRENT.get();
+        return buffer != null && buffer.accepts(level);
+    }
+
+    /**
+     * Buffers the event if a buffer is bound to this thread and accepts its level.
+     *
+     * @return {@code true} if the event was buffered; otherwise the caller writes it
+     */
+    static boolean offer(Logger logger, LogLevel level, Object payload, AsyncLogDispatcher.PayloadRenderer renderer) {
+        if (!inUse) {
+            return false;
+        }
+        RequestLogBuffer buffer = CURRENT.get();
+        if (buffer == null) {
+            return false;
+        }
+        if (level.compareTo(LogLevel.ERROR) >= 0) {
+            buffer.errorSeen = true;
+            return false;
+        }
+        if (!buffer.accepts(level)) {
+            return false;
+        }
+        buffer.add(logger, level, payload, renderer);
+        return true;
+    }
+
+    private boolean accepts(LogLevel level) {
+        return level.compareTo(settings.getLevel()) <= 0;
+    }
+
+    private void add(Logger logger, LogLevel level, Object payload, AsyncLogDispatcher.PayloadRenderer renderer) {
+        loggers[next] = logger;
+        levels[next] = level;
+        payloads[next] = payload;
+        renderers[next] = renderer;
+        next = (next + 1) % loggers.length;
+        if (size < loggers.length) {
+            size++;
+        }
+    }
+
+    void bind() {
+        CURRENT.set(this);
+    }
+
+    void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Number of events currently buffered.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Whether an ERROR event was written while this buffer was bound.
+     */
+    boolean isErrorSeen() {
+        return errorSeen;
+    }
+
+    /**
+     * Renders and writes the buffered events in order, at {@code flush-level}.
+     */
+    void flush() {
+        LogLevel flushLevel = settings.getFlushLevel();
+        int start = size < loggers.length ? 0 : next;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % loggers.length;
+            Logger logger = loggers[index];
+            if (!LogLevelSupport.isEnabled(logger, flushLevel)) {
+                continue;
+            }
+            Object message = renderers[index].render(levels[index], payloads[index]);
+            if (message != null) {
+                LogLevelSupport.log(logger, flushLevel, message);
+            }
+        }
+    }
+
+    /**
+     * Drops all events and references so the buffer can be reused.
+     */
+    private void reset() {
+        // Slots [0, size) are the only ones ever written, also after wrapping around.
+        Arrays.fill(loggers, 0, size, null);
+        Arrays.fill(levels, 0, size, null);
+        Arrays.fill(payloads, 0, size, null);
+        Arrays.fill(renderers, 0, size, null);
+        next = 0;
+        size = 0;
+        errorSeen = false;
+    }
+
+    /**
+     * Bounded pool of recycled buffers. Buffers beyond {@code pool-size} are left to the GC.
+     */
+    static final class Pool {
+
+        private final CommonLoggerProperties.RequestBuffer settings;
+        private final BlockingQueue<RequestLogBuffer> idle;
+
+        Pool(CommonLoggerProperties.RequestBuffer settings) {
+            this.settings = settings;
+            this.idle = new ArrayBlockingQueue<>(settings.getPoolSize());
+            inUse = true;
+        }
+
+        RequestLogBuffer acquire() {
+            RequestLogBuffer buffer = idle.poll();
+            return buffer != null ? buffer : new RequestLogBuffer(settings);
+        }
+
+        void release(RequestLogBuffer buffer) {
+            buffer.reset();
+            idle.offer(buffer);
+        }
+
+        /**
+         * Number of buffers waiting for reuse.
+         */
+        int idleCount() {
+            return idle.size();
+        }
+    }
+}
@@ -39,4 +39,17 @@ public interface SensitiveDataMasker {
      * @param payload the mutable log payload map
      */
     void mask(Map<String, Object> payload);
+
+    /**
+     * Whether this masker currently has anything to mask.
+     * <p>
+     * When every registered masker reports {@code false} (and no {@link StructuredLogCustomizer}
+     * is registered), {@link LoggingAspect} skips building the intermediate payload map and streams
+     * the fields directly. Custom maskers should keep the default.
+     *
+     * @return {@code true} if {@link #mask(Map)} may change the payload
+     */
+    default boolean isActive() {
+        return true;
+    }
 }
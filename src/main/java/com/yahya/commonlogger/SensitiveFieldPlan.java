@@ -0,0 +1,179 @@
+package com.yahya.commonlogger;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable lookup structure compiled from {@code common.logger.sensitive-fields}.
+ * <p>
+ * Entries without a dot (e.g. {@code password}) match a field of that name at any depth. Dotted
+ * entries (e.g. {@code request.card.number}) match only that path from the payload root and are
+ * compiled into a trie of path segments. Lists and arrays are transparent: {@code request.items.sku}
+ * matches the {@code sku} field of every element of {@code request.items}.
+ * <p>
+ * A plan is compiled once per distinct property value and shared by every event; matching a field
+ * name does not allocate.
+ */
+final class SensitiveFieldPlan {
+
+    /**
+     * Nesting limit for the payload walk, guarding against self-referencing maps.
+     */
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * Trie node for dotted paths. {@code null} is used for "no path continues here".
+     */
+    static final class Node {
+        private final Map<String, Node> children;
+        private boolean terminal;
+
+        private Node(boolean ignoreCase) {
+            this.children = ignoreCase ? new TreeMap<>(String.CASE_INSENSITIVE_ORDER) : new HashMap<>();
+        }
+
+        /**
+         * @return the node for {@code segment} below this one, or {@code null}
+         */
+        Node child(String segment) {
+            return children.isEmpty() ? null : children.get(segment);
+        }
+
+        /**
+         * @return whether the path ending at this node is sensitive
+         */
+        boolean isTerminal() {
+            return terminal;
+        }
+    }
+
+    private final List<String> source;
+    private final boolean ignoreCase;
+    private final Set<String> names;
+    private final BitSet nameLengths = new BitSet();
+    private final Node root;
+    private final boolean empty;
+
+    private SensitiveFieldPlan(List<String> source, boolean ignoreCase) {
+        this.source = new ArrayList<>(source);
+        this.ignoreCase = ignoreCase;
+        Set<String> compiledNames = ignoreCase ? new TreeSet<>(String.CASE_INSENSITIVE_ORDER) : new HashSet<>();
+        this.root = new Node(ignoreCase);
+        boolean hasPaths = false;
+        for (String field : source) {
+            if (field == null || field.isBlank()) {
+                continue;
+            }
+            String trimmed = field.trim();
+            if (trimmed.indexOf('.') < 0) {
+                compiledNames.add(trimmed);
+                nameLengths.set(trimmed.length());
+                continue;
+            }
+            Node node = root;
+            for (String segment : trimmed.split("\\.")) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                node = node.children.computeIfAbsent(segment, key -> new Node(ignoreCase));
+            }
+            node.terminal = node != root;
+            hasPaths |= node.terminal;
+        }
+        this.names = compiledNames;
+        this.empty = compiledNames.isEmpty() && !hasPaths;
+    }
+
+    static SensitiveFieldPlan compile(List<String> fields, boolean ignoreCase) {
+        return new SensitiveFieldPlan(fields, ignoreCase);
+    }
+
+    /**
+     * Whether this plan was compiled from these property values. Compares the list contents with a
+     * snapshot taken at compile time, so a list changed in place is noticed as well as a rebound one.
+     */
+    boolean isFor(List<String> fields, boolean ignoreCase) {
+        return this.ignoreCase == ignoreCase && source.equals(fields);
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Root of the path trie, to be passed to {@link #isSensitive(String, Node)} for top-level fields.
+     */
+    Node root() {
+        return root;
+    }
+
+    /**
+     * Whether a field is sensitive, either by name or because it ends a configured path.
+     *
+     * @param name   field name
+     * @param parent trie node of the enclosing object, or {@code null} if no path continues here
+     */
+    boolean isSensitive(String name, Node parent) {
+        if (nameLengths.get(name.length()) && names.contains(name)) {
+            return true;
+        }
+        if (parent == null) {
+            return false;
+        }
+        Node node = parent.child(name);
+        return node != null && node.terminal;
+    }
+
+    /**
+     * Masks matching fields of the given map in place, descending into nested maps, collections
+     * and object arrays. A {@link CapturedValue} is told to mask itself when it is serialized.
+     */
+    void mask(Map<?, ?> payload, String replacement) {
+        maskMap(payload, root, replacement, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void maskMap(Map<?, ?> map, Node node, String replacement, int depth) {
+        if (depth > MAX_DEPTH) {
+            return;
+        }
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!(entry.getKey() instanceof String key)) {
+                continue;
+            }
+            if (isSensitive(key, node)) {
+                ((Map.Entry<String, Object>) entry).setValue(replacement);
+            } else {
+                maskValue(entry.getValue(), node == null ? null : node.child(key), replacement, depth + 1);
+            }
+        }
+    }
+
+    private void maskValue(Object value, Node node, String replacement, int depth) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            // Leaf values: skip the interface checks below, which are comparatively slow to fail.
+            return;
+        }
+        if (value instanceof CapturedValue captured) {
+            captured.mask(this, node, replacement);
+        } else if (value instanceof Map<?, ?> nested) {
+            maskMap(nested, node, replacement, depth);
+        } else if (value instanceof Collection<?> collection) {
+            for (Object element : collection) {
+                maskValue(element, node, replacement, depth + 1);
+            }
+        } else if (value instanceof Object[] array) {
+            for (Object element : array) {
+                maskValue(element, node, replacement, depth + 1);
+            }
+        }
+    }
+}
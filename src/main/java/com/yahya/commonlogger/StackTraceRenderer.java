@@ -0,0 +1,251 @@
+package com.yahya.commonlogger;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renders exceptions for the {@code logException} field without re-formatting the same stack
+ * frames on every failure.
+ * <p>
+ * Each exception gets a stable fingerprint: a 64-bit hash of the class names and stack frames of
+ * the whole chain (causes and suppressed exceptions), ignoring messages. The formatted frame
+ * blocks, which dominate the cost of {@code printStackTrace}, are cached per fingerprint in a
+ * bounded LRU; only the per-level header ({@code Throwable#toString()}) is composed per event.
+ * Output follows the {@code printStackTrace} layout, including {@code Caused by:},
+ * {@code Suppressed:} and {@code ... n more}, with two optional reductions:
+ * <ul>
+ *     <li>{@code max-depth} keeps only the first frames of each level;</li>
+ *     <li>{@code excluded-frames} collapses runs of frames whose class name starts with one of the
+ *     configured prefixes (reflection and AOP by default), and of CGLIB proxy classes, into
+ *     {@code ... n filtered}.</li>
+ * </ul>
+ * In {@link CommonLoggerProperties.StackTrace.Mode#REFERENCE} mode only the first occurrence of a
+ * fingerprint is rendered in full; repeats emit the header plus the fingerprint and the time of
+ * the first occurrence. The cache size is read once at construction.
+ * <p>
+ * Thread-safe.
+ */
+final class StackTraceRenderer {
+
+    private static final int MAX_CHAIN = 32;
+    private static final String CAUSE_CAPTION = "Caused by: ";
+    private static final String SUPPRESSED_CAPTION = "Suppressed: ";
+    private static final String CGLIB_MARKER = "CGLIB$$";
+
+    /**
+     * Fingerprint and text of a rendered exception.
+     */
+    record Rendered(String fingerprint, String text) {
+    }
+
+    private final CommonLoggerProperties.StackTrace settings;
+    private final boolean cacheEnabled;
+    private final Map<Long, Entry> cache;
+
+    StackTraceRenderer(CommonLoggerProperties.StackTrace settings) {
+        this.settings = settings;
+        int cacheSize = settings.getCacheSize();
+        this.cacheEnabled = cacheSize > 0;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Renders {@code throwable}, reusing cached frame blocks for a known fingerprint.
+     */
+    Rendered render(Throwable throwable) {
+        List<Level> levels = levels(throwable);
+        long hash = fingerprint(levels);
+        String fingerprint = toHex(hash);
+        Entry entry = cacheEnabled ? cache.get(hash) : null;
+        if (entry != null && entry.blocks.length == levels.size()) {
+            if (settings.getMode() == CommonLoggerProperties.StackTrace.Mode.REFERENCE) {
+                return new Rendered(fingerprint, throwable + " [stackTrace=" + fingerprint
+                        + ", firstSeen=" + entry.firstSeen + "]");
+            }
+        } else {
+            entry = new Entry(renderBlocks(levels), Instant.now());
+            if (cacheEnabled) {
+                cache.put(hash, entry);
+            }
+        }
+        return new Rendered(fingerprint, compose(levels, entry.blocks));
+    }
+
+    /**
+     * Fingerprint of {@code throwable} as reported by {@link #render(Throwable)}, without rendering it.
+     */
+    long fingerprint(Throwable throwable) {
+        return fingerprint(levels(throwable));
+    }
+
+    /**
+     * Number of fingerprints currently cached.
+     */
+    int cachedCount() {
+        return cache.size();
+    }
+
+    // ── chain traversal ─────────────────────────────────────────────────────
+
+    /**
+     * One throwable in the chain, in {@code printStackTrace} order.
+     */
+    private record Level(Throwable throwable, StackTraceElement[] frames, StackTraceElement[] enclosing,
+                         String caption, String indent) {
+    }
+
+    private static List<Level> levels(Throwable throwable) {
+        List<Level> levels = new ArrayList<>(4);
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        collect(throwable, null, "", "", levels, seen);
+        return levels;
+    }
+
+    private static void collect(Throwable throwable, StackTraceElement[] enclosing, String caption, String indent,
+                                List<Level> levels, Set<Throwable> seen) {
+        if (levels.size() >= MAX_CHAIN || !seen.add(throwable)) {
+            return;
+        }
+        StackTraceElement[] frames = throwable.getStackTrace();
+        levels.add(new Level(throwable, frames, enclosing, caption, indent));
+        for (Throwable suppressed : throwable.getSuppressed()) {
+            collect(suppressed, frames, SUPPRESSED_CAPTION, indent + "\t", levels, seen);
+        }
+        Throwable cause = throwable.getCause();
+        if (cause != null) {
+            collect(cause, frames, CAUSE_CAPTION, indent, levels, seen);
+        }
+    }
+
+    // ── fingerprint ─────────────────────────────────────────────────────────
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static long fingerprint(List<Level> levels) {
+        long hash = FNV_OFFSET;
+        for (Level level : levels) {
+            hash = mix(hash, level.caption.hashCode());
+            hash = mix(hash, level.indent.length());
+            hash = mix(hash, level.throwable.getClass().getName().hashCode());
+            for (StackTraceElement frame : level.frames) {
+                hash = mix(hash, frame.getClassName().hashCode());
+                hash = mix(hash, frame.getMethodName().hashCode());
+                hash = mix(hash, frame.getLineNumber());
+            }
+            hash = mix(hash, level.frames.length);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    static String toHex(long hash) {
+        String hex = Long.toHexString(hash);
+        return hex.length() == 16 ? hex : "0".repeat(16 - hex.length()) + hex;
+    }
+
+    // ── rendering ───────────────────────────────────────────────────────────
+
+    private String[] renderBlocks(List<Level> levels) {
+        String[] blocks = new String[levels.size()];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = renderFrames(levels.get(i));
+        }
+        return blocks;
+    }
+
+    /**
+     * Formats the frames of one level, everything after its header line.
+     */
+    private String renderFrames(Level level) {
+        StackTraceElement[] frames = level.frames;
+        int unique = frames.length;
+        if (level.enclosing != null) {
+            int m = unique - 1;
+            int n = level.enclosing.length - 1;
+            while (m >= 0 && n >= 0 && frames[m].equals(level.enclosing[n])) {
+                m--;
+                n--;
+            }
+            unique = m + 1;
+        }
+        int maxDepth = settings.getMaxDepth();
+        int limit = maxDepth > 0 ? Math.min(unique, maxDepth) : unique;
+        List<String> excluded = settings.getExcludedFrames();
+
+        StringBuilder out = new StringBuilder(limit * 64);
+        int filtered = 0;
+        for (int i = 0; i < limit; i++) {
+            StackTraceElement frame = frames[i];
+            if (isExcluded(frame.getClassName(), excluded)) {
+                filtered++;
+                continue;
+            }
+            appendFiltered(out, level.indent, filtered);
+            filtered = 0;
+            out.append(level.indent).append("\tat ").append(frame).append(System.lineSeparator());
+        }
+        appendFiltered(out, level.indent, filtered);
+        if (limit < unique) {
+            out.append(level.indent).append("\t... ").append(unique - limit).append(" omitted")
+                    .append(System.lineSeparator());
+        }
+        if (unique < frames.length) {
+            out.append(level.indent).append("\t... ").append(frames.length - unique).append(" more")
+                    .append(System.lineSeparator());
+        }
+        return out.toString();
+    }
+
+    private static void appendFiltered(StringBuilder out, String indent, int filtered) {
+        if (filtered > 0) {
+            out.append(indent).append("\t... ").append(filtered).append(" filtered").append(System.lineSeparator());
+        }
+    }
+
+    private static boolean isExcluded(String className, List<String> excluded) {
+        if (excluded.isEmpty()) {
+            return false;
+        }
+        if (className.contains(CGLIB_MARKER)) {
+            return true;
+        }
+        for (String prefix : excluded) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String compose(List<Level> levels, String[] blocks) {
+        int length = 0;
+        for (String block : blocks) {
+            length += block.length() + 128;
+        }
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < blocks.length; i++) {
+            Level level = levels.get(i);
+            out.append(level.indent).append(level.caption).append(level.throwable).append(System.lineSeparator())
+                    .append(blocks[i]);
+        }
+        return out.toString();
+    }
+
+    private record Entry(String[] blocks, Instant firstSeen) {
+    }
+}
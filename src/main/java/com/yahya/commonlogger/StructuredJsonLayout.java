@@ -0,0 +1,121 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.layout.AbstractStringLayout;
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.util.StringBuilderFormattable;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * Log4j2 layout writing every event as one line of JSON, the counterpart of
+ * {@link StructuredLogEncoder}.
+ * <p>
+ * Events carrying a {@link StructuredLogMessage} (or Log4j2's reused copy of one) are already JSON
+ * and are formatted straight into the layout's per-thread {@link StringBuilder} and encoded into
+ * the appender's buffer, so the path allocates nothing in steady state. Other events are written as
+ * {@code logLevel}, {@code logTimestamp}, {@code logger}, {@code thread}, {@code logMessage} and,
+ * with a throwable, {@code logException}.
+ * <pre>
+ * {@code
+ * <File name="json" fileName="logs/app.log">
+ *     <StructuredJsonLayout/>
+ * </File>
+ * }
+ * </pre>
+ */
+@Plugin(name = "StructuredJsonLayout", category = Node.CATEGORY, elementType = Layout.ELEMENT_TYPE, printObject = true)
+public final class StructuredJsonLayout extends AbstractStringLayout {
+
+    private static final ObjectMapper PLAIN_MAPPER = new ObjectMapper();
+
+    private final LogTimestampFormatter timestamps =
+            new LogTimestampFormatter(CommonLoggerProperties.TimestampFormat.ISO_OFFSET);
+    private final ThreadLocal<StructuredLogMessage.Target> targets =
+            ThreadLocal.withInitial(StructuredLogMessage.Target::new);
+
+    private StructuredJsonLayout(Charset charset) {
+        super(charset);
+    }
+
+    @PluginFactory
+    public static StructuredJsonLayout createLayout(
+            @PluginAttribute(value = "charset", defaultString = "UTF-8") Charset charset) {
+        return new StructuredJsonLayout(charset);
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/json; charset=" + getCharset();
+    }
+
+    @Override
+    public String toSerializable(LogEvent event) {
+        return format(event, getStringBuilder()).toString();
+    }
+
+    @Override
+    public void encode(LogEvent event, ByteBufferDestination destination) {
+        StringBuilder text = format(event, getStringBuilder());
+        getStringBuilderEncoder().encode(text, destination);
+        trimToMaxSize(text);
+    }
+
+    private StringBuilder format(LogEvent event, StringBuilder text) {
+        Message message = event.getMessage();
+        if (StructuredLogMessage.FORMAT.equals(message.getFormat())) {
+            if (message instanceof StringBuilderFormattable formattable) {
+                formattable.formatTo(text);
+            } else {
+                text.append(message.getFormattedMessage());
+            }
+        } else {
+            formatPlain(event, message, text);
+        }
+        return text.append('\n');
+    }
+
+    private void formatPlain(LogEvent event, Message message, StringBuilder text) {
+        StructuredLogMessage.Target target = targets.get();
+        int start = text.length();
+        try {
+            target.open(PLAIN_MAPPER, text);
+            JsonGenerator gen = target.generator(null, null);
+            gen.writeStartObject();
+            gen.writeStringField("logLevel", event.getLevel().name().toLowerCase(Locale.ROOT));
+            gen.writeFieldName("logTimestamp");
+            timestamps.write(gen, event.getTimeMillis());
+            gen.writeStringField("logger", event.getLoggerName());
+            gen.writeStringField("thread", event.getThreadName());
+            gen.writeStringField("logMessage", message.getFormattedMessage());
+            Throwable thrown = event.getThrown();
+            if (thrown != null) {
+                gen.writeStringField("logException", stackTrace(thrown));
+            }
+            gen.writeEndObject();
+            target.finish();
+        } catch (IOException | RuntimeException ex) {
+            target.discard();
+            text.setLength(start);
+            text.append("{\"error\":\"log serialization failed\"}");
+        }
+    }
+
+    private static String stackTrace(Throwable thrown) {
+        StringWriter out = new StringWriter();
+        thrown.printStackTrace(new PrintWriter(out));
+        return out.toString();
+    }
+}
@@ -0,0 +1,272 @@
+package com.yahya.commonlogger;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.event.KeyValuePair;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Logback {@link ch.qos.logback.core.encoder.Encoder} that writes every event as one line of
+ * UTF-8 JSON.
+ * <p>
+ * Events logged with {@code common.logger.structured-arguments=true} carry a
+ * {@link StructuredLogEvent}; its payload is serialized by a per-thread UTF-8 generator straight
+ * into a reused byte buffer, so no JSON {@link String} is built and no layout re-processes it.
+ * Other events are written as {@code logLevel}, {@code logTimestamp}, {@code logger},
+ * {@code thread}, {@code logMessage} and, with a throwable, {@code logException}.
+ * <p>
+ * MDC entries and SLF4J 2 key-value pairs are added as top-level fields of the object, unless the
+ * payload already has a field of that name. Disable them with {@code includeMdc} /
+ * {@code includeKeyValuePairs}:
+ * <pre>
+ * {@code
+ * <appender name="JSON" class="ch.qos.logback.core.ConsoleAppender">
+ *     <encoder class="com.yahya.commonlogger.StructuredLogEncoder">
+ *         <includeMdc>true</includeMdc>
+ *     </encoder>
+ * </appender>
+ * }
+ * </pre>
+ * Thread-safe.
+ */
+public class StructuredLogEncoder extends EncoderBase<ILoggingEvent> {
+
+    /**
+     * Outputs that grew beyond this many bytes are dropped after use, like
+     * {@link JsonPayloadEncoder}'s buffers.
+     */
+    private static final int MAX_RETAINED_BYTES = 64 * 1024;
+
+    private static final byte[] LINE_SEPARATOR = {'\n'};
+
+    private static final ObjectMapper PLAIN_MAPPER = new ObjectMapper();
+
+    private final LogTimestampFormatter timestamps =
+            new LogTimestampFormatter(CommonLoggerProperties.TimestampFormat.ISO_OFFSET);
+    private final ThreadLocal<Output> outputs = ThreadLocal.withInitial(Output::new);
+    private boolean includeMdc = true;
+    private boolean includeKeyValuePairs = true;
+
+    public boolean isIncludeMdc() {
+        return includeMdc;
+    }
+
+    public void setIncludeMdc(boolean includeMdc) {
+        this.includeMdc = includeMdc;
+    }
+
+    public boolean isIncludeKeyValuePairs() {
+        return includeKeyValuePairs;
+    }
+
+    public void setIncludeKeyValuePairs(boolean includeKeyValuePairs) {
+        this.includeKeyValuePairs = includeKeyValuePairs;
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        StructuredLogEvent structured = structuredEvent(event);
+        Output output = outputs.get();
+        try {
+            output.open(structured != null ? structured.objectMapper() : PLAIN_MAPPER,
+                    includeMdc ? event.getMDCPropertyMap() : null,
+                    includeKeyValuePairs ? event.getKeyValuePairs() : null);
+            if (structured != null) {
+                structured.writeTo(output);
+            } else {
+                writePlain(event, output.generator(null, null));
+            }
+            return output.finish();
+        } catch (IOException | RuntimeException ex) {
+            outputs.remove();
+            addError("Failed to encode structured log event", ex);
+            return (event.getFormattedMessage() + '\n').getBytes(StandardCharsets.UTF_8);
+        } finally {
+            if (output.bytes.getCurrentSegment().length > MAX_RETAINED_BYTES) {
+                outputs.remove();
+            }
+        }
+    }
+
+    private static StructuredLogEvent structuredEvent(ILoggingEvent event) {
+        Object[] arguments = event.getArgumentArray();
+        if (arguments != null && arguments.length == 1 && arguments[0] instanceof StructuredLogEvent structured) {
+            return structured;
+        }
+        return null;
+    }
+
+    private void writePlain(ILoggingEvent event, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("logLevel", levelName(event.getLevel()));
+        gen.writeFieldName("logTimestamp");
+        timestamps.write(gen, event.getTimeStamp());
+        gen.writeStringField("logger", event.getLoggerName());
+        gen.writeStringField("thread", event.getThreadName());
+        gen.writeStringField("logMessage", event.getFormattedMessage());
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            gen.writeStringField("logException", ThrowableProxyUtil.asString(throwable));
+        }
+        gen.writeEndObject();
+    }
+
+    private static String levelName(Level level) {
+        return switch (level.toInt()) {
+            case Level.TRACE_INT -> "trace";
+            case Level.DEBUG_INT -> "debug";
+            case Level.WARN_INT -> "warn";
+            case Level.ERROR_INT -> "error";
+            default -> "info";
+        };
+    }
+
+    /**
+     * Per-thread UTF-8 generator over a reused byte buffer. Rebuilt when an event comes from an
+     * emitter with a different {@link ObjectMapper}.
+     */
+    private static final class Output implements JsonPayloadEncoder.Output {
+        private final ByteArrayBuilder bytes = new ByteArrayBuilder(1024);
+        private ObjectMapper objectMapper;
+        private ContextFields generator;
+        private MaskingJsonGenerator maskingGenerator;
+
+        void open(ObjectMapper objectMapper, Map<String, String> mdc, List<KeyValuePair> keyValuePairs)
+                throws IOException {
+            if (this.objectMapper != objectMapper) {
+                JsonGenerator utf8 = objectMapper.createGenerator(bytes, JsonEncoding.UTF8);
+                // Every event is a separate root value; the line separator is written explicitly.
+                utf8.setRootValueSeparator(null);
+                this.objectMapper = objectMapper;
+                this.generator = new ContextFields(utf8);
+                this.maskingGenerator = null;
+            }
+            bytes.reset();
+            generator.reset(mdc, keyValuePairs);
+        }
+
+        @Override
+        public JsonGenerator generator(SensitiveFieldPlan plan, String mask) {
+            if (plan == null || plan.isEmpty()) {
+                return generator;
+            }
+            if (maskingGenerator == null) {
+                maskingGenerator = new MaskingJsonGenerator(generator);
+            }
+            return maskingGenerator.reset(plan, mask);
+        }
+
+        byte[] finish() throws IOException {
+            generator.flush();
+            bytes.write(LINE_SEPARATOR);
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Appends MDC entries and key-value pairs to every top-level object, skipping names the object
+     * already wrote.
+     */
+    private static final class ContextFields extends JsonGeneratorDelegate {
+        private final Set<String> written = new HashSet<>();
+        private Map<String, String> mdc;
+        private List<KeyValuePair> keyValuePairs;
+
+        ContextFields(JsonGenerator delegate) {
+            super(delegate, false);
+        }
+
+        void reset(Map<String, String> mdc, List<KeyValuePair> keyValuePairs) {
+            this.mdc = mdc;
+            this.keyValuePairs = keyValuePairs;
+            this.written.clear();
+        }
+
+        @Override
+        public void writeFieldName(String name) throws IOException {
+            if (inTopLevelObject()) {
+                written.add(name);
+            }
+            delegate.writeFieldName(name);
+        }
+
+        @Override
+        public void writeFieldName(SerializableString name) throws IOException {
+            if (inTopLevelObject()) {
+                written.add(name.getValue());
+            }
+            delegate.writeFieldName(name);
+        }
+
+        @Override
+        public void writeEndObject() throws IOException {
+            if (inTopLevelObject()) {
+                writeContext();
+                written.clear();
+            }
+            delegate.writeEndObject();
+        }
+
+        private boolean inTopLevelObject() {
+            JsonStreamContext context = delegate.getOutputContext();
+            return context.inObject() && context.getParent() != null && context.getParent().inRoot();
+        }
+
+        private void writeContext() throws IOException {
+            if (mdc != null) {
+                for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                    if (written.add(entry.getKey())) {
+                        delegate.writeStringField(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            if (keyValuePairs != null) {
+                for (KeyValuePair pair : keyValuePairs) {
+                    if (pair.key != null && written.add(pair.key)) {
+                        delegate.writeFieldName(pair.key);
+                        writeValue(pair.value);
+                    }
+                }
+            }
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                delegate.writeNull();
+            } else if (value instanceof Boolean bool) {
+                delegate.writeBoolean(bool);
+            } else if (value instanceof Integer || value instanceof Long
+                    || value instanceof Short || value instanceof Byte) {
+                delegate.writeNumber(((Number) value).longValue());
+            } else {
+                delegate.writeString(String.valueOf(value));
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.logging.LogLevel;
+
+import java.io.IOException;
+
+/**
+ * A captured payload handed to SLF4J as the single argument of {@code "{}"} when
+ * {@code common.logger.structured-arguments=true}.
+ * <p>
+ * {@link StructuredLogEncoder} recognizes it and writes the payload straight to UTF-8 bytes,
+ * without the intermediate JSON {@link String}. Every other appender or layout formats the
+ * message through {@link #toString()}, which renders the same JSON line the emitters would
+ * otherwise have logged, once per event.
+ * <p>
+ * The payload is referenced, not copied, so the emitter must not reuse it after logging.
+ */
+public final class StructuredLogEvent {
+
+    /**
+     * Writes a payload of one emitter through an {@link JsonPayloadEncoder.Output}.
+     */
+    @FunctionalInterface
+    interface Writer {
+        void write(LogLevel level, Object payload, JsonPayloadEncoder.Output output) throws IOException;
+    }
+
+    private final LogLevel level;
+    private final Object payload;
+    private final Writer writer;
+    private final JsonPayloadEncoder encoder;
+    private String rendered;
+
+    StructuredLogEvent(LogLevel level, Object payload, Writer writer, JsonPayloadEncoder encoder) {
+        this.level = level;
+        this.payload = payload;
+        this.writer = writer;
+        this.encoder = encoder;
+    }
+
+    /**
+     * Level the event was captured at.
+     */
+    public LogLevel level() {
+        return level;
+    }
+
+    ObjectMapper objectMapper() {
+        return encoder.objectMapper();
+    }
+
+    void writeTo(JsonPayloadEncoder.Output output) throws IOException {
+        writer.write(level, payload, output);
+    }
+
+    /**
+     * The JSON line, rendered on first use through the calling thread's {@link JsonPayloadEncoder}
+     * buffer.
+     */
+    @Override
+    public String toString() {
+        String json = rendered;
+        if (json == null) {
+            json = render();
+            rendered = json;
+        }
+        return json;
+    }
+
+    private String render() {
+        JsonPayloadEncoder.Buffer buffer = null;
+        try {
+            buffer = encoder.acquire();
+            writer.write(level, payload, buffer);
+            return buffer.finish();
+        } catch (IOException | RuntimeException ex) {
+            if (buffer != null) {
+                buffer.discard();
+            }
+            return failedPayload(level);
+        } finally {
+            if (buffer != null) {
+                encoder.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Written in place of a payload that could not be serialized.
+     */
+    static String failedPayload(LogLevel level) {
+        return "{\"logLevel\":\"" + LogLevelSupport.name(level) + "\",\"error\":\"log serialization failed\"}";
+    }
+}
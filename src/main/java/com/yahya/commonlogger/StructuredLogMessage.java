@@ -0,0 +1,260 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ReusableMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.springframework.boot.logging.LogLevel;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A captured payload logged through the Log4j2 API as a per-thread, reused {@link ReusableMessage}
+ * when {@code common.logger.reusable-messages=true}.
+ * <p>
+ * {@link #formatTo(StringBuilder)} writes the JSON straight into Log4j2's buffer through a
+ * per-thread generator, so with Log4j2's garbage-free mode and {@link StructuredJsonLayout} no
+ * {@link String} is built for the event. Log4j2 copies reusable messages before handing them to
+ * another thread (async loggers and appenders), which is what makes reusing one instance per
+ * thread safe. Re-entrant use on the same thread (a serializer that itself logs) falls back to a
+ * throwaway instance.
+ * <p>
+ * Requires {@code log4j-api}; with {@code log4j-to-slf4j} the message is formatted once and passed
+ * on to SLF4J like any other.
+ */
+public final class StructuredLogMessage implements ReusableMessage {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * {@link #getFormat()} of every structured message, kept by Log4j2 when it copies the message
+     * into a reused event; {@link StructuredJsonLayout} uses it to recognize the JSON text.
+     */
+    static final String FORMAT = "common-logger:structured";
+
+    private static final Object[] NO_PARAMETERS = {};
+
+    private static final ThreadLocal<StructuredLogMessage> MESSAGES = ThreadLocal.withInitial(StructuredLogMessage::new);
+
+    private static final ConcurrentMap<String, org.apache.logging.log4j.Logger> LOGGERS = new ConcurrentHashMap<>();
+
+    private final transient Target target = new Target();
+    private transient LogLevel level;
+    private transient Object payload;
+    private transient StructuredLogEvent.Writer writer;
+    private transient ObjectMapper objectMapper;
+    private transient boolean inUse;
+
+    private StructuredLogMessage() {
+    }
+
+    /**
+     * Returns the calling thread's message holding {@code payload}, or a fresh one if it is already
+     * being logged. {@link #log(org.slf4j.Logger, LogLevel)} or {@link #release()} hands it back.
+     */
+    static StructuredLogMessage acquire(LogLevel level, Object payload, StructuredLogEvent.Writer writer,
+                                        ObjectMapper objectMapper) {
+        StructuredLogMessage message = MESSAGES.get();
+        if (message.inUse) {
+            message = new StructuredLogMessage();
+        }
+        message.inUse = true;
+        message.level = level;
+        message.payload = payload;
+        message.writer = writer;
+        message.objectMapper = objectMapper;
+        return message;
+    }
+
+    /**
+     * Logs this message at {@code level} through the Log4j2 logger named like {@code logger}, then
+     * drops the payload so the message can be reused.
+     */
+    void log(org.slf4j.Logger logger, LogLevel level) {
+        try {
+            log4jLogger(logger.getName()).log(log4jLevel(level), this);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Drops the payload and hands the message back to the calling thread.
+     */
+    void release() {
+        payload = null;
+        writer = null;
+        inUse = false;
+    }
+
+    @Override
+    public void formatTo(StringBuilder buffer) {
+        if (writer == null) {
+            return;
+        }
+        int start = buffer.length();
+        try {
+            target.open(objectMapper, buffer);
+            writer.write(level, payload, target);
+            target.finish();
+        } catch (IOException | RuntimeException ex) {
+            target.discard();
+            buffer.setLength(start);
+            buffer.append(StructuredLogEvent.failedPayload(level));
+        }
+    }
+
+    @Override
+    public String getFormattedMessage() {
+        StringBuilder buffer = new StringBuilder(256);
+        formatTo(buffer);
+        return buffer.toString();
+    }
+
+    @Override
+    public String getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public Object[] getParameters() {
+        return NO_PARAMETERS;
+    }
+
+    @Override
+    public Throwable getThrowable() {
+        return null;
+    }
+
+    @Override
+    public Object[] swapParameters(Object[] emptyReplacement) {
+        return emptyReplacement;
+    }
+
+    @Override
+    public short getParameterCount() {
+        return 0;
+    }
+
+    @Override
+    public Message memento() {
+        return new Rendered(getFormattedMessage());
+    }
+
+    @Override
+    public String toString() {
+        return getFormattedMessage();
+    }
+
+    private static org.apache.logging.log4j.Logger log4jLogger(String name) {
+        org.apache.logging.log4j.Logger logger = LOGGERS.get(name);
+        if (logger == null) {
+            logger = LOGGERS.computeIfAbsent(name, LogManager::getLogger);
+        }
+        return logger;
+    }
+
+    private static Level log4jLevel(LogLevel level) {
+        return switch (level) {
+            case TRACE -> Level.TRACE;
+            case DEBUG -> Level.DEBUG;
+            case WARN -> Level.WARN;
+            case ERROR, FATAL -> Level.ERROR;
+            default -> Level.INFO;
+        };
+    }
+
+    /**
+     * Immutable copy of a formatted message, keeping {@link #FORMAT}.
+     */
+    private static final class Rendered extends SimpleMessage {
+
+        private static final long serialVersionUID = 1L;
+
+        Rendered(String json) {
+            super(json);
+        }
+
+        @Override
+        public String getFormat() {
+            return FORMAT;
+        }
+    }
+
+    /**
+     * Per-thread generator writing into whichever {@link StringBuilder} Log4j2 passes in. Rebuilt
+     * when the {@link ObjectMapper} changes or after a failed write.
+     */
+    static final class Target extends Writer implements JsonPayloadEncoder.Output {
+        private StringBuilder buffer;
+        private ObjectMapper objectMapper;
+        private JsonGenerator generator;
+        private MaskingJsonGenerator maskingGenerator;
+
+        void open(ObjectMapper objectMapper, StringBuilder buffer) throws IOException {
+            if (generator == null || this.objectMapper != objectMapper) {
+                generator = objectMapper.createGenerator(this);
+                // Every payload is a separate root value; no separator between them.
+                generator.setRootValueSeparator(null);
+                maskingGenerator = null;
+                this.objectMapper = objectMapper;
+            }
+            this.buffer = buffer;
+        }
+
+        @Override
+        public JsonGenerator generator(SensitiveFieldPlan plan, String mask) {
+            if (plan == null || plan.isEmpty()) {
+                return generator;
+            }
+            if (maskingGenerator == null) {
+                maskingGenerator = new MaskingJsonGenerator(generator);
+            }
+            return maskingGenerator.reset(plan, mask);
+        }
+
+        void finish() throws IOException {
+            generator.flush();
+            buffer = null;
+        }
+
+        /**
+         * Drops the generator after a write failed half way.
+         */
+        void discard() {
+            generator = null;
+            buffer = null;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            buffer.append(cbuf, off, len);
+        }
+
+        @Override
+        public void write(int c) {
+            buffer.append((char) c);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            buffer.append(str, off, off + len);
+        }
+
+        @Override
+        public void flush() {
+            // nothing buffered beyond the generator
+        }
+
+        @Override
+        public void close() {
+            // reused across payloads
+        }
+    }
+}
@@ -1,177 +1,573 @@
 package com.yahya.commonlogger;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.logging.LogLevel;
 
-import java.io.StringWriter;
-import java.time.Instant;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * A service for manually creating structured JSON logs.
  * Provides a thread-safe, fluent builder API for constructing and writing logs.
+ * <p>
+ * With {@code common.logger.async.enabled=true}, finished payloads are handed to an
+ * {@link AsyncLogDispatcher} and serialized and written on its consumer thread. Within a request
+ * buffered by {@link CorrelationIdFilter}, low-level events go to its {@link RequestLogBuffer}.
+ * <p>
+ * Instead of measuring durations by hand, call {@link StructuredLogBuilder#startTimer()} and finish
+ * with {@link StructuredLogBuilder#onSuccess(Object)} or {@link StructuredLogBuilder#onFailure(Throwable)}:
+ * the elapsed time is measured with {@link System#nanoTime()} and written in
+ * {@code common.logger.process-time-unit}.
+ * <p>
+ * When the level is known up front, start with {@link #atInfo()} (or {@link #at(LogLevel)} and its
+ * siblings): if the level is disabled, a shared no-op builder is returned and nothing is allocated,
+ * put or serialized for the event. Values that are expensive to compute can be passed as a
+ * {@link Supplier} to {@link StructuredLogBuilder#withField(String, Supplier)}; they are only
+ * evaluated once the event is known to be written. The primitive {@code withField} overloads do not
+ * box: the payload keeps such fields unboxed and writes them straight to the JSON generator.
+ * <p>
+ * With {@code common.logger.pooled-builders=true}, {@link #newLog()} and the {@code at*} methods hand
+ * out one builder per thread, and its payload map, again after the previous event finished. Such a
+ * builder belongs to the thread that obtained it until {@code onSuccess} / {@code onFailure}
+ * returns. Using it from another thread, or after that while it is back in the pool, throws
+ * {@link IllegalStateException}; once the same thread has obtained it again for a new event, a
+ * stale reference cannot be told apart and silently writes into that event, so references must not
+ * be kept past {@code onSuccess} / {@code onFailure}. A second builder requested on the same thread while the first is still open is allocated as usual,
+ * and a payload kept by the request buffer or the async dispatcher is left to them and replaced.
  */
 public class StructuredLogger {
 
     private static final Logger log = LoggerFactory.getLogger(StructuredLogger.class);
+
+    /**
+     * Diagnostics about the events themselves, kept off {@link #log} (and its children) so they do
+     * not show up as additional events next to the structured ones.
+     */
+    private static final Logger internalLog = LoggerFactory.getLogger("com.yahya.commonlogger.internal");
+
+    /**
+     * Pooled payload maps that grew beyond this many fields are replaced rather than cleared, so one
+     * large event does not pin a large table for the lifetime of the thread.
+     */
+    private static final int MAX_POOLED_FIELDS = 64;
+
     private final CommonLoggerProperties properties;
-    private final ObjectMapper objectMapper;
+    private final JsonPayloadEncoder encoder;
+    private final PropertySensitiveDataMasker serializationMasking;
+    private final StackTraceRenderer stackTraceRenderer;
+    private final LogTimestampFormatter timestamps;
     private final List<SensitiveDataMasker> maskers;
+    private final AsyncLogDispatcher asyncDispatcher;
+    private final AsyncLogDispatcher.PayloadRenderer renderer;
+    private final AsyncLogDispatcher.PayloadRenderer linesRenderer;
+    private final StructuredLogBuilder disabledBuilder = new DisabledLogBuilder();
+    private final ThreadLocal<StructuredLogBuilder> builderPool;
 
     public StructuredLogger(CommonLoggerProperties properties,
                             ObjectMapper objectMapper,
                             List<SensitiveDataMasker> maskers) {
+        this(properties, objectMapper, maskers, null);
+    }
+
+    /**
+     * @param asyncDispatcher when non-null, payloads are serialized and written on the dispatcher's
+     *                        consumer thread instead of the calling thread
+     */
+    public StructuredLogger(CommonLoggerProperties properties,
+                            ObjectMapper objectMapper,
+                            List<SensitiveDataMasker> maskers,
+                            AsyncLogDispatcher asyncDispatcher) {
         this.properties = properties;
-        this.objectMapper = objectMapper;
+        this.encoder = new JsonPayloadEncoder(objectMapper);
+        this.serializationMasking = new PropertySensitiveDataMasker(properties);
+        this.stackTraceRenderer = new StackTraceRenderer(properties.getStackTrace());
+        this.timestamps = new LogTimestampFormatter(properties.getTimestampFormat());
         this.maskers = maskers == null ? Collections.emptyList() : maskers;
+        this.asyncDispatcher = asyncDispatcher;
+        this.builderPool = properties.isPooledBuilders()
+                ? ThreadLocal.withInitial(() -> new StructuredLogBuilder(true))
+                : null;
+        StructuredLogEvent.Writer writer = this::write;
+        StructuredLogEvent.Writer linesWriter = this::writeLines;
+        if (properties.isReusableMessages()) {
+            this.renderer = (level, payload) -> StructuredLogMessage.acquire(level, payload, writer, objectMapper);
+            this.linesRenderer = (level, payload) -> StructuredLogMessage.acquire(level, payload, linesWriter, objectMapper);
+        } else if (properties.isStructuredArguments()) {
+            this.renderer = (level, payload) -> new StructuredLogEvent(level, payload, writer, encoder);
+            this.linesRenderer = (level, payload) -> new StructuredLogEvent(level, payload, linesWriter, encoder);
+        } else {
+            this.renderer = this::render;
+            this.linesRenderer = this::renderLines;
+        }
     }
 
     /**
-     * Creates a new, thread-safe log builder instance.
+     * Creates a new log builder instance, or reuses the calling thread's one with
+     * {@code common.logger.pooled-builders=true}.
      * @return A new instance of StructuredLogBuilder.
      */
     public StructuredLogBuilder newLog() {
-        return new StructuredLogBuilder();
+        return builder(properties.getLogLevel(), LogLevel.ERROR);
+    }
+
+    /**
+     * Creates a builder whose success and failure events are both written at {@code level}, or
+     * returns a shared no-op builder when {@code level} is disabled (and not captured by a request
+     * buffer). Use {@link #newLog()} when the failure level has to differ from the success level.
+     */
+    public StructuredLogBuilder at(LogLevel level) {
+        if (level == null || !isEnabled(level)) {
+            return disabledBuilder;
+        }
+        return builder(level, level);
+    }
+
+    public StructuredLogBuilder atTrace() {
+        return at(LogLevel.TRACE);
+    }
+
+    public StructuredLogBuilder atDebug() {
+        return at(LogLevel.DEBUG);
+    }
+
+    public StructuredLogBuilder atInfo() {
+        return at(LogLevel.INFO);
+    }
+
+    public StructuredLogBuilder atWarn() {
+        return at(LogLevel.WARN);
+    }
+
+    public StructuredLogBuilder atError() {
+        return at(LogLevel.ERROR);
+    }
+
+    /**
+     * Starts a batch in {@code common.logger.batch.mode}.
+     */
+    public StructuredLogBatch batch() {
+        return new StructuredLogBatch(properties.getBatch().getMode());
+    }
+
+    /**
+     * Starts a batch that writes its events as one block ({@code EVENTS}) or as one aggregate
+     * event ({@code SUMMARY}) when flushed.
+     */
+    public StructuredLogBatch batch(CommonLoggerProperties.BatchMode mode) {
+        return new StructuredLogBatch(mode == null ? CommonLoggerProperties.BatchMode.EVENTS : mode);
+    }
+
+    private StructuredLogBuilder builder(LogLevel successLevel, LogLevel errorLevel) {
+        if (builderPool != null) {
+            StructuredLogBuilder pooled = builderPool.get();
+            if (pooled.owner == null) {
+                return pooled.open(successLevel, errorLevel);
+            }
+        }
+        return new StructuredLogBuilder(false).open(successLevel, errorLevel);
+    }
+
+    private static boolean isEnabled(LogLevel level) {
+        return LogLevelSupport.isEnabled(log, level) || RequestLogBuffer.captures(level);
+    }
+
+    /**
+     * Resolves lazy fields and adds {@code logLevel} and {@code logTimestamp}.
+     */
+    private void prepare(LogLevel level, Map<String, Object> payload, boolean lazyFields) {
+        if (lazyFields) {
+            resolveLazyFields(payload);
+        }
+        payload.put("logLevel", LogLevelSupport.name(level));
+        payload.put("logTimestamp", timestamps.value(timestamps.now()));
+    }
+
+    private static void resolveLazyFields(Map<String, Object> payload) {
+        for (Map.Entry<String, Object> entry : payload.entrySet()) {
+            if (entry.getValue() instanceof LazyField lazy) {
+                try {
+                    entry.setValue(lazy.value().get());
+                } catch (RuntimeException e) {
+                    internalLog.warn("Lazy field [{}] failed: {}", entry.getKey(), e.getMessage());
+                    entry.setValue(null);
+                }
+            }
+        }
+    }
+
+    private void applyMaskers(Map<String, Object> payload) {
+        if (maskers.isEmpty()) {
+            return;
+        }
+        if (payload instanceof StructuredPayload structured) {
+            structured.promotePrimitives();
+        }
+        for (SensitiveDataMasker masker : maskers) {
+            try {
+                masker.mask(payload);
+            } catch (Exception e) {
+                log.warn("SensitiveDataMasker [{}] failed: {}", masker.getClass().getName(), e.getMessage());
+            }
+        }
+    }
+
+    private static void putLogMessage(Map<String, Object> payload) {
+        if (payload.get("logMessage") == null) {
+            payload.put("logMessage", payload.containsKey("apiId")
+                    ? payload.get("apiId") + " completed"
+                    : "Structured log");
+        }
+    }
+
+    /**
+     * Writes, buffers or queues a finished payload.
+     *
+     * @return whether {@code payload} is still referenced afterwards (request buffer, async queue
+     *         or a {@link StructuredLogEvent} kept by the logging backend)
+     */
+    private boolean emit(LogLevel level, Object payload, AsyncLogDispatcher.PayloadRenderer payloadRenderer) {
+        if (RequestLogBuffer.offer(log, level, payload, payloadRenderer)) {
+            return true;
+        }
+        if (asyncDispatcher != null) {
+            asyncDispatcher.dispatch(log, level, payload, payloadRenderer);
+            return true;
+        }
+        Object message = payloadRenderer.render(level, payload);
+        if (message != null) {
+            LogLevelSupport.log(log, level, message);
+        }
+        return message instanceof StructuredLogEvent;
+    }
+
+    private String render(LogLevel level, Object payload) {
+        try {
+            return encoder.encode(payload, serializationMasking.serializationPlan(), PropertySensitiveDataMasker.MASK);
+        } catch (Exception e) {
+            // Fallback to basic logging if JSON serialization fails
+            log.error("Failed to serialize structured log payload", e);
+            return null;
+        }
+    }
+
+    private void write(LogLevel level, Object payload, JsonPayloadEncoder.Output output) throws IOException {
+        encoder.objectMapper().writeValue(
+                output.generator(serializationMasking.serializationPlan(), PropertySensitiveDataMasker.MASK), payload);
+    }
+
+    private void writeLines(LogLevel level, Object payloads, JsonPayloadEncoder.Output output) throws IOException {
+        JsonGenerator gen = output.generator(serializationMasking.serializationPlan(), PropertySensitiveDataMasker.MASK);
+        List<?> values = (List<?>) payloads;
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                gen.writeRaw('\n');
+            }
+            encoder.objectMapper().writeValue(gen, values.get(i));
+        }
+    }
+
+    /**
+     * Renders a list of payloads as newline-separated JSON objects into one string.
+     */
+    private String renderLines(LogLevel level, Object payloads) {
+        try {
+            return encoder.encodeLines((List<?>) payloads, serializationMasking.serializationPlan(),
+                    PropertySensitiveDataMasker.MASK);
+        } catch (Exception e) {
+            log.error("Failed to serialize structured log batch", e);
+            return null;
+        }
     }
 
     /**
      * A fluent builder for creating a structured log message.
-     * Each instance is intended for a single log event.
+     * Each instance is intended for a single log event; a pooled one (see
+     * {@code common.logger.pooled-builders}) is handed out again once that event is finished.
      */
     public class StructuredLogBuilder {
-        private final Map<String, Object> payload = new HashMap<>();
+        private final boolean pooled;
+        private StructuredPayload payload;
         private LogLevel successLevel;
-        private LogLevel errorLevel = LogLevel.ERROR;
+        private LogLevel errorLevel;
         private boolean httpStatusCodeSet = false;
+        private boolean timerStarted = false;
+        private boolean lazyFields = false;
+        private boolean payloadRetained = false;
+        private long startNanos;
+        /** Thread holding a pooled builder; {@code null} while it is back in the pool. */
+        private Thread owner;
+        /** Batch collecting this builder's event instead of writing it, or {@code null}. */
+        private StructuredLogBatch batch;
+
+        private StructuredLogBuilder(boolean pooled) {
+            this.pooled = pooled;
+            this.payload = new StructuredPayload();
+        }
 
+        /**
+         * For {@link DisabledLogBuilder}, which holds no payload.
+         */
         private StructuredLogBuilder() {
+            this.pooled = false;
+        }
+
+        private StructuredLogBuilder open(LogLevel successLevel, LogLevel errorLevel) {
             // Initialize with default values from properties
-            this.successLevel = properties.getLogLevel();
+            this.successLevel = successLevel;
+            this.errorLevel = errorLevel;
+            this.httpStatusCodeSet = false;
+            this.timerStarted = false;
+            this.lazyFields = false;
+            this.payloadRetained = false;
+            this.batch = null;
             this.payload.put("apiId", properties.getApiId());
             this.payload.put("httpStatusCode", properties.getSuccessHttpStatusCode());
+            if (this.pooled) {
+                this.owner = Thread.currentThread();
+            }
+            return this;
+        }
+
+        private StructuredLogBuilder into(StructuredLogBatch batch) {
+            this.batch = batch;
+            return this;
         }
 
         public StructuredLogBuilder withTransactionId(String transactionId) {
+            checkActive();
             this.payload.put("transactionId", transactionId);
             return this;
         }
 
         public StructuredLogBuilder withCorrelationId(String correlationId) {
+            checkActive();
             this.payload.put("correlationId", correlationId);
             return this;
         }
 
         public StructuredLogBuilder withApiId(String apiId) {
+            checkActive();
             this.payload.put("apiId", apiId);
             return this;
         }
 
         public StructuredLogBuilder withHttpStatusCode(int statusCode) {
+            checkActive();
             this.payload.put("httpStatusCode", statusCode);
             this.httpStatusCodeSet = true;
             return this;
         }
 
         public StructuredLogBuilder withLogLevel(LogLevel level) {
+            checkActive();
             this.successLevel = level;
             return this;
         }
 
         public StructuredLogBuilder withErrorLogLevel(LogLevel level) {
+            checkActive();
             this.errorLevel = level;
             return this;
         }
 
         public StructuredLogBuilder withRequest(Object request) {
+            checkActive();
             this.payload.put("request", request);
             return this;
         }
         
         public StructuredLogBuilder withAdditionalData(String key, Object value) {
+            checkActive();
             this.payload.put(key, value);
             return this;
         }
-        
-        private void log(LogLevel level, Map<String, Object> finalPayload) {
-            if (!isLevelEnabled(level)) {
-                return;
-            }
 
-            finalPayload.put("logLevel", level.name().toLowerCase());
-            finalPayload.put("logTimestamp", Instant.now().toString());
+        public StructuredLogBuilder withField(String key, Object value) {
+            checkActive();
+            this.payload.put(key, value);
+            return this;
+        }
 
-            for (SensitiveDataMasker masker : maskers) {
-                try {
-                    masker.mask(finalPayload);
-                } catch (Exception e) {
-                    log.warn("SensitiveDataMasker [{}] failed: {}", masker.getClass().getName(), e.getMessage());
-                }
-            }
-            
-            String logMessage = "Structured log";
-            if (finalPayload.containsKey("apiId")) {
-                 logMessage = String.format("%s completed", finalPayload.get("apiId"));
+        /**
+         * Adds a field whose value is computed only if the event is written, after the level check and
+         * before maskers run. A supplier that throws yields {@code null}.
+         */
+        public StructuredLogBuilder withField(String key, Supplier<?> value) {
+            checkActive();
+            if (value == null) {
+                this.payload.put(key, null);
+                return this;
             }
-            finalPayload.putIfAbsent("logMessage", logMessage);
+            this.payload.put(key, new LazyField(value));
+            this.lazyFields = true;
+            return this;
+        }
 
-            try {
-                StringWriter sw = new StringWriter();
-                objectMapper.writeValue(sw, finalPayload);
-                String jsonLog = sw.toString();
-                
-                switch (level) {
-                    case TRACE -> log.trace(jsonLog);
-                    case DEBUG -> log.debug(jsonLog);
-                    case WARN -> log.warn(jsonLog);
-                    case ERROR, FATAL -> log.error(jsonLog);
-                    default -> log.info(jsonLog);
-                }
-            } catch (Exception e) {
-                // Fallback to basic logging if JSON serialization fails
-                log.error("Failed to serialize structured log payload", e);
-            }
+        public StructuredLogBuilder withField(String key, long value) {
+            checkActive();
+            this.payload.putLong(key, value);
+            return this;
+        }
+
+        public StructuredLogBuilder withField(String key, int value) {
+            checkActive();
+            this.payload.putInt(key, value);
+            return this;
         }
 
-        private String buildExceptionDetails(Throwable throwable) {
-            return ExceptionUtils.getStackTrace(throwable);
+        public StructuredLogBuilder withField(String key, boolean value) {
+            checkActive();
+            this.payload.putBoolean(key, value);
+            return this;
+        }
+
+        public StructuredLogBuilder withField(String key, double value) {
+            checkActive();
+            this.payload.putDouble(key, value);
+            return this;
         }
 
-        private boolean isLevelEnabled(LogLevel level) {
-            return switch (level) {
-                case TRACE -> log.isTraceEnabled();
-                case DEBUG -> log.isDebugEnabled();
-                case INFO -> log.isInfoEnabled();
-                case WARN -> log.isWarnEnabled();
-                case ERROR, FATAL -> log.isErrorEnabled();
-                case OFF -> false;
-            };
+        /**
+         * Starts measuring {@code processTime} for {@link #onSuccess(Object)} and
+         * {@link #onFailure(Throwable)}. Calling it again restarts the measurement.
+         */
+        public StructuredLogBuilder startTimer() {
+            checkActive();
+            this.startNanos = System.nanoTime();
+            this.timerStarted = true;
+            return this;
+        }
+        
+        private void log(LogLevel level, boolean failure) {
+            if (this.batch != null) {
+                this.payloadRetained = this.batch.add(level, failure, this.payload, this.lazyFields);
+                return;
+            }
+            if (!isEnabled(level)) {
+                return;
+            }
+            Map<String, Object> finalPayload = this.payload;
+            prepare(level, finalPayload, this.lazyFields);
+            applyMaskers(finalPayload);
+            putLogMessage(finalPayload);
+            this.payloadRetained = emit(level, finalPayload, renderer);
         }
 
         /**
          * Finalizes and logs a success event.
          * @param response The response object to include in the log (can be null).
-         * @param processTimeMillis The processing time in milliseconds.
+         * @param processTimeMillis The processing time in milliseconds, written in
+         *                          {@code common.logger.process-time-unit}.
          */
         public void onSuccess(Object response, long processTimeMillis) {
-            this.payload.put("logPoint", "End");
-            this.payload.put("response", response);
-            this.payload.put("processTime", processTimeMillis);
-            log(this.successLevel, this.payload);
+            checkActive();
+            try {
+                this.payload.put("logPoint", "End");
+                this.payload.put("response", response);
+                putProcessTime(TimeUnit.MILLISECONDS.toNanos(processTimeMillis));
+                log(this.successLevel, false);
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * Finalizes and logs a success event, with the time elapsed since {@link #startTimer()}.
+         * @param response The response object to include in the log (can be null).
+         * @throws IllegalStateException if {@link #startTimer()} was not called
+         */
+        public void onSuccess(Object response) {
+            checkActive();
+            try {
+                long elapsedNanos = elapsedNanos();
+                this.payload.put("logPoint", "End");
+                this.payload.put("response", response);
+                putProcessTime(elapsedNanos);
+                log(this.successLevel, false);
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * Finalizes and logs a failure event, with the time elapsed since {@link #startTimer()}.
+         * @param throwable The exception or error that caused the failure.
+         * @throws IllegalStateException if {@link #startTimer()} was not called
+         */
+        public void onFailure(Throwable throwable) {
+            checkActive();
+            try {
+                long elapsedNanos = elapsedNanos();
+                putFailure(throwable);
+                putProcessTime(elapsedNanos);
+                log(this.errorLevel, true);
+            } finally {
+                release();
+            }
         }
 
         /**
          * Finalizes and logs a failure event.
          * @param throwable The exception or error that caused the failure.
-         * @param processTimeMillis The processing time in milliseconds until the failure.
+         * @param processTimeMillis The processing time in milliseconds until the failure, written in
+         *                          {@code common.logger.process-time-unit}.
          */
         public void onFailure(Throwable throwable, long processTimeMillis) {
+            checkActive();
+            try {
+                putFailure(throwable);
+                putProcessTime(TimeUnit.MILLISECONDS.toNanos(processTimeMillis));
+                log(this.errorLevel, true);
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * Rejects calls on a pooled builder from another thread, or while it is back in the pool. A
+         * reference kept past {@code onSuccess} / {@code onFailure} is only caught until the same
+         * thread obtains the builder again; after that it is the same object as the new one.
+         */
+        private void checkActive() {
+            if (this.pooled && this.owner != Thread.currentThread()) {
+                throw new IllegalStateException("Pooled StructuredLogBuilder used after onSuccess/onFailure "
+                        + "or outside the thread that obtained it");
+            }
+        }
+
+        /**
+         * Returns a pooled builder to its thread's pool. A payload handed to the request buffer or the
+         * async dispatcher is still referenced there and is replaced instead of cleared.
+         */
+        private void release() {
+            if (!this.pooled) {
+                return;
+            }
+            if (this.payloadRetained
+                    || this.payload.size() + this.payload.primitiveCount() > MAX_POOLED_FIELDS) {
+                this.payload = new StructuredPayload();
+            } else {
+                this.payload.clear();
+            }
+            this.owner = null;
+        }
+
+        private void putFailure(Throwable throwable) {
             this.payload.put("logPoint", "Error");
-            this.payload.put("logException", buildExceptionDetails(throwable));
+            StackTraceRenderer.Rendered stackTrace = stackTraceRenderer.render(throwable);
+            this.payload.put("logException", stackTrace.text());
+            this.payload.put("exceptionFingerprint", stackTrace.fingerprint());
             this.payload.put("error", throwable.getMessage());
             if (!this.httpStatusCodeSet) {
                 this.payload.put("httpStatusCode", properties.getErrorHttpStatusCode());
@@ -179,8 +575,20 @@ public class StructuredLogger {
             Object rawStatusCode = this.payload.get("httpStatusCode");
             int statusCode = rawStatusCode instanceof Number n ? n.intValue() : properties.getErrorHttpStatusCode();
             this.payload.put("errorType", resolveErrorType(statusCode));
-            this.payload.put("processTime", processTimeMillis);
-            log(this.errorLevel, this.payload);
+        }
+
+        private long elapsedNanos() {
+            if (!this.timerStarted) {
+                throw new IllegalStateException("startTimer() must be called before onSuccess/onFailure without a processTime");
+            }
+            return System.nanoTime() - this.startNanos;
+        }
+
+        private void putProcessTime(long elapsedNanos) {
+            this.payload.put("processTime", properties.getProcessTimeUnit().fromNanos(elapsedNanos));
+            if (properties.isProcessTimeNanos()) {
+                this.payload.put("processTimeNanos", elapsedNanos);
+            }
         }
 
         private String resolveErrorType(int statusCode) {
@@ -192,4 +600,291 @@ public class StructuredLogger {
             return "UNKNOWN_ERROR";
         }
     }
+
+    /**
+     * Collects the events of many builders, e.g. one per record of a Spring Batch chunk or a Kafka
+     * poll, and writes them on {@link #flush()} (or {@link #close()}).
+     * <ul>
+     *     <li>{@code EVENTS}: each level is checked once per flush, disabled events are dropped when
+     *     they finish, and the kept events are masked and serialized in one pass into a single
+     *     newline-separated block, written with one logging call at the highest level in the batch.
+     *     Reaching {@code common.logger.batch.max-events} flushes automatically.</li>
+     *     <li>{@code SUMMARY}: events are only counted; the flush writes one {@code batchSummary} event
+     *     with the number of events and failures and the min / max / avg {@code processTime}, at the
+     *     highest level among them.</li>
+     * </ul>
+     * Not thread-safe; use one batch per thread.
+     */
+    public class StructuredLogBatch implements AutoCloseable {
+        private static final byte UNKNOWN = 0;
+        private static final byte ENABLED = 1;
+        private static final byte DISABLED = 2;
+
+        private final CommonLoggerProperties.BatchMode mode;
+        private final byte[] levelStates = new byte[LogLevel.values().length];
+        private List<Map<String, Object>> events = new ArrayList<>();
+        private LogLevel highestLevel;
+        private int count;
+        private int errorCount;
+        private int timedCount;
+        private long minProcessTime = Long.MAX_VALUE;
+        private long maxProcessTime = Long.MIN_VALUE;
+        private long totalProcessTime;
+
+        private StructuredLogBatch(CommonLoggerProperties.BatchMode mode) {
+            this.mode = mode;
+        }
+
+        /**
+         * Like {@link StructuredLogger#newLog()}, but the event goes to this batch.
+         */
+        public StructuredLogBuilder newLog() {
+            return builder(properties.getLogLevel(), LogLevel.ERROR).into(this);
+        }
+
+        /**
+         * Like {@link StructuredLogger#at(LogLevel)}, but the event goes to this batch. In
+         * {@code EVENTS} mode the level check is cached until the next flush.
+         */
+        public StructuredLogBuilder at(LogLevel level) {
+            if (level == null || (mode == CommonLoggerProperties.BatchMode.EVENTS && !accepts(level))) {
+                return disabledBuilder;
+            }
+            return builder(level, level).into(this);
+        }
+
+        /**
+         * Number of events collected since the last flush.
+         */
+        public int size() {
+            return mode == CommonLoggerProperties.BatchMode.EVENTS ? events.size() : count;
+        }
+
+        /**
+         * Writes what was collected since the last flush and starts over.
+         */
+        public void flush() {
+            try {
+                if (mode == CommonLoggerProperties.BatchMode.EVENTS) {
+                    flushEvents();
+                } else {
+                    flushSummary();
+                }
+            } finally {
+                reset();
+            }
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+
+        /**
+         * Records one finished event.
+         *
+         * @return whether {@code payload} is kept by the batch
+         */
+        private boolean add(LogLevel level, boolean failure, Map<String, Object> payload, boolean lazyFields) {
+            if (mode == CommonLoggerProperties.BatchMode.SUMMARY) {
+                count++;
+                if (failure) {
+                    errorCount++;
+                }
+                if (payload.get("processTime") instanceof Number processTime) {
+                    long value = processTime.longValue();
+                    timedCount++;
+                    minProcessTime = Math.min(minProcessTime, value);
+                    maxProcessTime = Math.max(maxProcessTime, value);
+                    totalProcessTime += value;
+                }
+                raise(level);
+                return false;
+            }
+            if (!accepts(level)) {
+                return false;
+            }
+            prepare(level, payload, lazyFields);
+            events.add(payload);
+            raise(level);
+            if (events.size() >= properties.getBatch().getMaxEvents()) {
+                flush();
+            }
+            return true;
+        }
+
+        private boolean accepts(LogLevel level) {
+            byte state = levelStates[level.ordinal()];
+            if (state == UNKNOWN) {
+                state = isEnabled(level) ? ENABLED : DISABLED;
+                levelStates[level.ordinal()] = state;
+            }
+            return state == ENABLED;
+        }
+
+        private void raise(LogLevel level) {
+            if (highestLevel == null || level.compareTo(highestLevel) > 0) {
+                highestLevel = level;
+            }
+        }
+
+        private void flushEvents() {
+            if (events.isEmpty()) {
+                return;
+            }
+            List<Map<String, Object>> pending = events;
+            events = new ArrayList<>();
+            for (Map<String, Object> payload : pending) {
+                applyMaskers(payload);
+                putLogMessage(payload);
+            }
+            emit(highestLevel, pending, linesRenderer);
+        }
+
+        private void flushSummary() {
+            if (count == 0 || !isEnabled(highestLevel)) {
+                return;
+            }
+            String apiId = properties.getApiId();
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("logLevel", LogLevelSupport.name(highestLevel));
+            payload.put("apiId", apiId);
+            payload.put("httpStatusCode", errorCount > 0
+                    ? properties.getErrorHttpStatusCode()
+                    : properties.getSuccessHttpStatusCode());
+            payload.put("logMessage", apiId + " batch completed");
+            payload.put("logPoint", "Batch");
+            payload.put("logTimestamp", timestamps.value(timestamps.now()));
+
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("count", count);
+            details.put("errorCount", errorCount);
+            if (timedCount > 0) {
+                Map<String, Object> processTime = new LinkedHashMap<>();
+                processTime.put("min", minProcessTime);
+                processTime.put("max", maxProcessTime);
+                processTime.put("avg", totalProcessTime / timedCount);
+                details.put("processTime", processTime);
+            }
+            payload.put("batchSummary", details);
+
+            applyMaskers(payload);
+            emit(highestLevel, payload, renderer);
+        }
+
+        private void reset() {
+            Arrays.fill(levelStates, UNKNOWN);
+            highestLevel = null;
+            count = 0;
+            errorCount = 0;
+            timedCount = 0;
+            minProcessTime = Long.MAX_VALUE;
+            maxProcessTime = Long.MIN_VALUE;
+            totalProcessTime = 0;
+        }
+    }
+
+    /**
+     * Returned by {@link #at(LogLevel)} for disabled levels: every method returns immediately and
+     * nothing is recorded. Overrides every public method of {@link StructuredLogBuilder}.
+     */
+    private final class DisabledLogBuilder extends StructuredLogBuilder {
+
+        @Override
+        public StructuredLogBuilder withTransactionId(String transactionId) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder withCorrelationId(String correlationId) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder withApiId(String apiId) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder withHttpStatusCode(int statusCode) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder withLogLevel(LogLevel level) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder withErrorLogLevel(LogLevel level) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder withRequest(Object request) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder withAdditionalData(String key, Object value) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder withField(String key, Object value) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder withField(String key, Supplier<?> value) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder withField(String key, long value) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder withField(String key, int value) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder withField(String key, boolean value) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder withField(String key, double value) {
+            return this;
+        }
+
+        @Override
+        public StructuredLogBuilder startTimer() {
+            return this;
+        }
+
+        @Override
+        public void onSuccess(Object response, long processTimeMillis) {
+        }
+
+        @Override
+        public void onSuccess(Object response) {
+        }
+
+        @Override
+        public void onFailure(Throwable throwable) {
+        }
+
+        @Override
+        public void onFailure(Throwable throwable, long processTimeMillis) {
+        }
+    }
+
+    /**
+     * A {@link StructuredLogBuilder#withField(String, Supplier)} value awaiting evaluation.
+     */
+    private record LazyField(Supplier<?> value) {
+    }
 }
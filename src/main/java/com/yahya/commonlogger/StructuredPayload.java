@@ -0,0 +1,245 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.std.MapSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Payload of a {@link StructuredLogger.StructuredLogBuilder}: a {@link HashMap} that also holds
+ * {@code int}, {@code long}, {@code double} and {@code boolean} fields unboxed, in parallel arrays
+ * that are reused when the builder is pooled.
+ * <p>
+ * Primitive fields are written straight to the generator after the map entries, through the same
+ * masking generator, and only if the map has no entry of the same name. {@link #get(Object)},
+ * {@link #containsKey(Object)} and {@link #remove(Object)} see them; iteration views
+ * ({@link #entrySet()} and friends), {@link #size()}, {@code equals} and copies do not, so before
+ * the payload is handed to a {@link SensitiveDataMasker} they are boxed into ordinary entries with
+ * {@link #promotePrimitives()}. Events without maskers keep them unboxed.
+ */
+@JsonSerialize(using = StructuredPayload.Serializer.class)
+final class StructuredPayload extends HashMap<String, Object> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOLEAN = 4;
+
+    private String[] primitiveKeys;
+    private long[] primitiveValues;
+    private byte[] primitiveTypes;
+    private int primitiveCount;
+
+    void putInt(String key, int value) {
+        putPrimitive(key, INT, value);
+    }
+
+    void putLong(String key, long value) {
+        putPrimitive(key, LONG, value);
+    }
+
+    void putDouble(String key, double value) {
+        putPrimitive(key, DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    void putBoolean(String key, boolean value) {
+        putPrimitive(key, BOOLEAN, value ? 1 : 0);
+    }
+
+    /**
+     * Number of primitive fields, for deciding whether a pooled payload is worth keeping.
+     */
+    int primitiveCount() {
+        return primitiveCount;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object value = super.get(key);
+        if (value == null && primitiveCount > 0 && !super.containsKey(key)) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                return boxed(index);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return super.containsKey(key) || indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        Object removed = super.remove(key);
+        int index = indexOf(key);
+        if (index >= 0) {
+            if (removed == null) {
+                removed = boxed(index);
+            }
+            removePrimitive(index);
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        if (primitiveCount > 0) {
+            Arrays.fill(primitiveKeys, 0, primitiveCount, null);
+            primitiveCount = 0;
+        }
+    }
+
+    /**
+     * Moves the primitive fields into the map as boxed entries, so that the payload behaves as a
+     * plain {@link Map} from then on. A map entry of the same name takes precedence, as it does when
+     * writing.
+     */
+    void promotePrimitives() {
+        for (int i = 0; i < primitiveCount; i++) {
+            String key = primitiveKeys[i];
+            if (!super.containsKey(key)) {
+                super.put(key, boxed(i));
+            }
+            primitiveKeys[i] = null;
+        }
+        primitiveCount = 0;
+    }
+
+    private void putPrimitive(String key, byte type, long value) {
+        super.remove(key);
+        int index = indexOf(key);
+        if (index < 0) {
+            if (primitiveKeys == null) {
+                primitiveKeys = new String[4];
+                primitiveValues = new long[4];
+                primitiveTypes = new byte[4];
+            } else if (primitiveCount == primitiveKeys.length) {
+                int capacity = primitiveCount * 2;
+                primitiveKeys = Arrays.copyOf(primitiveKeys, capacity);
+                primitiveValues = Arrays.copyOf(primitiveValues, capacity);
+                primitiveTypes = Arrays.copyOf(primitiveTypes, capacity);
+            }
+            index = primitiveCount++;
+            primitiveKeys[index] = key;
+        }
+        primitiveValues[index] = value;
+        primitiveTypes[index] = type;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < primitiveCount; i++) {
+            if (primitiveKeys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removePrimitive(int index) {
+        int last = --primitiveCount;
+        primitiveKeys[index] = primitiveKeys[last];
+        primitiveValues[index] = primitiveValues[last];
+        primitiveTypes[index] = primitiveTypes[last];
+        primitiveKeys[last] = null;
+    }
+
+    private Object boxed(int index) {
+        long value = primitiveValues[index];
+        return switch (primitiveTypes[index]) {
+            case INT -> (int) value;
+            case DOUBLE -> Double.longBitsToDouble(value);
+            case BOOLEAN -> value != 0;
+            default -> value;
+        };
+    }
+
+    private void writePrimitives(JsonGenerator gen) throws IOException {
+        for (int i = 0; i < primitiveCount; i++) {
+            String key = primitiveKeys[i];
+            if (super.containsKey(key)) {
+                continue;
+            }
+            gen.writeFieldName(key);
+            long value = primitiveValues[i];
+            switch (primitiveTypes[i]) {
+                case INT -> gen.writeNumber((int) value);
+                case DOUBLE -> gen.writeNumber(Double.longBitsToDouble(value));
+                case BOOLEAN -> gen.writeBoolean(value != 0);
+                default -> gen.writeNumber(value);
+            }
+        }
+    }
+
+    /**
+     * Writes the map entries with the {@code ObjectMapper}'s own map serializer, so inclusion and
+     * ordering settings still apply, followed by the primitive fields.
+     */
+    static final class Serializer extends StdSerializer<StructuredPayload> implements ContextualSerializer {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient MapSerializer entries;
+
+        Serializer() {
+            this(null);
+        }
+
+        private Serializer(MapSerializer entries) {
+            super(StructuredPayload.class);
+            this.entries = entries;
+        }
+
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+                throws JsonMappingException {
+            JsonSerializer<?> map = provider.findValueSerializer(HashMap.class, property);
+            return new Serializer(map instanceof MapSerializer mapSerializer ? mapSerializer : null);
+        }
+
+        @Override
+        public void serialize(StructuredPayload payload, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject(payload);
+            writeFields(payload, gen, provider);
+            gen.writeEndObject();
+        }
+
+        @Override
+        public void serializeWithType(StructuredPayload payload, JsonGenerator gen, SerializerProvider provider,
+                                      TypeSerializer typeSer) throws IOException {
+            WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(payload, JsonToken.START_OBJECT));
+            writeFields(payload, gen, provider);
+            typeSer.writeTypeSuffix(gen, typeId);
+        }
+
+        private void writeFields(StructuredPayload payload, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            if (entries != null) {
+                entries.serializeWithoutTypeInfo(payload, gen, provider);
+            } else {
+                for (Map.Entry<String, Object> entry : payload.entrySet()) {
+                    provider.defaultSerializeField(entry.getKey(), entry.getValue(), gen);
+                }
+            }
+            payload.writePrimitives(gen);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.yahya.commonlogger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a successful {@link Loggable} execution is logged, before {@link LoggingAspect}
+ * builds its payload, so that skipped executions cost no more than their timing.
+ * <p>
+ * {@code FIXED} and {@code PER_LOG_POINT} keep an execution with a fixed probability.
+ * {@code ADAPTIVE} caps logged executions per method with a token bucket of
+ * {@code max-events-per-second} tokens, refilled continuously; its state ({@link Budget}) lives in
+ * the method's {@link JoinPointMetadata}. The returned value is the probability the execution was
+ * kept with, logged as {@code sampleRate}; for {@code ADAPTIVE} it is estimated from the previous
+ * second.
+ * <p>
+ * Settings are read per call. Thread-safe.
+ */
+final class SuccessSampler {
+
+    /**
+     * Returned by {@link #sample(JoinPointMetadata)} when the execution is not logged.
+     */
+    static final double SKIP = 0.0;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final CommonLoggerProperties.Sampling settings;
+
+    SuccessSampler(CommonLoggerProperties.Sampling settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Returns the sample rate of a kept execution, or {@link #SKIP}.
+     */
+    double sample(JoinPointMetadata metadata) {
+        return switch (settings.getMode()) {
+            case FIXED -> keep(settings.getRate());
+            case PER_LOG_POINT -> {
+                Double rate = settings.getLogPointRates().get(metadata.logPoint(true));
+                yield keep(rate == null ? settings.getRate() : rate);
+            }
+            case ADAPTIVE -> metadata.successBudget().acquire(settings.getMaxEventsPerSecond(), System.nanoTime());
+        };
+    }
+
+    private static double keep(double rate) {
+        if (rate >= 1.0) {
+            return 1.0;
+        }
+        return rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate ? rate : SKIP;
+    }
+
+    /**
+     * Per-method token bucket, implemented as a generic cell rate algorithm: a single timestamp
+     * (the theoretical arrival time of the next event) advances by one emission interval per kept
+     * event, and an event is kept while that timestamp stays within one second of now. Rejections
+     * only read the timestamp, so a saturated method causes no write contention.
+     */
+    static final class Budget {
+
+        private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+        private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+        private final LongAdder seen = new LongAdder();
+        private final LongAdder kept = new LongAdder();
+        private volatile double rate = 1.0;
+
+        /**
+         * Returns the current sample rate if a token was available at {@code now}, or {@link #SKIP}.
+         */
+        double acquire(int maxPerSecond, long now) {
+            roll(now);
+            seen.increment();
+            long interval = NANOS_PER_SECOND / maxPerSecond;
+            while (true) {
+                long arrival = theoreticalArrival.get();
+                long next = (arrival - now > 0 ? arrival : now) + interval;
+                if (next - now > NANOS_PER_SECOND) {
+                    return SKIP;
+                }
+                if (theoreticalArrival.compareAndSet(arrival, next)) {
+                    kept.increment();
+                    return rate;
+                }
+            }
+        }
+
+        /**
+         * Once per second, derives the sample rate from the share of executions kept in the last
+         * second.
+         */
+        private void roll(long now) {
+            long start = windowStart.get();
+            if (now - start < NANOS_PER_SECOND || !windowStart.compareAndSet(start, now)) {
+                return;
+            }
+            long seenCount = seen.sumThenReset();
+            long keptCount = kept.sumThenReset();
+            rate = seenCount == 0 ? 1.0 : Math.min(1.0, Math.max(keptCount, 1) / (double) seenCount);
+        }
+    }
+}
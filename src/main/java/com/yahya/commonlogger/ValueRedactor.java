@@ -0,0 +1,407 @@
+package com.yahya.commonlogger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+
+/**
+ * Content-based redaction of free-text values such as {@code error} and {@code logException}.
+ * <p>
+ * {@link #redact(String)} scans the input once, left to right. At every position a keyword
+ * automaton (Aho-Corasick, case-insensitive, e.g. {@code "bearer "} or {@code "password="}) is
+ * advanced, and the detectors are dispatched on the current character:
+ * <ul>
+ *     <li>a digit at a word boundary starts a card number candidate (13-19 digits, optionally
+ *     grouped by single spaces or dashes) that is redacted only if it passes the Luhn check, or
+ *     otherwise a phone number candidate;</li>
+ *     <li>{@code eyJ} at a word boundary starts a JWT candidate (three base64url segments);</li>
+ *     <li>{@code @} triggers the e-mail detector, which extends backwards over the local part and
+ *     forwards over the domain.</li>
+ * </ul>
+ * After a keyword, the following token (up to whitespace, a quote or a separator) is redacted.
+ * Matches never overlap; output is only built once something matched, so clean input is returned
+ * as the same instance without allocation.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+final class ValueRedactor {
+
+    private static final int ALPHABET = 128;
+    private static final int MIN_CARD_DIGITS = 13;
+    private static final int MAX_CARD_DIGITS = 19;
+    private static final int MIN_PHONE_DIGITS = 9;
+    private static final int MAX_PHONE_DIGITS = 15;
+
+    private final boolean cardNumbers;
+    private final boolean jwt;
+    private final boolean email;
+    private final boolean phone;
+    private final String replacement;
+
+    /** Marks a transition into a state at which a keyword ends. */
+    private static final int ACCEPT = 1 << 30;
+
+    /**
+     * Keyword automaton: dense, case-folded transition table over ASCII, flattened so that each
+     * entry is the next state's row offset ({@code state * 128}), tagged with {@link #ACCEPT} when
+     * a keyword ends there. One load per character keeps the dependency chain short.
+     */
+    private final int[] transitions;
+    private final int stateCount;
+
+    /** ASCII characters that start one of the enabled detectors. */
+    private final boolean[] triggers = new boolean[ALPHABET];
+
+    ValueRedactor(boolean cardNumbers, boolean jwt, boolean email, boolean phone,
+                  List<String> keywords, String replacement) {
+        this.cardNumbers = cardNumbers;
+        this.jwt = jwt;
+        this.email = email;
+        this.phone = phone;
+        this.replacement = replacement;
+        List<int[]> goTo = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        goTo.add(newRow());
+        lengths.add(0);
+        for (String keyword : keywords == null ? List.<String>of() : keywords) {
+            if (keyword == null || keyword.isEmpty()) {
+                continue;
+            }
+            String lower = keyword.toLowerCase(Locale.ROOT);
+            int state = 0;
+            for (int i = 0; i < lower.length(); i++) {
+                char c = lower.charAt(i);
+                if (c >= ALPHABET) {
+                    throw new IllegalArgumentException("common.logger.redaction.keywords must be ASCII: " + keyword);
+                }
+                if (goTo.get(state)[c] <= 0) {
+                    goTo.add(newRow());
+                    lengths.add(0);
+                    goTo.get(state)[c] = goTo.size() - 1;
+                }
+                state = goTo.get(state)[c];
+            }
+            lengths.set(state, Math.max(lengths.get(state), lower.length()));
+        }
+        int[][] table = goTo.toArray(new int[0][]);
+        int[] matchLength = lengths.stream().mapToInt(Integer::intValue).toArray();
+        this.stateCount = table.length;
+        buildFailureLinks(table, matchLength);
+        this.transitions = new int[table.length * ALPHABET];
+        for (int state = 0; state < table.length; state++) {
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = table[state][Character.toLowerCase(c)];
+                transitions[state * ALPHABET + c] = next * ALPHABET | (matchLength[next] > 0 ? ACCEPT : 0);
+            }
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            triggers[c] = cardNumbers || phone;
+        }
+        triggers['+'] = phone;
+        triggers['e'] = jwt;
+        triggers['@'] = email;
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    /**
+     * Turns the keyword trie into a DFA: missing transitions follow failure links, and every state
+     * reports the longest keyword ending at it.
+     */
+    private static void buildFailureLinks(int[][] transitions, int[] matchLength) {
+        int[] failure = new int[transitions.length];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = transitions[0][c];
+            if (next <= 0) {
+                transitions[0][c] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            matchLength[state] = Math.max(matchLength[state], matchLength[failure[state]]);
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[state][c];
+                if (next < 0) {
+                    transitions[state][c] = transitions[failure[state]][c];
+                } else {
+                    failure[next] = transitions[failure[state]][c];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether any detector or keyword is enabled.
+     */
+    boolean isEnabled() {
+        return cardNumbers || jwt || email || phone || stateCount > 1;
+    }
+
+    /**
+     * Returns {@code input} with every detected value replaced, or {@code input} itself if nothing
+     * was found.
+     */
+    String redact(String input) {
+        if (input == null || input.isEmpty()) {
+            return input;
+        }
+        StringBuilder out = null;
+        int copied = 0;
+        int state = 0;
+        int length = input.length();
+        int i = 0;
+        while (i < length) {
+            char c = input.charAt(i);
+            if (c >= ALPHABET) {
+                state = 0;
+                i++;
+                continue;
+            }
+            int matchStart = -1;
+            int matchEnd = -1;
+            if (triggers[c]) {
+                if (c == '@') {
+                    matchStart = emailStart(input, i, copied);
+                    matchEnd = matchStart < 0 ? -1 : emailEnd(input, i);
+                } else if (isBoundary(input, i, copied)) {
+                    matchStart = i;
+                    if (c == 'e') {
+                        matchEnd = input.startsWith("eyJ", i) ? jwtEnd(input, i) : -1;
+                    } else {
+                        matchEnd = c == '+' ? -1 : cardEnd(input, i);
+                        if (matchEnd < 0 && phone) {
+                            matchEnd = phoneEnd(input, i);
+                        }
+                    }
+                }
+            }
+            if (matchEnd < 0) {
+                int next = transitions[state + c];
+                if (next < ACCEPT) {
+                    state = next;
+                    i++;
+                    continue;
+                }
+                state = 0;
+                matchStart = i + 1;
+                matchEnd = tokenEnd(input, matchStart);
+                if (matchEnd == matchStart) {
+                    i++;
+                    continue;
+                }
+            }
+
+            if (out == null) {
+                out = new StringBuilder(length);
+            }
+            out.append(input, copied, matchStart).append(replacement);
+            copied = matchEnd;
+            i = matchEnd;
+            state = 0;
+        }
+        if (out == null) {
+            return input;
+        }
+        return out.append(input, copied, length).toString();
+    }
+
+    /**
+     * A detector may only start where the previous character is not part of a word, and never
+     * inside text that was already replaced.
+     */
+    private static boolean isBoundary(String input, int index, int copied) {
+        return index == copied || index == 0 || !Character.isLetterOrDigit(input.charAt(index - 1));
+    }
+
+    /**
+     * End (exclusive) of a Luhn-valid card number starting at {@code start}, or -1.
+     */
+    private int cardEnd(String input, int start) {
+        if (!cardNumbers) {
+            return -1;
+        }
+        int digits = 0;
+        int end = start;
+        int i = start;
+        int length = input.length();
+        while (i < length && digits <= MAX_CARD_DIGITS) {
+            char c = input.charAt(i);
+            if (isDigit(c)) {
+                digits++;
+                end = ++i;
+            } else if ((c == ' ' || c == '-') && i + 1 < length && isDigit(input.charAt(i + 1)) && i > start) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        if (digits < MIN_CARD_DIGITS || digits > MAX_CARD_DIGITS) {
+            return -1;
+        }
+        if (end < length && Character.isLetterOrDigit(input.charAt(end))) {
+            return -1;
+        }
+        return luhn(input, start, end) ? end : -1;
+    }
+
+    private static boolean luhn(String input, int start, int end) {
+        int sum = 0;
+        boolean doubleIt = false;
+        for (int i = end - 1; i >= start; i--) {
+            char c = input.charAt(i);
+            if (!isDigit(c)) {
+                continue;
+            }
+            int digit = c - '0';
+            if (doubleIt) {
+                digit <<= 1;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubleIt = !doubleIt;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * End (exclusive) of a phone number starting at {@code start}, or -1. A phone number starts
+     * with {@code +} or {@code 0} and has 9-15 digits, optionally grouped by spaces or dashes.
+     */
+    private static int phoneEnd(String input, int start) {
+        int length = input.length();
+        int i = start;
+        if (input.charAt(i) == '+') {
+            i++;
+        } else if (input.charAt(i) != '0') {
+            return -1;
+        }
+        int digits = 0;
+        int end = -1;
+        while (i < length && digits <= MAX_PHONE_DIGITS) {
+            char c = input.charAt(i);
+            if (isDigit(c)) {
+                digits++;
+                end = ++i;
+            } else if ((c == ' ' || c == '-') && digits > 0 && i + 1 < length && isDigit(input.charAt(i + 1))) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        if (digits < MIN_PHONE_DIGITS || digits > MAX_PHONE_DIGITS) {
+            return -1;
+        }
+        if (end < length && Character.isLetterOrDigit(input.charAt(end))) {
+            return -1;
+        }
+        return end;
+    }
+
+    /**
+     * End (exclusive) of a JWT ({@code header.payload.signature}) starting at {@code start}, or -1.
+     */
+    private static int jwtEnd(String input, int start) {
+        int i = start;
+        for (int segment = 0; segment < 3; segment++) {
+            int segmentStart = i;
+            while (i < input.length() && isBase64Url(input.charAt(i))) {
+                i++;
+            }
+            if (i - segmentStart < 2) {
+                return -1;
+            }
+            if (segment < 2) {
+                if (i >= input.length() || input.charAt(i) != '.') {
+                    return -1;
+                }
+                i++;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Start of the local part of an e-mail address whose {@code @} is at {@code at}, or -1.
+     */
+    private static int emailStart(String input, int at, int copied) {
+        int i = at;
+        while (i > copied && isLocalPart(input.charAt(i - 1))) {
+            i--;
+        }
+        return i < at ? i : -1;
+    }
+
+    /**
+     * End (exclusive) of the domain following the {@code @} at {@code at}, or -1. The domain needs
+     * at least one dot and an alphabetic top-level label of two or more characters.
+     */
+    private static int emailEnd(String input, int at) {
+        int length = input.length();
+        int i = at + 1;
+        int lastDot = -1;
+        int labelStart = i;
+        while (i < length) {
+            char c = input.charAt(i);
+            if (Character.isLetterOrDigit(c) && c < ALPHABET || c == '-') {
+                i++;
+            } else if (c == '.' && i > labelStart && i + 1 < length && Character.isLetterOrDigit(input.charAt(i + 1))) {
+                lastDot = i;
+                labelStart = ++i;
+            } else {
+                break;
+            }
+        }
+        if (lastDot < 0 || i - labelStart < 2) {
+            return -1;
+        }
+        for (int j = labelStart; j < i; j++) {
+            if (!Character.isLetter(input.charAt(j))) {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * End (exclusive) of the value token that follows a keyword.
+     */
+    private static int tokenEnd(String input, int start) {
+        int i = start;
+        while (i < input.length()) {
+            char c = input.charAt(i);
+            if (Character.isWhitespace(c) || c == '"' || c == '\'' || c == '&' || c == ',' || c == ';'
+                    || c == '}' || c == ')' || c == ']' || c == '<') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isBase64Url(char c) {
+        return c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-' || c == '_';
+    }
+
+    private static boolean isLocalPart(char c) {
+        return c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9'
+                || c == '.' || c == '_' || c == '%' || c == '+' || c == '-';
+    }
+}
@@ -0,0 +1,167 @@
+package com.yahya.commonlogger;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.LogLevel;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncLogDispatcherTest {
+
+    private final Logger sink = LoggerFactory.getLogger("com.yahya.commonlogger.async-sink");
+    private ch.qos.logback.classic.Logger sinkLogger;
+    private ListAppender<ILoggingEvent> appender;
+    private AsyncLogDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        sinkLogger = (ch.qos.logback.classic.Logger) sink;
+        appender = new ListAppender<>();
+        appender.start();
+        sinkLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+        sinkLogger.detachAppender(appender);
+    }
+
+    private List<String> messages() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).collect(Collectors.toList());
+    }
+
+    @Test
+    void rendersAndWritesEventsOnConsumerThread() {
+        dispatcher = new AsyncLogDispatcher(new CommonLoggerProperties.Async());
+
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatch(sink, LogLevel.INFO, i, (level, payload) -> Thread.currentThread().getName() + ":" + payload);
+        }
+        dispatcher.close();
+
+        assertThat(messages()).hasSize(100)
+                .allSatisfy(message -> assertThat(message).startsWith("common-logger-async:"));
+        assertThat(dispatcher.getPublishedCount()).isEqualTo(100);
+        assertThat(dispatcher.getQueuedCount()).isZero();
+        assertThat(dispatcher.getDroppedCount()).isZero();
+    }
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        CommonLoggerProperties.Async settings = new CommonLoggerProperties.Async();
+        settings.setCapacity(1000);
+        dispatcher = new AsyncLogDispatcher(settings);
+
+        assertThat(dispatcher.getCapacity()).isEqualTo(1024);
+    }
+
+    @Test
+    void dropsLowLevelEventsWhenFullButNeverErrors() throws Exception {
+        CommonLoggerProperties.Async settings = new CommonLoggerProperties.Async();
+        settings.setCapacity(2);
+        settings.setOverflowPolicy(CommonLoggerProperties.Async.OverflowPolicy.DROP_LOWEST_LEVEL);
+        dispatcher = new AsyncLogDispatcher(settings);
+        CountDownLatch release = blockConsumer();
+
+        dispatcher.dispatch(sink, LogLevel.INFO, "queued-1", AsyncLogDispatcherTest::plain);
+        dispatcher.dispatch(sink, LogLevel.INFO, "queued-2", AsyncLogDispatcherTest::plain);
+        dispatcher.dispatch(sink, LogLevel.INFO, "dropped", AsyncLogDispatcherTest::plain);
+        CompletableFuture<Void> error = CompletableFuture.runAsync(() ->
+                dispatcher.dispatch(sink, LogLevel.ERROR, "error", AsyncLogDispatcherTest::plain));
+
+        Thread.sleep(100);
+        assertThat(error).isNotDone();
+        assertThat(dispatcher.getDroppedCount()).isEqualTo(1);
+
+        release.countDown();
+        error.get(5, TimeUnit.SECONDS);
+        dispatcher.close();
+
+        assertThat(messages()).containsExactly("blocker", "queued-1", "queued-2", "error");
+    }
+
+    @Test
+    void samplePolicyThinsNonErrorEventsUnderPressure() throws Exception {
+        CommonLoggerProperties.Async settings = new CommonLoggerProperties.Async();
+        settings.setCapacity(4);
+        settings.setOverflowPolicy(CommonLoggerProperties.Async.OverflowPolicy.SAMPLE);
+        settings.setSampleRate(0.0);
+        dispatcher = new AsyncLogDispatcher(settings);
+        CountDownLatch release = blockConsumer();
+
+        dispatcher.dispatch(sink, LogLevel.INFO, "queued-1", AsyncLogDispatcherTest::plain);
+        dispatcher.dispatch(sink, LogLevel.INFO, "queued-2", AsyncLogDispatcherTest::plain);
+        dispatcher.dispatch(sink, LogLevel.WARN, "sampled-out", AsyncLogDispatcherTest::plain);
+        dispatcher.dispatch(sink, LogLevel.ERROR, "error", AsyncLogDispatcherTest::plain);
+
+        release.countDown();
+        dispatcher.close();
+
+        assertThat(dispatcher.getDroppedCount()).isEqualTo(1);
+        assertThat(messages()).containsExactly("blocker", "queued-1", "queued-2", "error");
+    }
+
+    @Test
+    void emitsOnCallerThreadAfterClose() {
+        dispatcher = new AsyncLogDispatcher(new CommonLoggerProperties.Async());
+        dispatcher.close();
+
+        dispatcher.dispatch(sink, LogLevel.WARN, "late", (level, payload) -> Thread.currentThread().getName());
+
+        assertThat(messages()).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    void drainsQueuedEventsOnClose() {
+        CommonLoggerProperties.Async settings = new CommonLoggerProperties.Async();
+        settings.setWaitStrategy(CommonLoggerProperties.Async.WaitStrategy.SLEEPING);
+        settings.setShutdownTimeout(Duration.ofSeconds(5));
+        dispatcher = new AsyncLogDispatcher(settings);
+
+        for (int i = 0; i < 1000; i++) {
+            dispatcher.dispatch(sink, LogLevel.INFO, i, AsyncLogDispatcherTest::plain);
+        }
+        dispatcher.close();
+
+        assertThat(messages()).hasSize(1000);
+    }
+
+    /**
+     * Publishes an event whose rendering blocks until the returned latch is released, and waits
+     * until the consumer has taken it so the ring buffer is empty but not being drained.
+     */
+    private CountDownLatch blockConsumer() throws InterruptedException {
+        CountDownLatch taken = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.dispatch(sink, LogLevel.INFO, "blocker", (level, payload) -> {
+            taken.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "blocker";
+        });
+        assertThat(taken.await(5, TimeUnit.SECONDS)).isTrue();
+        return release;
+    }
+
+    private static String plain(LogLevel level, Object payload) {
+        return String.valueOf(payload);
+    }
+}
@@ -0,0 +1,53 @@
+package com.yahya.commonlogger;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+/**
+ * Shared plumbing for the JMH benchmarks in this package.
+ * <p>
+ * Benchmarks are compiled with the tests but never run by Surefire. Run one with:
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/bench.cp
+ * java -cp target/test-classes:target/classes:$(cat target/bench.cp) \
+ *     org.openjdk.jmh.Main LoggingAspectEncodingBenchmark -prof gc
+ * </pre>
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {}
+
+    /**
+     * Routes the given logger to an appender that drops events, so benchmarks measure payload
+     * construction rather than console I/O.
+     */
+    static void silence(Class<?> loggerClass, Level level) {
+        ch.qos.logback.classic.Logger logger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(loggerClass);
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+        logger.setLevel(level);
+        AppenderBase<ILoggingEvent> discarding = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                // dropped
+            }
+        };
+        discarding.setContext(logger.getLoggerContext());
+        discarding.start();
+        logger.addAppender(discarding);
+    }
+
+    /**
+     * Wraps the target in a real Spring AOP proxy advised by the given aspect.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T proxy(T target, Object aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return (T) factory.getProxy();
+    }
+}
@@ -0,0 +1,69 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedJsonGeneratorTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static String capture(Object value, int maxDepth, int maxElements, int maxBytes) throws Exception {
+        CommonLoggerProperties.Capture limits = new CommonLoggerProperties.Capture();
+        limits.setMaxDepth(maxDepth);
+        limits.setMaxElements(maxElements);
+        limits.setMaxBytes(maxBytes);
+        String json = OBJECT_MAPPER.writeValueAsString(new CapturedValue(value, limits));
+        OBJECT_MAPPER.readTree(json);
+        return json;
+    }
+
+    @Test
+    void writesValuesWithinLimitsUnchanged() throws Exception {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("id", 42);
+        value.put("tags", List.of("a", "b"));
+        value.put("active", true);
+
+        assertThat(capture(value, 5, 50, 4096)).isEqualTo("{\"id\":42,\"tags\":[\"a\",\"b\"],\"active\":true}");
+    }
+
+    @Test
+    void replacesContainersBeyondMaxDepth() throws Exception {
+        Object value = Map.of("a", Map.of("b", Map.of("c", 1)));
+
+        assertThat(capture(value, 2, 50, 4096)).isEqualTo("{\"a\":{\"b\":\"...\"}}");
+        assertThat(capture(List.of(List.of(List.of(1))), 2, 50, 4096)).isEqualTo("[[\"...\"]]");
+    }
+
+    @Test
+    void keepsFirstElementsOfArraysAndObjects() throws Exception {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("a", List.of(1, 2, 3, 4));
+        value.put("b", new int[]{5, 6, 7});
+        value.put("c", 3);
+
+        assertThat(capture(value, 5, 2, 4096))
+                .isEqualTo("{\"a\":[1,2,\"...\"],\"b\":[5,6,\"...\"],\"_truncated\":true}");
+    }
+
+    @Test
+    void cutsTextAndStopsOnceBudgetIsSpent() throws Exception {
+        List<String> value = List.of("abcdefghijklmnopqrstuvwxyz", "never written");
+
+        assertThat(capture(value, 5, 50, 16)).isEqualTo("[\"abcdefgh...\"]");
+        assertThat(capture(Map.of("key", List.of(1, 2, 3, 4, 5, 6, 7, 8)), 5, 50, 20))
+                .isEqualTo("{\"key\":[1,2,3,4,\"...\"]}");
+    }
+
+    @Test
+    void writesPlaceholderForUnserializableValues() throws Exception {
+        assertThat(capture(new Object(), 5, 50, 4096)).isEqualTo("\"<unserializable: Object>\"");
+        assertThat(capture(null, 5, 50, 4096)).isEqualTo("null");
+    }
+}
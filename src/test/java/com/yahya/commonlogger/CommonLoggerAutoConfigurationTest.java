@@ -1,8 +1,17 @@
 package com.yahya.commonlogger;
 
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.FilteredClassLoader;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.core.task.TaskDecorator;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -29,4 +38,112 @@ class CommonLoggerAutoConfigurationTest {
                     assertThat(props.getApiId()).isEqualTo("TestApi");
                 });
     }
+
+    @Test
+    void registersAsyncDispatcherOnlyWhenEnabled() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(AsyncLogDispatcher.class));
+        contextRunner.withPropertyValues("common.logger.async.enabled=true", "common.logger.async.capacity=64")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(AsyncLogDispatcher.class);
+                    assertThat(context.getBean(AsyncLogDispatcher.class).getCapacity()).isEqualTo(64);
+                });
+    }
+
+    @Test
+    void selectsCorrelationIdGeneratorFromProperties() {
+        contextRunner.withPropertyValues("common.logger.correlation-id-generator=ulid")
+                .run(context -> assertThat(context.getBean(CorrelationIdGenerator.class).generate()).hasSize(26));
+    }
+
+    @Test
+    void registersMaskFieldModuleWithoutTouchingApplicationObjectMapper() {
+        contextRunner.withBean("applicationObjectMapper", ObjectMapper.class, ObjectMapper::new)
+                .run(context -> {
+                    ObjectMapper application = context.getBean(ObjectMapper.class);
+                    assertThat(application.getRegisteredModuleIds()).doesNotContain(MaskFieldModule.MODULE_NAME);
+                    assertThat(context).hasSingleBean(StructuredLogger.class);
+                });
+        contextRunner.run(context -> {
+            ObjectMapper commonLoggerObjectMapper = context.getBean("commonLoggerObjectMapper", ObjectMapper.class);
+            assertThat(commonLoggerObjectMapper.getRegisteredModuleIds()).doesNotContain(MaskFieldModule.MODULE_NAME);
+            assertThat(commonLoggerObjectMapper.writeValueAsString(new SensitiveDataMaskingTest.LoginRequest("john", "hunter2", "1")))
+                    .contains("hunter2");
+
+            ch.qos.logback.classic.Logger structuredLoggerLogger =
+                    (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(StructuredLogger.class);
+            ListAppender<ILoggingEvent> appender = new ListAppender<>();
+            appender.start();
+            structuredLoggerLogger.addAppender(appender);
+            try {
+                context.getBean(StructuredLogger.class).newLog()
+                        .withRequest(new SensitiveDataMaskingTest.LoginRequest("john", "hunter2", "1"))
+                        .onSuccess("ok", 1);
+            } finally {
+                structuredLoggerLogger.detachAppender(appender);
+            }
+            assertThat(appender.list).singleElement()
+                    .satisfies(event -> assertThat(event.getFormattedMessage()).doesNotContain("hunter2"));
+        });
+    }
+
+    @Test
+    void registersPatternRedactingMaskerOnlyWhenEnabled() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean("patternRedactingMasker"));
+        contextRunner.withPropertyValues("common.logger.redaction.enabled=true", "common.logger.redaction.phone=true")
+                .run(context -> assertThat(context.getBean("patternRedactingMasker"))
+                        .isInstanceOf(PatternRedactingMasker.class));
+    }
+
+    @Test
+    void registersErrorCoalescerOnlyWhenEnabled() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(ErrorCoalescer.class));
+        contextRunner.withPropertyValues("common.logger.error-coalescing.enabled=true",
+                        "common.logger.error-coalescing.window=30s")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(ErrorCoalescer.class);
+                    assertThat(context).hasSingleBean(LoggingAspect.class);
+                });
+    }
+
+    @Test
+    void registersLoggableMetricsOnlyWhenEnabledWithMeterRegistry() {
+        ApplicationContextRunner withRegistry = contextRunner
+                .withBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        withRegistry.run(context -> assertThat(context).doesNotHaveBean(LoggableMetrics.class));
+        contextRunner.withPropertyValues("common.logger.metrics.enabled=true")
+                .run(context -> assertThat(context).doesNotHaveBean(LoggableMetrics.class));
+        withRegistry.withPropertyValues("common.logger.metrics.enabled=true")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(LoggableMetrics.class);
+                    assertThat(context).hasSingleBean(LoggingAspect.class);
+                });
+        withRegistry.withPropertyValues("common.logger.metrics.enabled=true")
+                .withClassLoader(new FilteredClassLoader(MeterRegistry.class))
+                .run(context -> {
+                    assertThat(context).doesNotHaveBean(LoggableMetrics.class);
+                    assertThat(context).hasSingleBean(LoggingAspect.class);
+                });
+    }
+
+    @Test
+    void registersCorrelationIdWebFilterOnlyInReactiveApplications() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(CorrelationIdWebFilter.class));
+        new ReactiveWebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(CommonLoggerAutoConfiguration.class))
+                .run(context -> assertThat(context).hasSingleBean(CorrelationIdWebFilter.class));
+    }
+
+    @Test
+    void registersPropagationTaskDecoratorOnlyWhenEnabled() {
+        contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(ContextPropagation.class);
+            assertThat(context).doesNotHaveBean(TaskDecorator.class);
+        });
+        contextRunner.withPropertyValues("common.logger.propagation.enabled=true")
+                .run(context -> assertThat(context).hasSingleBean(TaskDecorator.class));
+        contextRunner.withPropertyValues("common.logger.propagation.enabled=true")
+                .withBean("applicationTaskDecorator", TaskDecorator.class, () -> runnable -> runnable)
+                .run(context -> assertThat(context.getBeansOfType(TaskDecorator.class))
+                        .containsOnlyKeys("applicationTaskDecorator"));
+    }
 }
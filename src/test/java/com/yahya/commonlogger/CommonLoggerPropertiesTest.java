@@ -3,6 +3,10 @@ package com.yahya.commonlogger;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.logging.LogLevel;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -100,4 +104,135 @@ class CommonLoggerPropertiesTest {
         props.setCorrelationIdMdcKey("custom-corr-key");
         assertThat(props.getTransactionIdMdcKey()).isEqualTo("custom-corr-key");
     }
+
+    @Test
+    void rejectsInvalidAsyncSettings() {
+        CommonLoggerProperties.Async async = new CommonLoggerProperties().getAsync();
+        assertThat(async.isEnabled()).isFalse();
+        assertThatThrownBy(() -> async.setCapacity(1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("async.capacity");
+        assertThatThrownBy(() -> async.setSampleRate(1.5))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("async.sample-rate");
+        assertThatThrownBy(() -> async.setDiscardThreshold(LogLevel.ERROR))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("async.discard-threshold");
+    }
+
+    @Test
+    void rejectsInvalidStackTraceSettings() {
+        CommonLoggerProperties.StackTrace stackTrace = new CommonLoggerProperties().getStackTrace();
+
+        assertThatThrownBy(() -> stackTrace.setMaxDepth(-1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.stack-trace.max-depth");
+        assertThatThrownBy(() -> stackTrace.setCacheSize(-1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.stack-trace.cache-size");
+    }
+
+    @Test
+    void rejectsInvalidErrorCoalescingSettings() {
+        CommonLoggerProperties.ErrorCoalescing coalescing = new CommonLoggerProperties().getErrorCoalescing();
+        assertThat(coalescing.isEnabled()).isFalse();
+
+        assertThatThrownBy(() -> coalescing.setFullOccurrences(-1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.error-coalescing.full-occurrences");
+        assertThatThrownBy(() -> coalescing.setWindow(Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.error-coalescing.window");
+        assertThatThrownBy(() -> coalescing.setMaxKeys(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.error-coalescing.max-keys");
+    }
+
+    @Test
+    void rejectsInvalidSamplingSettings() {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        CommonLoggerProperties.Sampling sampling = props.getSampling();
+        assertThat(sampling.isEnabled()).isFalse();
+        assertThat(props.getSlowThreshold()).isEqualTo(Duration.ZERO);
+
+        assertThatThrownBy(() -> sampling.setRate(1.1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.sampling.rate");
+        assertThatThrownBy(() -> sampling.setLogPointRates(Map.of("Demo-run-End", -0.5)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.sampling.log-point-rates[Demo-run-End]");
+        assertThatThrownBy(() -> sampling.setMaxEventsPerSecond(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.sampling.max-events-per-second");
+        assertThatThrownBy(() -> props.setSlowThreshold(Duration.ofMillis(-1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.slow-threshold");
+    }
+
+    @Test
+    void rejectsInvalidRequestBufferSettings() {
+        CommonLoggerProperties.RequestBuffer buffer = new CommonLoggerProperties().getRequestBuffer();
+        assertThat(buffer.isEnabled()).isFalse();
+
+        assertThatThrownBy(() -> buffer.setLevel(LogLevel.ERROR))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.request-buffer.level");
+        assertThatThrownBy(() -> buffer.setFlushLevel(LogLevel.OFF))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.request-buffer.flush-level");
+        assertThatThrownBy(() -> buffer.setCapacity(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.request-buffer.capacity");
+        assertThatThrownBy(() -> buffer.setFlushStatus(600))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.request-buffer.flush-status");
+    }
+
+    @Test
+    void rejectsInvalidMetricsSettings() {
+        CommonLoggerProperties.Metrics metrics = new CommonLoggerProperties().getMetrics();
+        assertThat(metrics.isEnabled()).isFalse();
+        assertThat(metrics.getName()).isEqualTo("loggable.invocation");
+
+        assertThatThrownBy(() -> metrics.setName(" "))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.metrics.name");
+        assertThatThrownBy(() -> metrics.setPercentiles(List.of(0.5, 1.5)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.metrics.percentiles");
+        assertThatThrownBy(() -> metrics.setMaxLogPoints(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.metrics.max-log-points");
+    }
+
+    @Test
+    void rejectsInvalidCaptureSettings() {
+        CommonLoggerProperties.Capture capture = new CommonLoggerProperties().getCapture();
+        assertThat(capture.getMaxBytes()).isEqualTo(4096);
+        assertThat(capture.getMaxElements()).isEqualTo(50);
+        assertThat(capture.getMaxDepth()).isEqualTo(5);
+
+        assertThatThrownBy(() -> capture.setMaxBytes(8))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.capture.max-bytes");
+        assertThatThrownBy(() -> capture.setMaxElements(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.capture.max-elements");
+        assertThatThrownBy(() -> capture.setMaxDepth(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.capture.max-depth");
+    }
+
+    @Test
+    void rejectsInvalidBatchSettings() {
+        CommonLoggerProperties.Batch batch = new CommonLoggerProperties().getBatch();
+        assertThat(batch.getMode()).isEqualTo(CommonLoggerProperties.BatchMode.EVENTS);
+        assertThat(batch.getMaxEvents()).isEqualTo(1000);
+
+        batch.setMode(null);
+        assertThat(batch.getMode()).isEqualTo(CommonLoggerProperties.BatchMode.EVENTS);
+        assertThatThrownBy(() -> batch.setMaxEvents(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("common.logger.batch.max-events");
+    }
 }
@@ -0,0 +1,69 @@
+package com.yahya.commonlogger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextPropagationTest {
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    void propagatesOnlyConfiguredKeysToExecutorThreads() throws Exception {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setTransactionIdMdcKey("transactionId");
+        props.getPropagation().setMdcKeys(List.of("tenantId"));
+        ContextPropagation propagation = new ContextPropagation(props);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        ExecutorService executor = propagation.wrap(pool);
+        try {
+            MDC.put("correlationId", "corr-1");
+            MDC.put("transactionId", "tx-1");
+            MDC.put("tenantId", "t-1");
+            MDC.put("unrelated", "x");
+
+            Map<String, String> seen = executor.submit(MDC::getCopyOfContextMap).get(5, TimeUnit.SECONDS);
+            String viaSupplier = CompletableFuture.supplyAsync(
+                    propagation.wrapSupplier(() -> MDC.get("correlationId")), pool).get(5, TimeUnit.SECONDS);
+            MDC.clear();
+            Map<String, String> afterwards = pool.submit(MDC::getCopyOfContextMap).get(5, TimeUnit.SECONDS);
+
+            assertThat(seen).containsOnly(Map.entry("correlationId", "corr-1"), Map.entry("transactionId", "tx-1"),
+                    Map.entry("tenantId", "t-1"));
+            assertThat(viaSupplier).isEqualTo("corr-1");
+            assertThat(afterwards == null ? Map.of() : afterwards).isEmpty();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void restoresWorkerValuesAndSkipsWrappingWithoutIds() {
+        ContextPropagation propagation = new ContextPropagation(new CommonLoggerProperties());
+        Runnable task = () -> { };
+
+        assertThat(propagation.capture()).isNull();
+        assertThat(propagation.wrap(task)).isSameAs(task);
+        assertThat(propagation.taskDecorator().decorate(task)).isSameAs(task);
+
+        MDC.put("correlationId", "submitter");
+        ContextPropagation.Snapshot snapshot = propagation.capture();
+        MDC.put("correlationId", "worker");
+        try (ContextPropagation.Snapshot.Scope ignored = snapshot.open()) {
+            assertThat(MDC.get("correlationId")).isEqualTo("submitter");
+        }
+        assertThat(MDC.get("correlationId")).isEqualTo("worker");
+    }
+}
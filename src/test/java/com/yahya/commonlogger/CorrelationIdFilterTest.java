@@ -1,16 +1,26 @@
 package com.yahya.commonlogger;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.boot.logging.LogLevel;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -79,4 +89,140 @@ class CorrelationIdFilterTest {
         
         assertThat(response.getHeader("X-Custom-ID")).isEqualTo(existingId);
     }
+
+    @Test
+    void usesConfiguredGeneratorWhenHeaderMissing() throws ServletException, IOException {
+        filter = new CorrelationIdFilter(properties, () -> "generated-id");
+
+        filter.doFilter(request, response, filterChain);
+
+        assertThat(response.getHeader(properties.getCorrelationIdHeader())).isEqualTo("generated-id");
+    }
+
+    @Test
+    void usesGeneratorKindFromProperties() throws ServletException, IOException {
+        properties.setCorrelationIdGenerator(CorrelationIdGenerator.Kind.RANDOM_HEX);
+        filter = new CorrelationIdFilter(properties);
+
+        filter.doFilter(request, response, filterChain);
+
+        assertThat(response.getHeader(properties.getCorrelationIdHeader())).matches("[0-9a-f]{32}");
+    }
+
+    @Test
+    void discardsBufferedDebugEventsOfHealthyRequest() throws ServletException, IOException {
+        ListAppender<ILoggingEvent> appender = attachStructuredLoggerAppender();
+        try {
+            StructuredLogger logger = bufferingSetUp();
+
+            filter.doFilter(request, response, (req, res) -> logDebug(logger, "step-1"));
+
+            assertThat(appender.list).isEmpty();
+        } finally {
+            detachStructuredLoggerAppender(appender);
+        }
+    }
+
+    @Test
+    void flushesBufferedEventsWhenRequestFails() throws ServletException, IOException {
+        ListAppender<ILoggingEvent> appender = attachStructuredLoggerAppender();
+        try {
+            StructuredLogger logger = bufferingSetUp();
+
+            assertThatThrownBy(() -> filter.doFilter(request, response, (req, res) -> {
+                logDebug(logger, "step-1");
+                logDebug(logger, "step-2");
+                throw new IllegalStateException("boom");
+            })).isInstanceOf(IllegalStateException.class);
+
+            assertThat(appender.list).hasSize(2).allSatisfy(event -> {
+                assertThat(event.getLevel()).isEqualTo(Level.INFO);
+                assertThat(event.getFormattedMessage()).contains("\"logLevel\":\"debug\"");
+            });
+            assertThat(appender.list.get(0).getFormattedMessage()).contains("step-1");
+            assertThat(appender.list.get(1).getFormattedMessage()).contains("step-2");
+        } finally {
+            detachStructuredLoggerAppender(appender);
+        }
+    }
+
+    @Test
+    void flushesOnErrorStatusErrorEventAndKeepsMostRecentEvents() throws ServletException, IOException {
+        ListAppender<ILoggingEvent> appender = attachStructuredLoggerAppender();
+        try {
+            properties.getRequestBuffer().setCapacity(2);
+            StructuredLogger logger = bufferingSetUp();
+
+            filter.doFilter(request, response, (req, res) -> {
+                logDebug(logger, "step-1");
+                logDebug(logger, "step-2");
+                logDebug(logger, "step-3");
+                ((MockHttpServletResponse) res).setStatus(503);
+            });
+            assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                    .hasSize(2)
+                    .anySatisfy(message -> assertThat(message).contains("step-2"))
+                    .anySatisfy(message -> assertThat(message).contains("step-3"));
+
+            appender.list.clear();
+            filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), (req, res) -> {
+                logDebug(logger, "step-1");
+                logger.newLog().onFailure(new IllegalStateException("handled"), 5);
+            });
+            assertThat(appender.list).extracting(ILoggingEvent::getLevel).containsExactly(Level.ERROR, Level.INFO);
+        } finally {
+            detachStructuredLoggerAppender(appender);
+        }
+    }
+
+    @Test
+    void recyclesBuffersThroughBoundedPool() throws ServletException, IOException {
+        properties.getRequestBuffer().setPoolSize(1);
+        RequestLogBuffer.Pool pool = new RequestLogBuffer.Pool(properties.getRequestBuffer());
+        org.slf4j.Logger logger = LoggerFactory.getLogger(StructuredLogger.class);
+
+        RequestLogBuffer first = pool.acquire();
+        first.bind();
+        assertThat(RequestLogBuffer.offer(logger, LogLevel.DEBUG, Map.of(), (level, payload) -> "{}")).isTrue();
+        first.unbind();
+        assertThat(first.size()).isEqualTo(1);
+        pool.release(first);
+
+        RequestLogBuffer second = pool.acquire();
+        assertThat(second).isSameAs(first);
+        assertThat(second.size()).isZero();
+        assertThat(pool.acquire()).isNotSameAs(first);
+        pool.release(second);
+        pool.release(pool.acquire());
+        assertThat(pool.idleCount()).isEqualTo(1);
+
+        bufferingSetUp();
+        filter.doFilter(request, response, (req, res) -> assertThat(RequestLogBuffer.captures(LogLevel.DEBUG)).isTrue());
+        assertThat(RequestLogBuffer.captures(LogLevel.DEBUG)).isFalse();
+    }
+
+    private StructuredLogger bufferingSetUp() {
+        properties.getRequestBuffer().setEnabled(true);
+        filter = new CorrelationIdFilter(properties);
+        return new StructuredLogger(properties, new ObjectMapper(), List.of());
+    }
+
+    private static void logDebug(StructuredLogger logger, String step) {
+        logger.newLog().withLogLevel(LogLevel.DEBUG).withAdditionalData("step", step).onSuccess(null, 1);
+    }
+
+    private static ListAppender<ILoggingEvent> attachStructuredLoggerAppender() {
+        Logger logger = (Logger) LoggerFactory.getLogger(StructuredLogger.class);
+        logger.setLevel(Level.INFO);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        return appender;
+    }
+
+    private static void detachStructuredLoggerAppender(ListAppender<ILoggingEvent> appender) {
+        Logger logger = (Logger) LoggerFactory.getLogger(StructuredLogger.class);
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+    }
 }
@@ -0,0 +1,45 @@
+package com.yahya.commonlogger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the built-in correlation id generators with 32 concurrent callers, the situation
+ * in which {@code UUID.randomUUID()} contends on its shared {@code SecureRandom}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(32)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CorrelationIdGeneratorBenchmark {
+
+    @Param({"UUID", "RANDOM_HEX", "UUID_V7", "ULID"})
+    public CorrelationIdGenerator.Kind kind;
+
+    private CorrelationIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = kind.create();
+    }
+
+    @Benchmark
+    public String generate() {
+        return generator.generate();
+    }
+}
@@ -0,0 +1,60 @@
+package com.yahya.commonlogger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CorrelationIdGeneratorTest {
+
+    @Test
+    void uuidKeepsRandomUuidFormat() {
+        String id = CorrelationIdGenerator.Kind.UUID.create().generate();
+        assertThat(UUID.fromString(id).version()).isEqualTo(4);
+    }
+
+    @Test
+    void randomHexProduces32LowerCaseHexCharacters() {
+        String id = CorrelationIdGenerator.Kind.RANDOM_HEX.create().generate();
+        assertThat(id).matches("[0-9a-f]{32}");
+    }
+
+    @Test
+    void uuidV7EmbedsCurrentTimeAndVersionBits() {
+        long before = System.currentTimeMillis();
+        String id = CorrelationIdGenerator.Kind.UUID_V7.create().generate();
+        long after = System.currentTimeMillis();
+
+        UUID uuid = UUID.fromString(id);
+        assertThat(id).hasSize(36);
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(uuid.getMostSignificantBits() >>> 16).isBetween(before, after);
+    }
+
+    @Test
+    void ulidIsCrockfordBase32AndSortsByTime() throws InterruptedException {
+        CorrelationIdGenerator generator = CorrelationIdGenerator.Kind.ULID.create();
+        String first = generator.generate();
+        Thread.sleep(2);
+        String second = generator.generate();
+
+        assertThat(first).matches("[0-9A-HJKMNP-TV-Z]{26}");
+        assertThat(first.substring(0, 10)).isLessThan(second.substring(0, 10));
+    }
+
+    @Test
+    void generatorsDoNotRepeat() {
+        for (CorrelationIdGenerator.Kind kind : CorrelationIdGenerator.Kind.values()) {
+            CorrelationIdGenerator generator = kind.create();
+            Set<String> ids = new HashSet<>();
+            for (int i = 0; i < 10_000; i++) {
+                ids.add(generator.generate());
+            }
+            assertThat(ids).as(kind.name()).hasSize(10_000);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.yahya.commonlogger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CorrelationIdWebFilterTest {
+
+    private CommonLoggerProperties properties;
+    private CorrelationIdWebFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CommonLoggerProperties();
+        filter = new CorrelationIdWebFilter(properties);
+        MDC.clear();
+    }
+
+    @Test
+    void generatesCorrelationIdIntoContextAndHeaderIfMissing() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/orders"));
+        AtomicReference<Object> seen = new AtomicReference<>();
+
+        filter.filter(exchange, capturing(seen)).block();
+
+        String correlationId = exchange.getResponse().getHeaders().getFirst(properties.getCorrelationIdHeader());
+        assertThat(correlationId).isNotBlank();
+        assertThat(seen.get()).isEqualTo(correlationId);
+        assertThat(MDC.get(properties.getCorrelationIdMdcKey())).isNull();
+    }
+
+    @Test
+    void usesExistingCorrelationIdWithCustomHeaderAndKey() {
+        properties.setCorrelationIdHeader("X-Custom-ID");
+        properties.setCorrelationIdMdcKey("customKey");
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/orders").header("X-Custom-ID", "custom-id-123"));
+        AtomicReference<Object> seen = new AtomicReference<>();
+
+        filter.filter(exchange, capturing(seen)).block();
+
+        assertThat(exchange.getResponse().getHeaders().getFirst("X-Custom-ID")).isEqualTo("custom-id-123");
+        assertThat(seen.get()).isEqualTo("custom-id-123");
+    }
+
+    @Test
+    void bridgesContextIntoMdcOnlyAroundAction() {
+        MDC.put(properties.getCorrelationIdMdcKey(), "outer");
+        AtomicReference<String> inside = new AtomicReference<>();
+
+        filter.withMdc(Context.of(properties.getCorrelationIdMdcKey(), "corr-1"),
+                () -> inside.set(MDC.get(properties.getCorrelationIdMdcKey())));
+
+        assertThat(inside.get()).isEqualTo("corr-1");
+        assertThat(MDC.get(properties.getCorrelationIdMdcKey())).isEqualTo("outer");
+
+        MDC.clear();
+        filter.withMdc(Context.of(properties.getCorrelationIdMdcKey(), "corr-2"), () -> { });
+        assertThat(MDC.get(properties.getCorrelationIdMdcKey())).isNull();
+    }
+
+    private WebFilterChain capturing(AtomicReference<Object> seen) {
+        return exchange -> Mono.deferContextual(context -> {
+            seen.set(context.getOrDefault(properties.getCorrelationIdMdcKey(), null));
+            return Mono.empty();
+        });
+    }
+}
@@ -0,0 +1,167 @@
+package com.yahya.commonlogger;
+
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ErrorCoalescerTest {
+
+    private static final JoinPointMetadata CHARGE = metadata("charge");
+    private static final JoinPointMetadata REFUND = metadata("refund");
+
+    private final List<ErrorCoalescer.Summary> summaries = new ArrayList<>();
+    private final ErrorCoalescer.SummarySink sink = summaries::add;
+    private ErrorCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.close();
+        }
+    }
+
+    @Test
+    void logsFirstOccurrencesInFullAndSummarizesTheRest() {
+        coalescer = coalescer(2, 2, 16);
+        RuntimeException failure = new IllegalStateException("downstream unavailable");
+
+        List<Boolean> admitted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            admitted.add(coalescer.admit(CHARGE, failure, 42L, 10L * (i + 1), "tx-" + i, sink));
+        }
+        coalescer.flush();
+
+        assertThat(admitted).containsExactly(true, true, false, false, false);
+        assertThat(coalescer.getSuppressedCount()).isEqualTo(3);
+        assertThat(summaries).singleElement().satisfies(summary -> {
+            assertThat(summary.apiId()).isEqualTo("Payments");
+            assertThat(summary.logPoint()).isEqualTo("Payments-charge-Error");
+            assertThat(summary.exceptionClass()).isEqualTo(IllegalStateException.class.getName());
+            assertThat(summary.fingerprint()).isEqualTo("000000000000002a");
+            assertThat(summary.error()).isEqualTo("downstream unavailable");
+            assertThat(summary.occurrences()).isEqualTo(5);
+            assertThat(summary.suppressed()).isEqualTo(3);
+            assertThat(summary.minProcessTime()).isEqualTo(10);
+            assertThat(summary.maxProcessTime()).isEqualTo(50);
+            assertThat(summary.avgProcessTime()).isEqualTo(30);
+            assertThat(summary.sampleTransactionIds()).containsExactly("tx-2", "tx-3");
+            assertThat(summary.windowEnd()).isAfterOrEqualTo(summary.windowStart());
+        });
+    }
+
+    @Test
+    void startsOverInTheNextWindowAndSkipsSummaryWithoutSuppression() {
+        coalescer = coalescer(1, 5, 16);
+        RuntimeException failure = new IllegalStateException("boom");
+
+        assertThat(coalescer.admit(CHARGE, failure, 1L, 5, "tx-1", sink)).isTrue();
+        coalescer.flush();
+        assertThat(summaries).isEmpty();
+        assertThat(coalescer.getTrackedKeyCount()).isZero();
+
+        assertThat(coalescer.admit(CHARGE, failure, 1L, 5, "tx-2", sink)).isTrue();
+        assertThat(coalescer.admit(CHARGE, failure, 1L, 5, "tx-3", sink)).isFalse();
+    }
+
+    @Test
+    void keysByLogPointExceptionClassAndFingerprint() {
+        coalescer = coalescer(1, 5, 16);
+
+        assertThat(coalescer.admit(CHARGE, new IllegalStateException("a"), 1L, 1, null, sink)).isTrue();
+        assertThat(coalescer.admit(CHARGE, new IllegalStateException("b"), 1L, 1, null, sink)).isFalse();
+        assertThat(coalescer.admit(CHARGE, new IllegalStateException("c"), 2L, 1, null, sink)).isTrue();
+        assertThat(coalescer.admit(CHARGE, new IllegalArgumentException("d"), 1L, 1, null, sink)).isTrue();
+        assertThat(coalescer.admit(REFUND, new IllegalStateException("e"), 1L, 1, null, sink)).isTrue();
+        assertThat(coalescer.getTrackedKeyCount()).isEqualTo(4);
+    }
+
+    @Test
+    void logsInFullOnceMaxKeysIsReached() {
+        coalescer = coalescer(0, 5, 1);
+
+        assertThat(coalescer.admit(CHARGE, new IllegalStateException(), 1L, 1, null, sink)).isFalse();
+        assertThat(coalescer.admit(REFUND, new IllegalStateException(), 1L, 1, null, sink)).isTrue();
+        assertThat(coalescer.admit(REFUND, new IllegalStateException(), 1L, 1, null, sink)).isTrue();
+    }
+
+    @Test
+    void countsExactlyUnderContention() throws Exception {
+        coalescer = coalescer(3, 4, 16);
+        RuntimeException failure = new IllegalStateException("boom");
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    int full = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        if (coalescer.admit(CHARGE, failure, 7L, i % 100, "tx", sink)) {
+                            full++;
+                        }
+                    }
+                    return full;
+                }));
+            }
+            start.countDown();
+            int full = 0;
+            for (Future<Integer> result : results) {
+                full += result.get(30, TimeUnit.SECONDS);
+            }
+            coalescer.flush();
+
+            assertThat(full).isEqualTo(3);
+            assertThat(summaries).singleElement().satisfies(summary -> {
+                assertThat(summary.occurrences()).isEqualTo((long) threads * perThread);
+                assertThat(summary.suppressed()).isEqualTo((long) threads * perThread - 3);
+                assertThat(summary.minProcessTime()).isZero();
+                assertThat(summary.maxProcessTime()).isEqualTo(99);
+                assertThat(summary.sampleTransactionIds()).hasSize(4);
+            });
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void emitsPendingSummariesAndStopsCoalescingOnClose() {
+        coalescer = coalescer(0, 5, 16);
+        RuntimeException failure = new IllegalStateException("boom");
+
+        assertThat(coalescer.admit(CHARGE, failure, 1L, 1, "tx-1", sink)).isFalse();
+        coalescer.close();
+
+        assertThat(summaries).hasSize(1);
+        assertThat(coalescer.admit(CHARGE, failure, 1L, 1, "tx-2", sink)).isTrue();
+    }
+
+    private static ErrorCoalescer coalescer(int fullOccurrences, int sampleSize, int maxKeys) {
+        CommonLoggerProperties.ErrorCoalescing settings = new CommonLoggerProperties.ErrorCoalescing();
+        settings.setFullOccurrences(fullOccurrences);
+        settings.setSampleSize(sampleSize);
+        settings.setMaxKeys(maxKeys);
+        return new ErrorCoalescer(settings);
+    }
+
+    private static JoinPointMetadata metadata(String method) {
+        Signature signature = mock(Signature.class);
+        when(signature.getName()).thenReturn(method);
+        when(signature.getDeclaringTypeName()).thenReturn("com.example.PaymentService");
+        return JoinPointMetadata.resolve(signature, "Payments");
+    }
+}
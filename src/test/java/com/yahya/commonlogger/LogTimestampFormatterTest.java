@@ -0,0 +1,75 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogTimestampFormatterTest {
+
+    private static final DateTimeFormatter EXPECTED = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSXXX");
+
+    @Test
+    void rendersIsoOffsetWithMillisecondsAcrossSeconds() {
+        ZoneId zone = ZoneId.of("Asia/Jakarta");
+        LogTimestampFormatter formatter = new LogTimestampFormatter(
+                CommonLoggerProperties.TimestampFormat.ISO_OFFSET, zone, Clock.systemUTC());
+
+        long base = Instant.parse("2026-03-17T08:00:00Z").toEpochMilli();
+        for (long millis : new long[]{base, base + 7, base + 999, base + 1_000, base + 1_042, base + 61_500}) {
+            assertThat(formatter.value(millis))
+                    .isEqualTo(EXPECTED.format(OffsetDateTime.ofInstant(Instant.ofEpochMilli(millis), zone)));
+        }
+        assertThat(formatter.value(base + 42)).isEqualTo("2026-03-17T15:00:00.042+07:00");
+    }
+
+    @Test
+    void followsOffsetChangesAndUtc() {
+        ZoneId zone = ZoneId.of("Europe/Amsterdam");
+        LogTimestampFormatter formatter = new LogTimestampFormatter(
+                CommonLoggerProperties.TimestampFormat.ISO_OFFSET, zone, Clock.systemUTC());
+        LogTimestampFormatter utc = new LogTimestampFormatter(
+                CommonLoggerProperties.TimestampFormat.ISO_OFFSET, ZoneOffset.UTC, Clock.systemUTC());
+
+        long beforeDst = Instant.parse("2026-03-29T00:59:59.500Z").toEpochMilli();
+        assertThat(formatter.value(beforeDst)).isEqualTo("2026-03-29T01:59:59.500+01:00");
+        assertThat(formatter.value(beforeDst + 1_000)).isEqualTo("2026-03-29T03:00:00.500+02:00");
+        assertThat(utc.value(beforeDst)).isEqualTo("2026-03-29T00:59:59.500Z");
+    }
+
+    @Test
+    void capturesEpochFormatsAsNumbers() {
+        Instant instant = Instant.parse("2026-03-17T08:00:00.123456789Z");
+        Clock clock = Clock.fixed(instant, ZoneOffset.UTC);
+        LogTimestampFormatter millis = new LogTimestampFormatter(
+                CommonLoggerProperties.TimestampFormat.EPOCH_MILLIS, ZoneOffset.UTC, clock);
+        LogTimestampFormatter micros = new LogTimestampFormatter(
+                CommonLoggerProperties.TimestampFormat.EPOCH_MICROS, ZoneOffset.UTC, clock);
+
+        assertThat(millis.value(millis.now())).isEqualTo(instant.toEpochMilli());
+        assertThat(micros.value(micros.now())).isEqualTo(instant.getEpochSecond() * 1_000_000L + 123_456L);
+    }
+
+    @Test
+    void writesIntoGeneratorLikeValue() throws Exception {
+        LogTimestampFormatter formatter = new LogTimestampFormatter(
+                CommonLoggerProperties.TimestampFormat.ISO_OFFSET, ZoneOffset.ofHours(7), Clock.systemUTC());
+        long timestamp = formatter.now();
+
+        StringWriter out = new StringWriter();
+        try (JsonGenerator gen = new ObjectMapper().createGenerator(out)) {
+            formatter.write(gen, timestamp);
+        }
+
+        assertThat(out.toString()).isEqualTo("\"" + formatter.value(timestamp) + "\"");
+    }
+}
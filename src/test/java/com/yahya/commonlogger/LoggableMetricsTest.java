@@ -0,0 +1,81 @@
+package com.yahya.commonlogger;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoggableMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CommonLoggerProperties.Metrics settings = new CommonLoggerProperties.Metrics();
+
+    @Test
+    void recordsSuccessesAndFailuresInSeparatelyTaggedTimers() {
+        LoggableMetrics metrics = new LoggableMetrics(registry, settings);
+        JoinPointMetadata charge = metadata("charge");
+
+        metrics.record(charge, 10, TimeUnit.MILLISECONDS, null);
+        metrics.record(charge, 30, TimeUnit.MILLISECONDS, null);
+        metrics.record(charge, 50, TimeUnit.MILLISECONDS, "SERVER_ERROR");
+        metrics.record(charge, 70, TimeUnit.MILLISECONDS, "CLIENT_ERROR");
+
+        Timer success = registry.get("loggable.invocation")
+                .tags("apiId", "Payments", "logPoint", "Payments-charge-End", "outcome", "SUCCESS", "errorType", "NONE")
+                .timer();
+        assertThat(success.count()).isEqualTo(2);
+        assertThat(success.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(40.0);
+        Timer serverError = registry.get("loggable.invocation")
+                .tags("logPoint", "Payments-charge-Error", "outcome", "FAILURE", "errorType", "SERVER_ERROR")
+                .timer();
+        assertThat(serverError.count()).isEqualTo(1);
+        assertThat(registry.get("loggable.invocation").tag("errorType", "CLIENT_ERROR").timer().count()).isEqualTo(1);
+        assertThat(metrics.getTrackedLogPointCount()).isEqualTo(1);
+    }
+
+    @Test
+    void sharesOverflowTimersOnceMaxLogPointsIsReached() {
+        settings.setMaxLogPoints(1);
+        LoggableMetrics metrics = new LoggableMetrics(registry, settings);
+
+        metrics.record(metadata("charge"), 1, TimeUnit.MILLISECONDS, null);
+        metrics.record(metadata("refund"), 1, TimeUnit.MILLISECONDS, null);
+        metrics.record(metadata("capture"), 1, TimeUnit.MILLISECONDS, "SERVER_ERROR");
+        metrics.record(metadata("charge"), 1, TimeUnit.MILLISECONDS, null);
+
+        assertThat(metrics.getTrackedLogPointCount()).isEqualTo(1);
+        assertThat(registry.get("loggable.invocation").tag("logPoint", "Payments-charge-End").timer().count())
+                .isEqualTo(2);
+        assertThat(registry.get("loggable.invocation").tags("logPoint", LoggableMetrics.OTHER, "outcome", "SUCCESS")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get("loggable.invocation").tags("apiId", LoggableMetrics.OTHER, "outcome", "FAILURE")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get("loggable.invocation").timers()).hasSize(3);
+    }
+
+    @Test
+    void appliesNameAndPercentileSettings() {
+        settings.setName("orders.latency");
+        settings.setPercentiles(List.of(0.5, 0.99));
+        LoggableMetrics metrics = new LoggableMetrics(registry, settings);
+
+        metrics.record(metadata("charge"), 5, TimeUnit.MILLISECONDS, null);
+
+        Timer timer = registry.get("orders.latency").timer();
+        assertThat(timer.takeSnapshot().percentileValues()).hasSize(2);
+    }
+
+    private static JoinPointMetadata metadata(String method) {
+        Signature signature = mock(Signature.class);
+        when(signature.getName()).thenReturn(method);
+        when(signature.getDeclaringTypeName()).thenReturn("com.example.PaymentService");
+        return JoinPointMetadata.resolve(signature, "Payments");
+    }
+}
@@ -0,0 +1,57 @@
+package com.yahya.commonlogger;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the map + {@code writeValueAsString} payload path with the streaming encoder for a
+ * successful {@code @Loggable} call through a real Spring AOP proxy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LoggingAspectEncodingBenchmark {
+
+    @Param({"true", "false"})
+    public boolean streamingEncoder;
+
+    private Target target;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.silence(LoggingAspect.class, Level.INFO);
+        CommonLoggerProperties properties = new CommonLoggerProperties();
+        properties.setStreamingEncoder(streamingEncoder);
+        LoggingAspect aspect = new LoggingAspect(properties, List.of(), List.of(), new ObjectMapper());
+        target = BenchmarkSupport.proxy(new Target(), aspect);
+    }
+
+    @Benchmark
+    public Object successfulCall() {
+        return target.handle("payload");
+    }
+
+    @Loggable
+    public static class Target {
+        public String handle(String input) {
+            return input;
+        }
+    }
+}
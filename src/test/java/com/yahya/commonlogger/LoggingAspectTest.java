@@ -4,21 +4,40 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.boot.logging.LogLevel;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class LoggingAspectTest {
@@ -334,6 +353,573 @@ class LoggingAspectTest {
         assertThat(appender.list).isEmpty();
     }
 
+    @Test
+    void streamingEncoderWritesSameFieldsAsMapModel() throws Throwable {
+        CommonLoggerProperties streamingProps = new CommonLoggerProperties();
+        CommonLoggerProperties mapProps = new CommonLoggerProperties();
+        mapProps.setStreamingEncoder(false);
+        MDC.put(streamingProps.getCorrelationIdMdcKey(), "corr-1");
+
+        IllegalStateException failure = new IllegalStateException("boom");
+        for (CommonLoggerProperties props : List.of(streamingProps, mapProps)) {
+            LoggingAspect aspect = aspect(props, List.of());
+            aspect.logAround(mockJoinPoint("process", "com.example.Demo", new Object[0], "ok"));
+            ProceedingJoinPoint failing = mockJoinPoint("process", "com.example.Demo", new Object[0], null);
+            when(failing.proceed()).thenThrow(failure);
+            assertThatThrownBy(() -> aspect.logAround(failing)).isSameAs(failure);
+        }
+
+        assertThat(appender.list).hasSize(4);
+        assertThat(withoutTimings(0)).isEqualTo(withoutTimings(2));
+        assertThat(withoutTimings(1)).isEqualTo(withoutTimings(3));
+        assertThat(appender.list.get(0).getFormattedMessage())
+                .startsWith("{\"logLevel\":\"info\",\"apiId\":\"Demo\",\"httpStatusCode\":200,");
+    }
+
+    @Test
+    void fallsBackToMapModelWhenMaskerIsActive() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        SensitiveDataMasker masker = payload -> payload.put("apiId", "***");
+        LoggingAspect aspect = aspect(props, List.of(), List.of(masker));
+
+        aspect.logAround(mockJoinPoint("run", "com.example.Demo", new Object[0], "ok"));
+
+        assertThat(capturedLogs()).contains("\"apiId\":\"***\"");
+    }
+
+    @Test
+    void skipsMapModelWhenMaskerIsInactive() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        SensitiveDataMasker inactive = new SensitiveDataMasker() {
+            @Override
+            public void mask(java.util.Map<String, Object> payload) {
+                throw new AssertionError("inactive masker must not be invoked");
+            }
+
+            @Override
+            public boolean isActive() {
+                return false;
+            }
+        };
+        LoggingAspect aspect = aspect(props, List.of(), List.of(inactive));
+
+        aspect.logAround(mockJoinPoint("run", "com.example.Demo", new Object[0], "ok"));
+
+        assertThat(capturedLogs()).contains("\"logPoint\":\"Demo-run-End\"");
+    }
+
+    @Test
+    void resolvesJoinPointStringsOncePerMethod() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        LoggingAspect aspect = aspect(props, List.of());
+
+        ProceedingJoinPoint pjp = mockJoinPoint("cached", "com.example.CachedService", new Object[0], "ok");
+        for (int i = 0; i < 3; i++) {
+            aspect.logAround(pjp);
+        }
+
+        Signature signature = pjp.getSignature();
+        verify(signature, times(1)).getDeclaringTypeName();
+        verify(signature, times(1)).getName();
+        assertThat(appender.list).hasSize(3)
+                .allSatisfy(event -> assertThat(event.getFormattedMessage())
+                        .contains("\"logPoint\":\"CachedService-cached-End\""));
+    }
+
+    @Test
+    void refreshesCachedApiIdWhenPropertyChanges() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        LoggingAspect aspect = aspect(props, List.of());
+        ProceedingJoinPoint pjp = mockJoinPoint("run", "com.example.Demo", new Object[0], "ok");
+
+        aspect.logAround(pjp);
+        props.setApiId("Renamed");
+        aspect.logAround(pjp);
+
+        assertThat(appender.list.get(0).getFormattedMessage()).contains("\"logPoint\":\"Demo-run-End\"");
+        assertThat(appender.list.get(1).getFormattedMessage()).contains("\"logPoint\":\"Renamed-run-End\"");
+    }
+
+    @Test
+    void emitsThroughAsyncDispatcherWhenConfigured() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setApiId("AsyncApi");
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(props.getAsync());
+        LoggingAspect aspect = new LoggingAspect(props, List.of(), List.of(), OBJECT_MAPPER, dispatcher);
+
+        aspect.logAround(mockJoinPoint("run", "com.example.Demo", new Object[0], "ok"));
+        dispatcher.close();
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getThreadName()).isEqualTo("common-logger-async");
+        assertThat(capturedLogs()).contains("\"logPoint\":\"AsyncApi-run-End\"");
+    }
+
+    private com.fasterxml.jackson.databind.JsonNode withoutTimings(int index) throws Exception {
+        com.fasterxml.jackson.databind.node.ObjectNode node = (com.fasterxml.jackson.databind.node.ObjectNode)
+                OBJECT_MAPPER.readTree(appender.list.get(index).getFormattedMessage());
+        node.remove(List.of("logTimestamp", "processTime"));
+        return node;
+    }
+
+    @Test
+    void coalescesRepeatedFailuresIntoSummaryEvent() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.getErrorCoalescing().setFullOccurrences(2);
+        ErrorCoalescer coalescer = new ErrorCoalescer(props.getErrorCoalescing());
+        LoggingAspect aspect = new LoggingAspect(props, List.of(), List.of(), OBJECT_MAPPER, null, coalescer);
+
+        ProceedingJoinPoint pjp = mockJoinPoint("charge", "com.example.PaymentService", new Object[0], null);
+        when(pjp.proceed()).thenThrow(new IllegalStateException("downstream unavailable"));
+        for (int i = 0; i < 5; i++) {
+            MDC.put(props.getCorrelationIdMdcKey(), "tx-" + i);
+            assertThatThrownBy(() -> aspect.logAround(pjp)).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(appender.list).hasSize(2);
+        assertThat(capturedLogs()).contains("\"transactionId\":\"tx-1\"").doesNotContain("tx-2");
+
+        coalescer.close();
+
+        assertThat(appender.list).hasSize(3);
+        ILoggingEvent summary = appender.list.get(2);
+        assertThat(summary.getLevel()).isEqualTo(Level.ERROR);
+        assertThat(summary.getFormattedMessage())
+                .contains("\"logPoint\":\"PaymentService-charge-Error\"")
+                .contains("\"error\":\"downstream unavailable\"")
+                .contains("\"exceptionClass\":\"java.lang.IllegalStateException\"")
+                .contains("\"occurrences\":5,\"suppressed\":3")
+                .contains("\"sampleTransactionIds\":[\"tx-2\",\"tx-3\",\"tx-4\"]")
+                .doesNotContain("logException");
+    }
+
+    @Test
+    void skipsPayloadForUnsampledSuccessAndTagsSampledEvents() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.getSampling().setEnabled(true);
+        props.getSampling().setRate(0.0);
+        StructuredLogCustomizer customizer = mock(StructuredLogCustomizer.class);
+        LoggingAspect aspect = aspect(props, List.of(customizer));
+
+        aspect.logAround(mockJoinPoint("run", "com.example.Demo", new Object[0], "ok"));
+        assertThat(appender.list).isEmpty();
+        verify(customizer, never()).customize(anyMap(), any(), any(), anyLong(), anyBoolean(), any());
+
+        props.getSampling().setRate(1.0);
+        aspect.logAround(mockJoinPoint("run", "com.example.Demo", new Object[0], "ok"));
+        assertThat(capturedLogs()).contains("\"sampleRate\":1.0");
+
+        LoggingAspect streaming = aspect(props, List.of());
+        streaming.logAround(mockJoinPoint("run", "com.example.Demo", new Object[0], "ok"));
+        assertThat(appender.list.get(1).getFormattedMessage()).contains("\"sampleRate\":1.0");
+    }
+
+    @Test
+    void alwaysLogsFailuresAndSlowCallsWhenSampling() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.getSampling().setEnabled(true);
+        props.getSampling().setRate(0.0);
+        props.setSlowThreshold(Duration.ofMillis(20));
+        LoggingAspect aspect = aspect(props, List.of());
+
+        ProceedingJoinPoint failing = mockJoinPoint("run", "com.example.Demo", new Object[0], null);
+        when(failing.proceed()).thenThrow(new IllegalStateException("boom"));
+        assertThatThrownBy(() -> aspect.logAround(failing)).isInstanceOf(IllegalStateException.class);
+
+        ProceedingJoinPoint slow = mockJoinPoint("run", "com.example.Demo", new Object[0], null);
+        when(slow.proceed()).thenAnswer(invocation -> {
+            Thread.sleep(30);
+            return "ok";
+        });
+        aspect.logAround(slow);
+
+        assertThat(appender.list).hasSize(2);
+        assertThat(appender.list.get(0).getFormattedMessage()).contains("\"error\":\"boom\"")
+                .doesNotContain("sampleRate");
+        assertThat(appender.list.get(1).getFormattedMessage()).contains("\"sampleRate\":1.0");
+    }
+
+    @Test
+    void escalatesSlowCallsToWarnWithMarker() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setSlowThreshold(Duration.ofMillis(5));
+        StructuredLogCustomizer customizer = (payload, jp, result, duration, success, failure) -> { };
+
+        for (LoggingAspect aspect : List.of(aspect(props, List.of()), aspect(props, List.of(customizer)))) {
+            ProceedingJoinPoint slow = mockJoinPoint("run", "com.example.Demo", new Object[0], null);
+            when(slow.proceed()).thenAnswer(invocation -> {
+                Thread.sleep(10);
+                return "ok";
+            });
+            aspect.logAround(slow);
+        }
+
+        assertThat(appender.list).hasSize(2).allSatisfy(event -> {
+            assertThat(event.getLevel()).isEqualTo(Level.WARN);
+            assertThat(event.getFormattedMessage()).contains("\"logLevel\":\"warn\"").contains("\"slowCall\":true");
+        });
+    }
+
+    @Test
+    void logsOnlySlowSuccessesWhenLogSuccessIsDisabled() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        StructuredLogCustomizer customizer = mock(StructuredLogCustomizer.class);
+        LoggingAspect aspect = aspect(props, List.of(customizer));
+
+        aspect.logAround(annotatedJoinPoint("onlySlow", 0));
+        assertThat(appender.list).isEmpty();
+        verify(customizer, never()).customize(anyMap(), any(), any(), anyLong(), anyBoolean(), any());
+
+        aspect.logAround(annotatedJoinPoint("onlySlow", 60));
+        assertThat(appender.list).singleElement().satisfies(event -> {
+            assertThat(event.getLevel()).isEqualTo(Level.WARN);
+            assertThat(event.getFormattedMessage()).contains("\"slowCall\":true");
+        });
+
+        props.setLogSuccess(false);
+        aspect.logAround(annotatedJoinPoint("inherited", 0));
+        assertThat(appender.list).hasSize(1);
+    }
+
+    @Test
+    void resolvesLoggableAttributesOncePerMethod() throws Throwable {
+        JoinPointMetadata onlySlow = JoinPointMetadata.resolve(annotatedJoinPoint("onlySlow", 0).getSignature(), "");
+        JoinPointMetadata inherited = JoinPointMetadata.resolve(annotatedJoinPoint("inherited", 0).getSignature(), "");
+        JoinPointMetadata plain = JoinPointMetadata.resolve(
+                mockJoinPoint("run", "com.example.Demo", new Object[0], "ok").getSignature(), "");
+
+        assertThat(onlySlow.slowThresholdMs()).isEqualTo(50);
+        assertThat(onlySlow.logSuccess()).isFalse();
+        assertThat(inherited.slowThresholdMs()).isEqualTo(5000);
+        assertThat(inherited.logSuccess()).isTrue();
+        assertThat(plain.slowThresholdMs()).isEqualTo(-1);
+        assertThat(plain.logSuccess()).isTrue();
+    }
+
+    @Test
+    void resolvesLoggableFromInterfacesAndTargetClass() throws Throwable {
+        MethodSignature fromInterface = mock(MethodSignature.class);
+        when(fromInterface.getName()).thenReturn("charge");
+        when(fromInterface.getDeclaringTypeName()).thenReturn(PaymentApi.class.getName());
+        when(fromInterface.getMethod()).thenReturn(PaymentApi.class.getMethod("charge"));
+        MethodSignature inheritedMethod = mock(MethodSignature.class);
+        when(inheritedMethod.getName()).thenReturn("refund");
+        when(inheritedMethod.getDeclaringTypeName()).thenReturn(BasePaymentService.class.getName());
+        when(inheritedMethod.getMethod()).thenReturn(BasePaymentService.class.getMethod("refund"));
+
+        JoinPointMetadata charge = JoinPointMetadata.resolve(fromInterface, PaymentService.class, "");
+        JoinPointMetadata refund = JoinPointMetadata.resolve(inheritedMethod, PaymentService.class, "");
+        JoinPointMetadata refundOnBase = JoinPointMetadata.resolve(inheritedMethod, BasePaymentService.class, "");
+
+        assertThat(charge.logSuccess()).isFalse();
+        assertThat(charge.slowThresholdMs()).isEqualTo(25);
+        assertThat(refund.slowThresholdMs()).isEqualTo(750);
+        assertThat(refundOnBase.slowThresholdMs()).isEqualTo(-1);
+    }
+
+    @Test
+    void handsDisabledLowLevelEventsToBoundRequestBuffer() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setLogLevel(LogLevel.DEBUG);
+        LoggingAspect aspect = aspect(props, List.of());
+        RequestLogBuffer buffer = new RequestLogBuffer.Pool(props.getRequestBuffer()).acquire();
+
+        Level original = aspectLogger.getLevel();
+        aspectLogger.setLevel(Level.INFO);
+        buffer.bind();
+        try {
+            aspect.logAround(mockJoinPoint("run", "com.example.Demo", new Object[0], "ok"));
+            assertThat(appender.list).isEmpty();
+            assertThat(buffer.size()).isEqualTo(1);
+            buffer.flush();
+        } finally {
+            buffer.unbind();
+            aspectLogger.setLevel(original);
+        }
+
+        assertThat(appender.list).singleElement().satisfies(event -> {
+            assertThat(event.getLevel()).isEqualTo(Level.INFO);
+            assertThat(event.getFormattedMessage()).contains("\"logLevel\":\"debug\"");
+        });
+    }
+
+    @Test
+    void serializesCapturedValuesBeforeBufferingEvent() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setLogLevel(LogLevel.DEBUG);
+        Method method = AnnotatedService.class.getMethod("capture", String.class, String.class);
+        Level original = aspectLogger.getLevel();
+        aspectLogger.setLevel(Level.INFO);
+        try {
+            for (List<StructuredLogCustomizer> customizers : List.of(List.<StructuredLogCustomizer>of(),
+                    List.<StructuredLogCustomizer>of((payload, jp, result, duration, success, failure) -> { }))) {
+                appender.list.clear();
+                LoggingAspect aspect = aspect(props, customizers);
+                RequestLogBuffer buffer = new RequestLogBuffer.Pool(props.getRequestBuffer()).acquire();
+                List<Integer> result = new ArrayList<>(List.of(1, 2));
+                ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+                MethodSignature signature = mock(MethodSignature.class);
+                when(signature.getName()).thenReturn("capture");
+                when(signature.getDeclaringTypeName()).thenReturn(AnnotatedService.class.getName());
+                when(signature.getMethod()).thenReturn(method);
+                when(pjp.getSignature()).thenReturn(signature);
+                when(pjp.getArgs()).thenReturn(new Object[]{"alice", "s3cret"});
+                when(pjp.proceed()).thenReturn(result);
+
+                buffer.bind();
+                try {
+                    aspect.logAround(pjp);
+                    result.add(3);
+                    buffer.flush();
+                } finally {
+                    buffer.unbind();
+                }
+
+                assertThat(capturedLogs())
+                        .contains("\"arguments\":[\"alice\",\"***\"]")
+                        .contains("\"result\":[1,2]");
+            }
+        } finally {
+            aspectLogger.setLevel(original);
+        }
+    }
+
+    @Test
+    void recordsTimersWhetherOrNotEventsAreLogged() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.getSampling().setEnabled(true);
+        props.getSampling().setRate(0.0);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LoggingAspect aspect = new LoggingAspect(props, List.of(), List.of(), OBJECT_MAPPER, null, null,
+                new LoggableMetrics(registry, props.getMetrics()));
+
+        aspect.logAround(mockJoinPoint("run", "com.example.Demo", new Object[0], "ok"));
+        props.setLogLevel(LogLevel.OFF);
+        aspect.logAround(mockJoinPoint("run", "com.example.Demo", new Object[0], "ok"));
+        ProceedingJoinPoint failing = mockJoinPoint("run", "com.example.Demo", new Object[0], null);
+        when(failing.proceed()).thenThrow(new IllegalStateException("boom"));
+        assertThatThrownBy(() -> aspect.logAround(failing)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(appender.list).isEmpty();
+        assertThat(registry.get("loggable.invocation").tags("logPoint", "Demo-run-End", "outcome", "SUCCESS")
+                .timer().count()).isEqualTo(2);
+        assertThat(registry.get("loggable.invocation").tags("logPoint", "Demo-run-Error", "errorType", "SERVER_ERROR")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void writesProcessTimeInConfiguredUnitWithOptionalNanos() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setProcessTimeUnit(CommonLoggerProperties.ProcessTimeUnit.MICROSECONDS);
+        props.setProcessTimeNanos(true);
+        ProceedingJoinPoint pjp = mockJoinPoint("run", "com.example.Demo", new Object[0], "ok");
+        when(pjp.proceed()).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            return "ok";
+        });
+
+        aspect(props, List.of()).logAround(pjp);
+        StructuredLogCustomizer customizer = mock(StructuredLogCustomizer.class);
+        aspect(props, List.of(customizer)).logAround(pjp);
+
+        assertThat(appender.list).hasSize(2).allSatisfy(event -> {
+            Map<?, ?> payload = OBJECT_MAPPER.readValue(event.getFormattedMessage(), Map.class);
+            long processTime = ((Number) payload.get("processTime")).longValue();
+            long processTimeNanos = ((Number) payload.get("processTimeNanos")).longValue();
+            assertThat(processTime).isGreaterThanOrEqualTo(5_000);
+            assertThat(processTime).isEqualTo(processTimeNanos / 1_000);
+        });
+        verify(customizer).customize(anyMap(), any(), any(),
+                longThat(duration -> duration >= 5 && duration < 5_000),
+                anyBoolean(), any());
+    }
+
+    @Test
+    void logsCompletableFutureWhenItCompletes() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        LoggingAspect aspect = aspect(props, List.of());
+        CompletableFuture<String> success = new CompletableFuture<>();
+        CompletableFuture<String> failure = new CompletableFuture<>();
+
+        MDC.put(props.getCorrelationIdMdcKey(), "corr-future");
+        assertThat(aspect.logAround(mockJoinPoint("load", "com.example.Demo", new Object[0], success))).isSameAs(success);
+        aspect.logAround(mockJoinPoint("save", "com.example.Demo", new Object[0], failure));
+        MDC.clear();
+        assertThat(appender.list).isEmpty();
+
+        Thread.sleep(5);
+        CompletableFuture.runAsync(() -> success.complete("done")).join();
+        failure.completeExceptionally(new IllegalStateException("async boom"));
+
+        assertThat(appender.list).hasSize(2);
+        Map<?, ?> completed = OBJECT_MAPPER.readValue(appender.list.get(0).getFormattedMessage(), Map.class);
+        assertThat(completed.get("logPoint")).isEqualTo("Demo-load-End");
+        assertThat(completed.get("transactionId")).isEqualTo("corr-future");
+        assertThat(((Number) completed.get("processTime")).longValue()).isGreaterThanOrEqualTo(5);
+        assertThat(appender.list.get(1).getFormattedMessage())
+                .contains("\"logPoint\":\"Demo-save-Error\"")
+                .contains("\"error\":\"async boom\"")
+                .contains("\"transactionId\":\"corr-future\"");
+        assertThat(MDC.get(props.getCorrelationIdMdcKey())).isNull();
+    }
+
+    @Test
+    void logsMonoAndFluxOnCompletionWithContextCorrelationId() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        StructuredLogCustomizer customizer = mock(StructuredLogCustomizer.class);
+        LoggingAspect aspect = aspect(props, List.of(customizer));
+
+        Mono<?> mono = (Mono<?>) aspect.logAround(mockJoinPoint("find", "com.example.Demo", new Object[0],
+                Mono.just("value").delayElement(Duration.ofMillis(5))));
+        Flux<?> flux = (Flux<?>) aspect.logAround(mockJoinPoint("stream", "com.example.Demo", new Object[0],
+                Flux.just(1, 2).concatWith(Mono.error(new IllegalStateException("flux boom")))));
+        assertThat(appender.list).isEmpty();
+
+        mono.contextWrite(Context.of(props.getCorrelationIdMdcKey(), "corr-reactive")).block();
+        assertThatThrownBy(() -> flux.contextWrite(Context.of(props.getCorrelationIdMdcKey(), "corr-flux")).blockLast())
+                .hasMessage("flux boom");
+
+        assertThat(appender.list).hasSize(2);
+        assertThat(appender.list.get(0).getFormattedMessage())
+                .contains("\"logPoint\":\"Demo-find-End\"")
+                .contains("\"transactionId\":\"corr-reactive\"");
+        assertThat(appender.list.get(1).getFormattedMessage())
+                .contains("\"logPoint\":\"Demo-stream-Error\"")
+                .contains("\"transactionId\":\"corr-flux\"");
+        verify(customizer).customize(anyMap(), any(), eq("value"),
+                longThat(duration -> duration >= 5), eq(true), any());
+        assertThat(MDC.get(props.getCorrelationIdMdcKey())).isNull();
+    }
+
+    @Test
+    void logsAsyncResultsImmediatelyWhenAwaitingIsDisabled() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setAwaitAsyncResults(false);
+        LoggingAspect aspect = aspect(props, List.of());
+
+        aspect.logAround(mockJoinPoint("load", "com.example.Demo", new Object[0], new CompletableFuture<>()));
+
+        assertThat(appender.list).hasSize(1);
+    }
+
+    @Test
+    void capturesMaskedArgumentsAndBoundedResultInBothModels() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.getCapture().setMaxElements(3);
+        Method method = AnnotatedService.class.getMethod("capture", String.class, String.class);
+
+        for (List<StructuredLogCustomizer> customizers : List.of(List.<StructuredLogCustomizer>of(),
+                List.<StructuredLogCustomizer>of((payload, jp, result, duration, success, failure) -> { }))) {
+            appender.list.clear();
+            LoggingAspect aspect = aspect(props, customizers);
+            ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+            MethodSignature signature = mock(MethodSignature.class);
+            when(signature.getName()).thenReturn("capture");
+            when(signature.getDeclaringTypeName()).thenReturn(AnnotatedService.class.getName());
+            when(signature.getMethod()).thenReturn(method);
+            when(pjp.getSignature()).thenReturn(signature);
+            when(pjp.getArgs()).thenReturn(new Object[]{"alice", "s3cret"});
+            when(pjp.proceed()).thenReturn(List.of(1, 2, 3, 4, 5));
+
+            aspect.logAround(pjp);
+
+            assertThat(capturedLogs())
+                    .contains("\"arguments\":[\"alice\",\"***\"]")
+                    .contains("\"result\":[1,2,3,\"...\"]")
+                    .doesNotContain("s3cret");
+        }
+    }
+
+    @Test
+    void masksAndRedactsCapturedValuesInPayloadMode() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setSensitiveFields(List.of("password", "result.token"));
+        props.getRedaction().setEnabled(true);
+        List<SensitiveDataMasker> maskers = List.of(new PropertySensitiveDataMasker(props),
+                new PatternRedactingMasker(props.getRedaction()));
+        LoggingAspect aspect = aspect(props, List.of(), maskers);
+        Method method = AnnotatedService.class.getMethod("login", Credentials.class);
+        ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getName()).thenReturn("login");
+        when(signature.getDeclaringTypeName()).thenReturn(AnnotatedService.class.getName());
+        when(signature.getMethod()).thenReturn(method);
+        when(pjp.getSignature()).thenReturn(signature);
+        when(pjp.getArgs()).thenReturn(new Object[]{new Credentials("alice@example.com", "s3cret")});
+        when(pjp.proceed()).thenReturn(Map.of("token", "abc123", "owner", "alice@example.com"));
+
+        aspect.logAround(pjp);
+
+        assertThat(capturedLogs())
+                .contains("\"password\":\"***\"")
+                .contains("\"token\":\"***\"")
+                .doesNotContain("s3cret")
+                .doesNotContain("abc123")
+                .doesNotContain("alice@example.com");
+    }
+
+    record Credentials(String username, String password) {
+    }
+
+    interface PaymentApi {
+
+        @Loggable(logSuccess = false, slowThresholdMs = 25)
+        String charge();
+    }
+
+    static class BasePaymentService {
+
+        public String refund() {
+            return "ok";
+        }
+    }
+
+    @Loggable(slowThresholdMs = 750)
+    static class PaymentService extends BasePaymentService implements PaymentApi {
+
+        @Override
+        public String charge() {
+            return "ok";
+        }
+    }
+
+    @Loggable(slowThresholdMs = 5000)
+    static class AnnotatedService {
+
+        @Loggable(logArguments = true, logResult = true)
+        public List<Integer> capture(String user, @MaskField String password) {
+            return List.of();
+        }
+
+        @Loggable(logArguments = true, logResult = true)
+        public Map<String, String> login(Credentials credentials) {
+            return Map.of();
+        }
+
+        @Loggable(logSuccess = false, slowThresholdMs = 50)
+        public String onlySlow() {
+            return "ok";
+        }
+
+        public String inherited() {
+            return "ok";
+        }
+    }
+
+    private ProceedingJoinPoint annotatedJoinPoint(String method, long sleepMillis) throws Throwable {
+        ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getName()).thenReturn(method);
+        when(signature.getDeclaringTypeName()).thenReturn(AnnotatedService.class.getName());
+        when(signature.getMethod()).thenReturn(AnnotatedService.class.getMethod(method));
+        when(pjp.getSignature()).thenReturn(signature);
+        when(pjp.getArgs()).thenReturn(new Object[0]);
+        when(pjp.proceed()).thenAnswer(invocation -> {
+            Thread.sleep(sleepMillis);
+            return "ok";
+        });
+        return pjp;
+    }
+
     private ProceedingJoinPoint mockJoinPoint(String method,
                                               String className,
                                               Object[] args,
@@ -0,0 +1,114 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event cost of the property-based masker: the compiled {@link SensitiveFieldPlan} against
+ * the previous implementation, which copied the configured fields into a new {@link HashSet} on
+ * every event, and mask-then-serialize ({@code PAYLOAD}) against masking inside the JSON writer
+ * ({@code SERIALIZATION}). Run with {@code -prof gc} to compare {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SensitiveDataMaskerBenchmark {
+
+    private CommonLoggerProperties properties;
+    private SensitiveDataMasker compiled;
+    private SensitiveDataMasker perEventCopy;
+    private Map<String, Object> payload;
+    private JsonPayloadEncoder encoder;
+    private SensitiveFieldPlan plan;
+
+    @Setup
+    public void setUp() {
+        properties = new CommonLoggerProperties();
+        properties.setSensitiveFields(List.of("password", "token", "cardNumber", "pin", "secret"));
+        compiled = new PropertySensitiveDataMasker(properties);
+        perEventCopy = payload -> {
+            Set<String> fields = new HashSet<>(properties.getSensitiveFields());
+            if (!fields.isEmpty()) {
+                maskRecursive(payload, fields);
+            }
+        };
+
+        encoder = new JsonPayloadEncoder(new ObjectMapper());
+        plan = SensitiveFieldPlan.compile(properties.getSensitiveFields(), false);
+
+        payload = new LinkedHashMap<>();
+        payload.put("logLevel", "info");
+        payload.put("apiId", "OrderService");
+        payload.put("httpStatusCode", 200);
+        payload.put("logMessage", "OrderService-placeorder Completed");
+        payload.put("transactionId", "4f1c2d9e");
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("customerId", "c-1");
+        request.put("password", "hunter2");
+        request.put("cardNumber", "4111111111111111");
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("sku", "sku-" + i);
+            item.put("qty", i);
+            items.add(item);
+        }
+        request.put("items", items);
+        payload.put("request", request);
+    }
+
+    @Benchmark
+    public Map<String, Object> compiledPlan() {
+        compiled.mask(payload);
+        return payload;
+    }
+
+    @Benchmark
+    public Map<String, Object> perEventHashSet() {
+        perEventCopy.mask(payload);
+        return payload;
+    }
+
+    @Benchmark
+    public String maskThenSerialize() throws IOException {
+        compiled.mask(payload);
+        return encoder.encode(payload, null, PropertySensitiveDataMasker.MASK);
+    }
+
+    @Benchmark
+    public String maskWhileSerializing() throws IOException {
+        return encoder.encode(payload, plan, PropertySensitiveDataMasker.MASK);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void maskRecursive(Map<String, Object> map, Set<String> sensitiveFields) {
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            if (sensitiveFields.contains(entry.getKey())) {
+                entry.setValue("***");
+            } else if (entry.getValue() instanceof Map<?, ?> nested) {
+                maskRecursive((Map<String, Object>) nested, sensitiveFields);
+            }
+        }
+    }
+}
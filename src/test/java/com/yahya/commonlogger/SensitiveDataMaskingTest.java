@@ -5,12 +5,14 @@ import ch.qos.logback.core.read.ListAppender;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.LoggerFactory;
 
 import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -236,26 +238,361 @@ class SensitiveDataMaskingTest {
         assertThat(logs).doesNotContain("nested-secret");
     }
 
-    // ── Helper ───────────────────────────────────────────────────────────────
+    @Test
+    void propertyMasker_masksFieldsInsideListsAndArrays() {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setSensitiveFields(List.of("token"));
+        SensitiveDataMasker masker = buildPropertyMasker(props);
 
-    private SensitiveDataMasker buildPropertyMasker(CommonLoggerProperties props) {
-        return payload -> {
-            java.util.Set<String> fields = new java.util.HashSet<>(props.getSensitiveFields());
-            if (!fields.isEmpty()) {
-                maskRecursive(payload, fields);
-            }
-        };
+        Map<String, Object> first = new LinkedHashMap<>(Map.of("token", "t-1", "id", 1));
+        Map<String, Object> second = new LinkedHashMap<>(Map.of("token", "t-2", "id", 2));
+        Map<String, Object> inArray = new LinkedHashMap<>(Map.of("token", "t-3"));
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("sessions", List.of(first, second));
+        payload.put("archived", new Object[]{inArray});
+
+        masker.mask(payload);
+
+        assertThat(first).containsEntry("token", "***").containsEntry("id", 1);
+        assertThat(second).containsEntry("token", "***");
+        assertThat(inArray).containsEntry("token", "***");
     }
 
-    @SuppressWarnings("unchecked")
-    private static void maskRecursive(Map<String, Object> map, java.util.Set<String> sensitiveFields) {
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            if (sensitiveFields.contains(entry.getKey())) {
-                entry.setValue("***");
-            } else if (entry.getValue() instanceof Map<?, ?> nested) {
-                maskRecursive((Map<String, Object>) nested, sensitiveFields);
-            }
+    @Test
+    void propertyMasker_masksDottedPathOnlyAtThatPosition() {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setSensitiveFields(List.of("request.card.number"));
+        SensitiveDataMasker masker = buildPropertyMasker(props);
+
+        Map<String, Object> card = new LinkedHashMap<>(Map.of("number", "4111111111111111", "brand", "VISA"));
+        Map<String, Object> request = new LinkedHashMap<>(Map.of("card", card));
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("request", request);
+        payload.put("number", 42);
+
+        masker.mask(payload);
+
+        assertThat(card).containsEntry("number", "***").containsEntry("brand", "VISA");
+        assertThat(payload).containsEntry("number", 42);
+    }
+
+    @Test
+    void propertyMasker_ignoreCaseMatchesAnyCasing() {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setSensitiveFields(List.of("password", "request.cardNumber"));
+        props.setSensitiveFieldsIgnoreCase(true);
+        SensitiveDataMasker masker = buildPropertyMasker(props);
+
+        Map<String, Object> request = new LinkedHashMap<>(Map.of("CARDNUMBER", "4111"));
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("Password", "secret");
+        payload.put("Request", request);
+
+        masker.mask(payload);
+
+        assertThat(payload).containsEntry("Password", "***");
+        assertThat(request).containsEntry("CARDNUMBER", "***");
+    }
+
+    @Test
+    void propertyMasker_isCaseSensitiveByDefault() {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setSensitiveFields(List.of("password"));
+        SensitiveDataMasker masker = buildPropertyMasker(props);
+
+        Map<String, Object> payload = new LinkedHashMap<>(Map.of("Password", "secret"));
+        masker.mask(payload);
+
+        assertThat(payload).containsEntry("Password", "secret");
+    }
+
+    @Test
+    void propertyMasker_recompilesOnlyWhenPropertiesChange() {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setSensitiveFields(List.of("password"));
+        PropertySensitiveDataMasker masker = new PropertySensitiveDataMasker(props);
+
+        SensitiveFieldPlan plan = masker.currentPlan();
+        assertThat(masker.currentPlan()).isSameAs(plan);
+
+        props.setSensitiveFields(List.of("token"));
+        SensitiveFieldPlan rebound = masker.currentPlan();
+        assertThat(rebound).isNotSameAs(plan);
+
+        Map<String, Object> payload = new LinkedHashMap<>(Map.of("password", "p", "token", "t"));
+        masker.mask(payload);
+        assertThat(payload).containsEntry("password", "p").containsEntry("token", "***");
+
+        props.setSensitiveFieldsIgnoreCase(true);
+        assertThat(masker.currentPlan()).isNotSameAs(rebound);
+    }
+
+    // ── Serialization-time masking ───────────────────────────────────────────
+
+    @Test
+    void serializationMode_producesSameJsonAsPayloadMode() throws Exception {
+        List<String> fields = List.of("password", "request.card", "tokens");
+        JsonPayloadEncoder encoder = new JsonPayloadEncoder(OBJECT_MAPPER);
+
+        CommonLoggerProperties payloadProps = new CommonLoggerProperties();
+        payloadProps.setSensitiveFields(fields);
+        Map<String, Object> masked = samplePayload();
+        new PropertySensitiveDataMasker(payloadProps).mask(masked);
+        String expected = encoder.encode(masked, null, PropertySensitiveDataMasker.MASK);
+
+        CommonLoggerProperties serializationProps = new CommonLoggerProperties();
+        serializationProps.setSensitiveFields(fields);
+        serializationProps.setMaskingMode(CommonLoggerProperties.MaskingMode.SERIALIZATION);
+        PropertySensitiveDataMasker masker = new PropertySensitiveDataMasker(serializationProps);
+        Map<String, Object> untouched = samplePayload();
+        masker.mask(untouched);
+        String actual = encoder.encode(untouched, masker.serializationPlan(), PropertySensitiveDataMasker.MASK);
+
+        assertThat(masker.isActive()).isFalse();
+        assertThat(untouched).isEqualTo(samplePayload());
+        assertThat(actual).isEqualTo(expected);
+        assertThat(actual).doesNotContain("hunter2").doesNotContain("4111").doesNotContain("t-1");
+        assertThat(OBJECT_MAPPER.readTree(actual).get("request").get("card").asText()).isEqualTo("***");
+    }
+
+    @Test
+    void propertyMasker_recompilesPlanWhenListIsModifiedInPlace() {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.getSensitiveFields().add(" ");
+        PropertySensitiveDataMasker masker = new PropertySensitiveDataMasker(props);
+        assertThat(masker.isActive()).isFalse();
+
+        props.getSensitiveFields().add("pin");
+        Map<String, Object> payload = new HashMap<>(Map.of("pin", "1234", "name", "john"));
+        masker.mask(payload);
+
+        assertThat(masker.isActive()).isTrue();
+        assertThat(payload).containsEntry("pin", "***").containsEntry("name", "john");
+    }
+
+    @Test
+    void serializationMode_masksPojoPayloads() {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setSensitiveFields(List.of("password", "request.otp"));
+        props.setMaskingMode(CommonLoggerProperties.MaskingMode.SERIALIZATION);
+        StructuredLogger logger = new StructuredLogger(props, OBJECT_MAPPER, List.of(buildPropertyMasker(props)));
+
+        logger.newLog()
+                .withRequest(new Credentials("john", "hunter2", "123456"))
+                .withAdditionalData("otp", "kept")
+                .onSuccess(null, 10);
+
+        String logs = capturedStructuredLogs();
+        assertThat(logs).contains("\"username\":\"john\"");
+        assertThat(logs).contains("\"password\":\"***\"");
+        assertThat(logs).contains("\"otp\":\"***\"");
+        assertThat(logs).contains("\"otp\":\"kept\"");
+        assertThat(logs).doesNotContain("hunter2").doesNotContain("123456");
+    }
+
+    @Test
+    void serializationMode_appliesToStreamedAspectFields() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setSensitiveFields(List.of("transactionId"));
+        props.setMaskingMode(CommonLoggerProperties.MaskingMode.SERIALIZATION);
+        LoggingAspect aspect = new LoggingAspect(props, List.of(), List.of(buildPropertyMasker(props)), OBJECT_MAPPER);
+
+        aspect.logAround(mockJoinPoint("process", "com.example.Demo", "ok"));
+
+        assertThat(capturedAspectLogs()).contains("\"transactionId\":\"***\"");
+    }
+
+    private static Map<String, Object> samplePayload() {
+        Map<String, Object> card = new LinkedHashMap<>();
+        card.put("number", "4111111111111111");
+        card.put("expiry", List.of(12, 2030));
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("card", card);
+        request.put("password", "hunter2");
+        request.put("items", List.of(new LinkedHashMap<>(Map.of("sku", "A")),
+                new LinkedHashMap<>(Map.of("password", "hunter2"))));
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("logLevel", "info");
+        payload.put("request", request);
+        payload.put("tokens", List.of("t-1", "t-2"));
+        payload.put("card", "not-a-path-match");
+        return payload;
+    }
+
+    public static class Credentials {
+        public final String username;
+        public final String password;
+        public final String otp;
+
+        Credentials(String username, String password, String otp) {
+            this.username = username;
+            this.password = password;
+            this.otp = otp;
+        }
+    }
+
+    // ── Content-based redaction ──────────────────────────────────────────────
+
+    @Test
+    void patternRedactingMasker_redactsSecretsInErrorMessageAndStackTrace() throws Throwable {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        SensitiveDataMasker masker = new PatternRedactingMasker(props.getRedaction());
+        LoggingAspect aspect = new LoggingAspect(props, List.of(), List.of(masker), OBJECT_MAPPER);
+
+        ProceedingJoinPoint pjp = mockJoinPoint("pay", "com.example.Demo", null);
+        when(pjp.proceed()).thenThrow(new IllegalStateException("Card 4111 1111 1111 1111 rejected for jane@example.com"));
+
+        try {
+            aspect.logAround(pjp);
+        } catch (IllegalStateException expected) {
+            // rethrown by the aspect
         }
+
+        String logs = capturedAspectLogs();
+        assertThat(logs).contains("Card *** rejected for ***");
+        assertThat(logs).doesNotContain("4111 1111").doesNotContain("jane@example.com");
+    }
+
+    @Test
+    void patternRedactingMasker_redactsStringsInNestedCollections() {
+        SensitiveDataMasker masker = new PatternRedactingMasker(new CommonLoggerProperties.Redaction());
+        List<Object> notes = new java.util.ArrayList<>(List.of("bearer abc", 42));
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("notes", notes);
+        payload.put("contacts", new Object[]{"ops@example.com"});
+
+        Object[] contacts = (Object[]) payload.get("contacts");
+
+        masker.mask(payload);
+
+        assertThat(payload.get("notes")).isEqualTo(List.of("bearer ***", 42));
+        assertThat((Object[]) payload.get("contacts")).containsExactly("***");
+        assertThat(notes).containsExactly("bearer abc", 42);
+        assertThat(contacts).containsExactly("ops@example.com");
+    }
+
+    @Test
+    void patternRedactingMasker_copiesImmutableNestedValuesInsteadOfFailing() {
+        SensitiveDataMasker masker = new PatternRedactingMasker(new CommonLoggerProperties.Redaction());
+        List<String> lines = List.of("plain", "ops@example.com");
+        Map<String, Object> customer = Map.of("email", "ops@example.com", "lines", lines);
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("customer", customer);
+        List<String> unchanged = List.of("plain");
+        payload.put("unchanged", unchanged);
+        payload.put("logException", "failed for bearer abc");
+
+        masker.mask(payload);
+
+        assertThat(payload.get("customer")).isEqualTo(Map.of("email", "***", "lines", List.of("plain", "***")));
+        assertThat(payload.get("logException")).isEqualTo("failed for bearer ***");
+        assertThat(customer).containsEntry("email", "ops@example.com");
+        assertThat(lines).containsExactly("plain", "ops@example.com");
+        assertThat(payload.get("unchanged")).isSameAs(unchanged);
+    }
+
+    // ── @MaskField ───────────────────────────────────────────────────────────
+
+    @Test
+    void maskFieldModule_masksAnnotatedDtoProperties() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new MaskFieldModule());
+
+        String json = mapper.writeValueAsString(new LoginRequest("john", "hunter2", "123456"));
+
+        assertThat(json).contains("\"username\":\"john\"");
+        assertThat(json).contains("\"password\":\"***\"");
+        assertThat(json).contains("\"otp\":\"[hidden]\"");
+        assertThat(json).doesNotContain("hunter2").doesNotContain("123456");
+    }
+
+    @Test
+    void maskFieldModule_keepsNullValuesNull() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new MaskFieldModule());
+
+        String json = mapper.writeValueAsString(new LoginRequest("john", null, "123456"));
+
+        assertThat(json).contains("\"password\":null").contains("\"otp\":\"[hidden]\"");
+    }
+
+    @Test
+    void maskFieldModule_ensureRegisteredLeavesOriginalMapperUntouched() throws Exception {
+        ObjectMapper application = new ObjectMapper();
+
+        ObjectMapper logging = MaskFieldModule.ensureRegistered(application);
+
+        assertThat(logging).isNotSameAs(application);
+        assertThat(MaskFieldModule.ensureRegistered(logging)).isSameAs(logging);
+        assertThat(application.writeValueAsString(new LoginRequest("john", "hunter2", "1"))).contains("hunter2");
+        assertThat(logging.writeValueAsString(new LoginRequest("john", "hunter2", "1"))).doesNotContain("hunter2");
+    }
+
+    @Test
+    void structuredLogger_masksMaskFieldPropertiesOfRequestDto() {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        StructuredLogger logger = new StructuredLogger(props,
+                new ObjectMapper().registerModule(new MaskFieldModule()), List.of());
+
+        logger.newLog()
+                .withRequest(new LoginRequest("john", "hunter2", "123456"))
+                .onSuccess(null, 10);
+
+        String logs = capturedStructuredLogs();
+        assertThat(logs).contains("\"password\":\"***\"");
+        assertThat(logs).doesNotContain("hunter2");
+    }
+
+    @Test
+    void joinPointMetadata_masksAnnotatedParameters() throws Exception {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getName()).thenReturn("login");
+        when(signature.getDeclaringTypeName()).thenReturn(AuthService.class.getName());
+        when(signature.getMethod()).thenReturn(
+                AuthService.class.getMethod("login", String.class, String.class, String.class));
+
+        JoinPointMetadata metadata = JoinPointMetadata.resolve(signature, null);
+        Object[] args = {"john", "hunter2", "123456"};
+
+        assertThat(metadata.hasMaskedParameters()).isTrue();
+        assertThat(metadata.maskArguments(args)).containsExactly("john", "***", "#");
+        assertThat(args).containsExactly("john", "hunter2", "123456");
+        assertThat(metadata.maskArguments(new Object[]{"john", null, "123456"})).containsExactly("john", null, "#");
+    }
+
+    public static class LoginRequest {
+        private final String username;
+        @MaskField
+        private final String password;
+        @MaskField(mask = "[hidden]")
+        private final String otp;
+
+        LoginRequest(String username, String password, String otp) {
+            this.username = username;
+            this.password = password;
+            this.otp = otp;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public String getOtp() {
+            return otp;
+        }
+    }
+
+    public static class AuthService {
+        public void login(String username, @MaskField String password, @MaskField(mask = "#") String otp) {
+        }
+    }
+
+    // ── Helper ───────────────────────────────────────────────────────────────
+
+    private SensitiveDataMasker buildPropertyMasker(CommonLoggerProperties props) {
+        return new PropertySensitiveDataMasker(props);
     }
 
     private ProceedingJoinPoint mockJoinPoint(String method, String className, Object returnValue) throws Throwable {
@@ -0,0 +1,63 @@
+package com.yahya.commonlogger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the same failure repeatedly, as during an incident: {@code printStackTrace} into a
+ * {@link StringWriter} against {@link StackTraceRenderer} with a warm cache, in both modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class StackTraceRendererBenchmark {
+
+    private Throwable failure;
+    private StackTraceRenderer full;
+    private StackTraceRenderer reference;
+
+    @Setup
+    public void setUp() {
+        failure = new IllegalStateException("order 42 failed", deep(60));
+        full = new StackTraceRenderer(new CommonLoggerProperties.StackTrace());
+        CommonLoggerProperties.StackTrace settings = new CommonLoggerProperties.StackTrace();
+        settings.setMode(CommonLoggerProperties.StackTrace.Mode.REFERENCE);
+        reference = new StackTraceRenderer(settings);
+    }
+
+    @Benchmark
+    public String printStackTrace() {
+        StringWriter writer = new StringWriter();
+        failure.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String cachedFull() {
+        return full.render(failure).text();
+    }
+
+    @Benchmark
+    public String cachedReference() {
+        return reference.render(failure).text();
+    }
+
+    private static RuntimeException deep(int depth) {
+        return depth == 0 ? new RuntimeException("connection reset") : deep(depth - 1);
+    }
+}
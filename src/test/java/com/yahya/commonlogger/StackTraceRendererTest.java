@@ -0,0 +1,107 @@
+package com.yahya.commonlogger;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StackTraceRendererTest {
+
+    @Test
+    void matchesPrintStackTraceWhenNothingIsFiltered() {
+        CommonLoggerProperties.StackTrace settings = new CommonLoggerProperties.StackTrace();
+        settings.setExcludedFrames(List.of());
+        StackTraceRenderer renderer = new StackTraceRenderer(settings);
+
+        IllegalStateException failure = new IllegalStateException("outer", new IllegalArgumentException("inner"));
+        failure.addSuppressed(new RuntimeException("suppressed"));
+
+        assertThat(renderer.render(failure).text()).isEqualTo(printStackTrace(failure));
+        assertThat(renderer.render(failure).text()).isEqualTo(printStackTrace(failure));
+    }
+
+    @Test
+    void fingerprintIgnoresMessageButNotThrowSite() {
+        StackTraceRenderer renderer = new StackTraceRenderer(new CommonLoggerProperties.StackTrace());
+
+        List<StackTraceRenderer.Rendered> sameSite = renderAll(renderer, "user 1 not found", "user 2 not found");
+        StackTraceRenderer.Rendered first = sameSite.get(0);
+        StackTraceRenderer.Rendered second = sameSite.get(1);
+        StackTraceRenderer.Rendered elsewhere = renderer.render(new IllegalStateException("user 1 not found"));
+
+        assertThat(first.fingerprint()).hasSize(16).isEqualTo(second.fingerprint());
+        assertThat(elsewhere.fingerprint()).isNotEqualTo(first.fingerprint());
+        assertThat(second.text()).startsWith("java.lang.IllegalStateException: user 2 not found");
+        assertThat(renderer.cachedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void limitsDepthAndCollapsesExcludedFrames() {
+        CommonLoggerProperties.StackTrace settings = new CommonLoggerProperties.StackTrace();
+        settings.setMaxDepth(4);
+        StackTraceRenderer renderer = new StackTraceRenderer(settings);
+        RuntimeException failure = new RuntimeException("boom");
+        failure.setStackTrace(new StackTraceElement[]{
+                new StackTraceElement("com.example.OrderService", "place", "OrderService.java", 10),
+                new StackTraceElement("jdk.internal.reflect.DirectMethodHandleAccessor", "invoke", null, -1),
+                new StackTraceElement("java.lang.reflect.Method", "invoke", "Method.java", 580),
+                new StackTraceElement("com.example.OrderService$$SpringCGLIB$$0", "place", null, -1),
+                new StackTraceElement("com.example.OrderController", "post", "OrderController.java", 20),
+                new StackTraceElement("com.example.Main", "main", "Main.java", 5)
+        });
+
+        String text = renderer.render(failure).text();
+
+        assertThat(text).contains("\tat com.example.OrderService.place(OrderService.java:10)");
+        assertThat(text).contains("\t... 3 filtered");
+        assertThat(text).contains("\t... 2 omitted");
+        assertThat(text).doesNotContain("reflect").doesNotContain("CGLIB").doesNotContain("OrderController");
+    }
+
+    @Test
+    void referenceModeEmitsOnlyFingerprintForRepeats() {
+        CommonLoggerProperties.StackTrace settings = new CommonLoggerProperties.StackTrace();
+        settings.setMode(CommonLoggerProperties.StackTrace.Mode.REFERENCE);
+        StackTraceRenderer renderer = new StackTraceRenderer(settings);
+
+        List<StackTraceRenderer.Rendered> rendered = renderAll(renderer, "first", "again");
+        StackTraceRenderer.Rendered first = rendered.get(0);
+        StackTraceRenderer.Rendered repeat = rendered.get(1);
+
+        assertThat(first.text()).contains("\tat ");
+        assertThat(repeat.text())
+                .startsWith("java.lang.IllegalStateException: again [stackTrace=" + first.fingerprint() + ", firstSeen=")
+                .doesNotContain("\tat ");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedFingerprints() {
+        CommonLoggerProperties.StackTrace settings = new CommonLoggerProperties.StackTrace();
+        settings.setCacheSize(2);
+        StackTraceRenderer renderer = new StackTraceRenderer(settings);
+
+        renderer.render(new IllegalStateException("a"));
+        renderer.render(new IllegalArgumentException("b"));
+        renderer.render(new UnsupportedOperationException("c"));
+
+        assertThat(renderer.cachedCount()).isEqualTo(2);
+    }
+
+    /**
+     * Renders one exception per message, all created at the same call site.
+     */
+    private static List<StackTraceRenderer.Rendered> renderAll(StackTraceRenderer renderer, String... messages) {
+        return java.util.Arrays.stream(messages)
+                .map(message -> renderer.render(new IllegalStateException(message)))
+                .toList();
+    }
+
+    private static String printStackTrace(Throwable throwable) {
+        StringWriter writer = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(writer));
+        return writer.toString();
+    }
+}
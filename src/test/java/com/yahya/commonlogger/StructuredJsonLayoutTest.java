@@ -0,0 +1,196 @@
+package com.yahya.commonlogger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.impl.MutableLogEvent;
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.apache.logging.log4j.core.layout.ByteBufferDestinationHelper;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.springframework.boot.logging.LogLevel;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StructuredJsonLayoutTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final SerializedString LOG_LEVEL = new SerializedString("logLevel");
+    private static final SerializedString API_ID = new SerializedString("apiId");
+    private static final SerializedString API_ID_VALUE = new SerializedString("Orders");
+    private static final SerializedString PROCESS_TIME = new SerializedString("processTime");
+
+    /**
+     * Writes pre-escaped names and primitives only, like the streaming path of {@link LoggingAspect}.
+     */
+    private static final StructuredLogEvent.Writer WRITER = (level, payload, output) -> {
+        JsonGenerator gen = output.generator(null, null);
+        gen.writeStartObject();
+        gen.writeFieldName(LOG_LEVEL);
+        gen.writeString(LogLevelSupport.name(level));
+        gen.writeFieldName(API_ID);
+        gen.writeString(API_ID_VALUE);
+        gen.writeFieldName(PROCESS_TIME);
+        gen.writeNumber(((long[]) payload)[0]);
+        gen.writeEndObject();
+    };
+
+    private final StructuredJsonLayout layout = StructuredJsonLayout.createLayout(StandardCharsets.UTF_8);
+
+    @Test
+    void writesStructuredMessageAsJsonLine() {
+        MutableLogEvent event = new MutableLogEvent();
+        event.setLevel(Level.INFO);
+        StructuredLogMessage message = StructuredLogMessage.acquire(LogLevel.INFO, new long[]{42}, WRITER, OBJECT_MAPPER);
+        try {
+            event.setMessage(message);
+        } finally {
+            message.release();
+        }
+
+        assertThat(layout.toSerializable(event)).isEqualTo("{\"logLevel\":\"info\",\"apiId\":\"Orders\",\"processTime\":42}\n");
+        assertThat(message.memento().getFormat()).isEqualTo(StructuredLogMessage.FORMAT);
+    }
+
+    @Test
+    void writesPlainEventsAsJsonLine() throws Exception {
+        Log4jLogEvent event = Log4jLogEvent.newBuilder()
+                .setLoggerName("orders")
+                .setLevel(Level.WARN)
+                .setMessage(new SimpleMessage("order \"A-1\" delayed"))
+                .setThrown(new IllegalStateException("late"))
+                .build();
+
+        Map<String, Object> line = OBJECT_MAPPER.readValue(layout.toSerializable(event), new TypeReference<>() {});
+        assertThat(line).containsEntry("logLevel", "warn")
+                .containsEntry("logger", "orders")
+                .containsEntry("logMessage", "order \"A-1\" delayed")
+                .containsKey("logTimestamp");
+        assertThat((String) line.get("logException")).startsWith("java.lang.IllegalStateException: late");
+    }
+
+    @Test
+    void encodesLoggableEventsWithoutAllocating() throws Throwable {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        // Defaults, except for the message type this layout is meant for.
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setApiId("Orders");
+        props.setReusableMessages(true);
+        CapturingDispatcher dispatcher = new CapturingDispatcher(props.getAsync());
+        try {
+            LoggingAspect aspect = new LoggingAspect(props, List.of(), List.of(), OBJECT_MAPPER, dispatcher);
+            ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+            Signature signature = mock(Signature.class);
+            when(signature.getName()).thenReturn("place");
+            when(signature.getDeclaringTypeName()).thenReturn("com.example.OrderService");
+            when(joinPoint.getSignature()).thenReturn(signature);
+            when(joinPoint.getArgs()).thenReturn(new Object[0]);
+            when(joinPoint.proceed()).thenReturn("ok");
+            aspect.logAround(joinPoint);
+
+            MutableLogEvent event = new MutableLogEvent();
+            event.setLevel(Level.INFO);
+            Destination destination = new Destination();
+            encode(dispatcher, event, destination);
+            String line = StandardCharsets.UTF_8.decode(destination.buffer.duplicate().flip()).toString();
+            assertThat(line).startsWith("{\"logLevel\":\"info\",\"apiId\":\"Orders\",").endsWith("}\n");
+
+            // Warm up thread-locals, buffers and the JIT.
+            for (int i = 0; i < 20_000; i++) {
+                encode(dispatcher, event, destination);
+            }
+            int iterations = 10_000;
+            long threadId = Thread.currentThread().getId();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < iterations; i++) {
+                encode(dispatcher, event, destination);
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+            assertThat(allocated / iterations).as("bytes allocated per event").isZero();
+            assertThat(destination.written).isGreaterThan(0);
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    /**
+     * Renders the event {@link LoggingAspect} handed over with its own renderer, i.e. through
+     * {@link StructuredLogMessage#acquire} and the aspect's streaming writer, and encodes it.
+     */
+    private void encode(CapturingDispatcher dispatcher, MutableLogEvent event, Destination destination) {
+        StructuredLogMessage message = (StructuredLogMessage) dispatcher.renderer.render(dispatcher.level, dispatcher.payload);
+        try {
+            event.setMessage(message);
+        } finally {
+            message.release();
+        }
+        layout.encode(event, destination);
+    }
+
+    /**
+     * Keeps the last event instead of queueing it, so that it can be rendered on the test thread.
+     */
+    private static final class CapturingDispatcher extends AsyncLogDispatcher {
+        private LogLevel level;
+        private Object payload;
+        private PayloadRenderer renderer;
+
+        CapturingDispatcher(CommonLoggerProperties.Async settings) {
+            super(settings);
+        }
+
+        @Override
+        void dispatch(Logger logger, LogLevel level, Object payload, PayloadRenderer renderer) {
+            this.level = level;
+            this.payload = payload;
+            this.renderer = renderer;
+        }
+    }
+
+    /**
+     * Discards encoded bytes, like an appender whose buffer is flushed to disk.
+     */
+    private static final class Destination implements ByteBufferDestination {
+        private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        private long written;
+
+        @Override
+        public ByteBuffer getByteBuffer() {
+            return buffer;
+        }
+
+        @Override
+        public ByteBuffer drain(ByteBuffer buf) {
+            written += buf.position();
+            buf.clear();
+            return buf;
+        }
+
+        @Override
+        public void writeBytes(ByteBuffer data) {
+            ByteBufferDestinationHelper.writeToUnsynchronized(data, this);
+        }
+
+        @Override
+        public void writeBytes(byte[] data, int offset, int length) {
+            ByteBufferDestinationHelper.writeToUnsynchronized(data, offset, length, this);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.yahya.commonlogger;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StructuredLogEncoderTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final StructuredLogEncoder encoder = new StructuredLogEncoder();
+    private ch.qos.logback.classic.Logger structuredLoggerLogger;
+    private ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    void setUp() {
+        encoder.setContext((LoggerContext) LoggerFactory.getILoggerFactory());
+        encoder.start();
+        structuredLoggerLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(StructuredLogger.class);
+        appender = new ListAppender<>();
+        appender.start();
+        structuredLoggerLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        structuredLoggerLogger.detachAppender(appender);
+        MDC.clear();
+    }
+
+    private static Map<String, Object> parse(String json) throws Exception {
+        return OBJECT_MAPPER.readValue(json, new TypeReference<>() {});
+    }
+
+    @Test
+    void writesStructuredEventAsUtf8WithMdcFields() throws Exception {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setApiId("Orders");
+        props.setStructuredArguments(true);
+        StructuredLogger logger = new StructuredLogger(props, OBJECT_MAPPER, List.of());
+
+        MDC.put("traceId", "trace-1");
+        MDC.put("apiId", "from-mdc");
+        logger.newLog().withTransactionId("tx-1").withField("city", "Jakarta Selatan – Indonesia").onSuccess("ok", 5);
+        byte[] bytes = encoder.encode(appender.list.get(0));
+
+        assertThat(appender.list.get(0).getArgumentArray()[0]).isInstanceOf(StructuredLogEvent.class);
+        assertThat(bytes[bytes.length - 1]).isEqualTo((byte) '\n');
+        Map<String, Object> line = parse(new String(bytes, StandardCharsets.UTF_8));
+        assertThat(line).containsEntry("apiId", "Orders")
+                .containsEntry("transactionId", "tx-1")
+                .containsEntry("city", "Jakarta Selatan – Indonesia")
+                .containsEntry("traceId", "trace-1");
+
+        Map<String, Object> message = parse(appender.list.get(0).getFormattedMessage());
+        line.remove("traceId");
+        assertThat(message).isEqualTo(line);
+    }
+
+    @Test
+    void writesPlainEventsWithKeyValuePairs() throws Exception {
+        MDC.put("correlationId", "corr-1");
+        structuredLoggerLogger.atWarn().addKeyValue("orderId", 42).addKeyValue("retry", true)
+                .log("order {} delayed", "A-1");
+        byte[] bytes = encoder.encode(appender.list.get(0));
+
+        Map<String, Object> line = parse(new String(bytes, StandardCharsets.UTF_8));
+        assertThat(line).containsEntry("logLevel", "warn")
+                .containsEntry("logger", StructuredLogger.class.getName())
+                .containsEntry("logMessage", "order A-1 delayed")
+                .containsEntry("correlationId", "corr-1")
+                .containsEntry("orderId", 42)
+                .containsEntry("retry", true)
+                .containsKey("logTimestamp");
+    }
+
+    @Test
+    void omitsContextWhenDisabled() throws Exception {
+        encoder.setIncludeMdc(false);
+        encoder.setIncludeKeyValuePairs(false);
+        MDC.put("correlationId", "corr-1");
+        structuredLoggerLogger.atInfo().addKeyValue("orderId", 42).log("plain");
+
+        Map<String, Object> line = parse(new String(encoder.encode(appender.list.get(0)), StandardCharsets.UTF_8));
+        assertThat(line).doesNotContainKeys("correlationId", "orderId");
+    }
+}
@@ -0,0 +1,57 @@
+package com.yahya.commonlogger;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares freshly allocated and pooled {@link StructuredLogger} builders for a typical manual
+ * event. Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm}: with pooling, the
+ * builder, its map and the map's table are no longer allocated per event; what remains is the map
+ * entries, the timestamp and the rendered JSON string.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class StructuredLoggerPoolingBenchmark {
+
+    @Param({"false", "true"})
+    public boolean pooledBuilders;
+
+    private StructuredLogger logger;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.silence(StructuredLogger.class, Level.INFO);
+        CommonLoggerProperties properties = new CommonLoggerProperties();
+        properties.setApiId("BatchJob");
+        properties.setPooledBuilders(pooledBuilders);
+        logger = new StructuredLogger(properties, new ObjectMapper(), List.of());
+    }
+
+    @Benchmark
+    public void manualEvent() {
+        logger.newLog()
+                .withTransactionId("tx-123")
+                .withAdditionalData("orderId", "o-42")
+                .withField("attempt", 1)
+                .withField("cached", true)
+                .onSuccess("ok", 5);
+    }
+}
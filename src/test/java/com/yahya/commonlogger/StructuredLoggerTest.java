@@ -1,17 +1,28 @@
 package com.yahya.commonlogger;
 
+import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.LogLevel;
 
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class StructuredLoggerTest {
 
@@ -39,6 +50,10 @@ class StructuredLoggerTest {
                 .collect(Collectors.joining("\n"));
     }
 
+    private static Map<String, Object> parse(String json) throws JsonProcessingException {
+        return OBJECT_MAPPER.readValue(json, new TypeReference<>() {});
+    }
+
     @Test
     void onSuccessShouldLogCorrectPayload() {
         CommonLoggerProperties props = new CommonLoggerProperties();
@@ -142,4 +157,324 @@ class StructuredLoggerTest {
         assertThat(logs).contains("\"httpStatusCode\":400");
         assertThat(logs).doesNotContain("\"httpStatusCode\":500");
     }
+
+    @Test
+    void startTimerMeasuresProcessTimeInConfiguredUnit() throws Exception {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setProcessTimeUnit(CommonLoggerProperties.ProcessTimeUnit.NANOSECONDS);
+        StructuredLogger logger = new StructuredLogger(props, OBJECT_MAPPER, List.of());
+
+        StructuredLogger.StructuredLogBuilder builder = logger.newLog().startTimer();
+        Thread.sleep(2);
+        builder.onSuccess("ok");
+        logger.newLog().startTimer().onFailure(new IllegalStateException("boom"));
+
+        assertThat(appender.list).hasSize(2);
+        Map<String, Object> success = parse(appender.list.get(0).getFormattedMessage());
+        Map<String, Object> failure = parse(appender.list.get(1).getFormattedMessage());
+        assertThat(((Number) success.get("processTime")).longValue()).isGreaterThanOrEqualTo(2_000_000L);
+        assertThat(success).doesNotContainKey("processTimeNanos");
+        assertThat(failure.get("logPoint")).isEqualTo("Error");
+        assertThat(failure).containsKey("processTime");
+    }
+
+    @Test
+    void millisecondOverloadsConvertToConfiguredUnit() throws Exception {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setProcessTimeUnit(CommonLoggerProperties.ProcessTimeUnit.MICROSECONDS);
+        props.setProcessTimeNanos(true);
+        StructuredLogger logger = new StructuredLogger(props, OBJECT_MAPPER, List.of());
+
+        logger.newLog().onSuccess("ok", 150);
+        logger.newLog().onFailure(new IllegalStateException("boom"), 7);
+
+        Map<String, Object> success = parse(appender.list.get(0).getFormattedMessage());
+        Map<String, Object> failure = parse(appender.list.get(1).getFormattedMessage());
+        assertThat(((Number) success.get("processTime")).longValue()).isEqualTo(150_000L);
+        assertThat(((Number) success.get("processTimeNanos")).longValue()).isEqualTo(150_000_000L);
+        assertThat(((Number) failure.get("processTime")).longValue()).isEqualTo(7_000L);
+        assertThat(((Number) failure.get("processTimeNanos")).longValue()).isEqualTo(7_000_000L);
+    }
+
+    @Test
+    void timedCompletionRequiresStartedTimer() {
+        StructuredLogger logger = new StructuredLogger(new CommonLoggerProperties(), OBJECT_MAPPER, List.of());
+
+        assertThatThrownBy(() -> logger.newLog().onSuccess("ok")).isInstanceOf(IllegalStateException.class);
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    void levelFirstBuilderIsSharedNoOpWhenLevelDisabled() {
+        StructuredLogger logger = new StructuredLogger(new CommonLoggerProperties(), OBJECT_MAPPER, List.of());
+        AtomicInteger evaluations = new AtomicInteger();
+
+        Level original = structuredLoggerLogger.getLevel();
+        structuredLoggerLogger.setLevel(Level.INFO);
+        try {
+            StructuredLogger.StructuredLogBuilder debug = logger.atDebug();
+            assertThat(logger.atTrace()).isSameAs(debug);
+            debug.withField("count", 3L)
+                    .withField("details", () -> evaluations.incrementAndGet())
+                    .startTimer()
+                    .onSuccess("ignored");
+            logger.newLog()
+                    .withLogLevel(LogLevel.DEBUG)
+                    .withField("details", () -> evaluations.incrementAndGet())
+                    .onSuccess("ignored", 1);
+        } finally {
+            structuredLoggerLogger.setLevel(original);
+        }
+
+        assertThat(evaluations).hasValue(0);
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    void writesTypedAndLazyFields() throws Exception {
+        StructuredLogger logger = new StructuredLogger(new CommonLoggerProperties(), OBJECT_MAPPER, List.of());
+
+        logger.atWarn()
+                .withField("attempt", 3)
+                .withField("bytes", 1_048_576L)
+                .withField("cached", true)
+                .withField("ratio", 0.25)
+                .withField("summary", () -> "computed")
+                .withField("broken", () -> {
+                    throw new IllegalStateException("nope");
+                })
+                .onSuccess("ok", 5);
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getLevel()).isEqualTo(Level.WARN);
+        Map<String, Object> payload = parse(appender.list.get(0).getFormattedMessage());
+        assertThat(payload.get("attempt")).isEqualTo(3);
+        assertThat(payload.get("bytes")).isEqualTo(1_048_576);
+        assertThat(payload.get("cached")).isEqualTo(true);
+        assertThat(payload.get("ratio")).isEqualTo(0.25);
+        assertThat(payload.get("summary")).isEqualTo("computed");
+        assertThat(payload.containsKey("broken")).isTrue();
+        assertThat(payload.get("broken")).isNull();
+        assertThat(payload.get("logLevel")).isEqualTo("warn");
+    }
+
+    @Test
+    void primitiveFieldsAreVisibleToMaskersAndSerializationMasking() throws Exception {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setSensitiveFields(List.of("pin"));
+        AtomicReference<Object> seenAttempt = new AtomicReference<>();
+        AtomicReference<Map<String, Object>> copy = new AtomicReference<>();
+        SensitiveDataMasker masker = payload -> {
+            seenAttempt.set(payload.get("attempt"));
+            payload.remove("debugOnly");
+            copy.set(new HashMap<>(payload));
+            assertThat(payload.size()).isEqualTo(payload.entrySet().size());
+            assertThat(payload.keySet()).contains("attempt", "ratio", "pin");
+        };
+        StructuredLogger logger = new StructuredLogger(props, OBJECT_MAPPER,
+                List.of(new PropertySensitiveDataMasker(props), masker));
+
+        logger.atWarn()
+                .withField("attempt", "first")
+                .withField("attempt", 2)
+                .withField("ratio", 0.5)
+                .withField("ratio", "half")
+                .withField("pin", 1234)
+                .withField("debugOnly", true)
+                .onSuccess("ok", 5);
+
+        assertThat(seenAttempt.get()).isEqualTo(2);
+        assertThat(copy.get()).containsEntry("attempt", 2)
+                .containsEntry("ratio", "half")
+                .containsEntry("pin", "***")
+                .doesNotContainKey("debugOnly");
+        Map<String, Object> payload = parse(appender.list.get(0).getFormattedMessage());
+        assertThat(payload).containsEntry("attempt", 2)
+                .containsEntry("ratio", "half")
+                .containsEntry("pin", "***")
+                .doesNotContainKey("debugOnly");
+
+        props.setMaskingMode(CommonLoggerProperties.MaskingMode.SERIALIZATION);
+        new StructuredLogger(props, OBJECT_MAPPER, List.of()).atWarn().withField("pin", 1234L).onSuccess("ok", 5);
+        assertThat(parse(appender.list.get(1).getFormattedMessage())).containsEntry("pin", "***");
+    }
+
+    @Test
+    void pooledBuildersAreReusedAndRejectUseAfterRelease() throws Exception {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setPooledBuilders(true);
+        StructuredLogger logger = new StructuredLogger(props, OBJECT_MAPPER, List.of());
+
+        StructuredLogger.StructuredLogBuilder first = logger.newLog().withAdditionalData("orderId", "o-1");
+        StructuredLogger.StructuredLogBuilder nested = logger.newLog();
+        assertThat(nested).isNotSameAs(first);
+        nested.onSuccess("nested", 1);
+        first.onSuccess("ok", 1);
+
+        StructuredLogger.StructuredLogBuilder second = logger.newLog();
+        assertThat(second).isSameAs(first);
+        second.withField("attempt", 2).onSuccess("ok", 2);
+
+        assertThatThrownBy(() -> first.withField("late", true)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> second.onSuccess("again", 3)).isInstanceOf(IllegalStateException.class);
+
+        StructuredLogger.StructuredLogBuilder third = logger.newLog();
+        AtomicReference<Throwable> otherThreadFailure = new AtomicReference<>();
+        Thread other = new Thread(() -> {
+            try {
+                third.withApiId("x");
+            } catch (Throwable ex) {
+                otherThreadFailure.set(ex);
+            }
+        });
+        other.start();
+        other.join();
+        assertThat(otherThreadFailure.get()).isInstanceOf(IllegalStateException.class);
+        third.onSuccess("ok", 4);
+
+        assertThat(appender.list).hasSize(4);
+        Map<String, Object> firstEvent = parse(appender.list.get(1).getFormattedMessage());
+        Map<String, Object> secondEvent = parse(appender.list.get(2).getFormattedMessage());
+        assertThat(firstEvent.get("orderId")).isEqualTo("o-1");
+        assertThat(secondEvent).doesNotContainKey("orderId").containsEntry("attempt", 2);
+    }
+
+    @Test
+    void pooledBuildersAllocateLessPerEvent() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        // Filtered at log(): measures the builder and its payload, not rendering or the appender.
+        structuredLoggerLogger.setLevel(Level.WARN);
+        try {
+            long unpooled = bytesPerEvent(threads, false);
+            long pooled = bytesPerEvent(threads, true);
+
+            // Builder, HashMap and its table are no longer allocated; the map entries still are.
+            assertThat(pooled).as("bytes per pooled event").isLessThanOrEqualTo(unpooled - 128);
+        } finally {
+            structuredLoggerLogger.setLevel(null);
+        }
+    }
+
+    private static long bytesPerEvent(com.sun.management.ThreadMXBean threads, boolean pooledBuilders) {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setPooledBuilders(pooledBuilders);
+        StructuredLogger logger = new StructuredLogger(props, OBJECT_MAPPER, List.of());
+        for (int i = 0; i < 20_000; i++) {
+            manualEvent(logger);
+        }
+        int iterations = 10_000;
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            manualEvent(logger);
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / iterations;
+    }
+
+    private static void manualEvent(StructuredLogger logger) {
+        logger.newLog()
+                .withTransactionId("tx-123")
+                .withField("attempt", 1)
+                .withField("cached", true)
+                .onSuccess("ok", 5);
+    }
+
+    @Test
+    void batchWritesEnabledEventsInOneCall() throws Exception {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setApiId("Consumer");
+        StructuredLogger logger = new StructuredLogger(props, OBJECT_MAPPER, List.of());
+
+        Level original = structuredLoggerLogger.getLevel();
+        structuredLoggerLogger.setLevel(Level.INFO);
+        try (StructuredLogger.StructuredLogBatch batch = logger.batch()) {
+            batch.newLog().withTransactionId("r-1").onSuccess("ok", 10);
+            batch.at(LogLevel.DEBUG).withTransactionId("r-2").onSuccess("ok", 11);
+            batch.newLog().withTransactionId("r-3").onFailure(new IllegalStateException("bad record"), 12);
+            assertThat(batch.size()).isEqualTo(2);
+            assertThat(appender.list).isEmpty();
+        } finally {
+            structuredLoggerLogger.setLevel(original);
+        }
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getLevel()).isEqualTo(Level.ERROR);
+        String[] lines = appender.list.get(0).getFormattedMessage().split("\n");
+        assertThat(lines).hasSize(2);
+        Map<String, Object> first = parse(lines[0]);
+        Map<String, Object> second = parse(lines[1]);
+        assertThat(first).containsEntry("transactionId", "r-1").containsEntry("logLevel", "info")
+                .containsEntry("logMessage", "Consumer completed");
+        assertThat(second).containsEntry("transactionId", "r-3").containsEntry("logPoint", "Error");
+    }
+
+    @Test
+    void batchFlushesOnMaxEvents() throws Exception {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.getBatch().setMaxEvents(2);
+        StructuredLogger logger = new StructuredLogger(props, OBJECT_MAPPER, List.of());
+
+        StructuredLogger.StructuredLogBatch batch = logger.batch();
+        for (int i = 0; i < 3; i++) {
+            batch.newLog().withField("record", i).onSuccess("ok", i);
+        }
+
+        assertThat(appender.list).hasSize(1);
+        assertThat(batch.size()).isEqualTo(1);
+        batch.flush();
+        assertThat(appender.list).hasSize(2);
+        batch.flush();
+        assertThat(appender.list).hasSize(2);
+
+        String[] firstBlock = appender.list.get(0).getFormattedMessage().split("\n");
+        assertThat(firstBlock).hasSize(2);
+        assertThat(parse(firstBlock[0])).containsEntry("record", 0);
+        assertThat(parse(firstBlock[1])).containsEntry("record", 1);
+        assertThat(parse(appender.list.get(1).getFormattedMessage())).containsEntry("record", 2);
+    }
+
+    @Test
+    void summaryBatchWritesOneAggregateEvent() throws Exception {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setApiId("Importer");
+        StructuredLogger logger = new StructuredLogger(props, OBJECT_MAPPER, List.of());
+        AtomicInteger evaluations = new AtomicInteger();
+
+        StructuredLogger.StructuredLogBatch batch = logger.batch(CommonLoggerProperties.BatchMode.SUMMARY);
+        batch.newLog().withField("row", () -> evaluations.incrementAndGet()).onSuccess("ok", 10);
+        batch.newLog().onSuccess("ok", 30);
+        batch.newLog().onFailure(new IllegalStateException("bad row"), 20);
+        assertThat(batch.size()).isEqualTo(3);
+        batch.flush();
+
+        assertThat(evaluations).hasValue(0);
+        assertThat(appender.list).hasSize(1);
+        assertThat(appender.list.get(0).getLevel()).isEqualTo(Level.ERROR);
+        Map<String, Object> payload = parse(appender.list.get(0).getFormattedMessage());
+        assertThat(payload).containsEntry("logPoint", "Batch").containsEntry("logMessage", "Importer batch completed")
+                .containsEntry("httpStatusCode", 500);
+        assertThat(payload.get("batchSummary")).isEqualTo(Map.of(
+                "count", 3,
+                "errorCount", 1,
+                "processTime", Map.of("min", 10, "max", 30, "avg", 20)));
+    }
+
+    @Test
+    void reusableMessagesAreLoggedThroughLog4jApi() throws Exception {
+        CommonLoggerProperties props = new CommonLoggerProperties();
+        props.setApiId("Orders");
+        props.setReusableMessages(true);
+        StructuredLogger logger = new StructuredLogger(props, OBJECT_MAPPER, List.of());
+
+        logger.newLog().withTransactionId("tx-1").onSuccess("first", 1);
+        logger.newLog().withTransactionId("tx-2").onFailure(new IllegalStateException("second"), 2);
+
+        assertThat(appender.list).hasSize(2);
+        assertThat(appender.list.get(1).getLevel()).isEqualTo(Level.ERROR);
+        Map<String, Object> first = parse(appender.list.get(0).getFormattedMessage());
+        Map<String, Object> second = parse(appender.list.get(1).getFormattedMessage());
+        assertThat(first).containsEntry("transactionId", "tx-1").containsEntry("response", "first");
+        assertThat(second).containsEntry("transactionId", "tx-2").containsEntry("error", "second");
+    }
 }
@@ -0,0 +1,93 @@
+package com.yahya.commonlogger;
+
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SuccessSamplerTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void fixedRateKeepsAllOrNothingAtTheBounds() {
+        CommonLoggerProperties.Sampling settings = new CommonLoggerProperties.Sampling();
+        SuccessSampler sampler = new SuccessSampler(settings);
+        JoinPointMetadata metadata = metadata("run");
+
+        assertThat(sampler.sample(metadata)).isEqualTo(1.0);
+        settings.setRate(0.0);
+        assertThat(sampler.sample(metadata)).isEqualTo(SuccessSampler.SKIP);
+    }
+
+    @Test
+    void fixedRateKeepsRoughlyTheConfiguredShare() {
+        CommonLoggerProperties.Sampling settings = new CommonLoggerProperties.Sampling();
+        settings.setRate(0.25);
+        SuccessSampler sampler = new SuccessSampler(settings);
+        JoinPointMetadata metadata = metadata("run");
+
+        int kept = 0;
+        for (int i = 0; i < 20_000; i++) {
+            double rate = sampler.sample(metadata);
+            if (rate != SuccessSampler.SKIP) {
+                assertThat(rate).isEqualTo(0.25);
+                kept++;
+            }
+        }
+        assertThat(kept).isBetween(4_500, 5_500);
+    }
+
+    @Test
+    void perLogPointRateOverridesDefault() {
+        CommonLoggerProperties.Sampling settings = new CommonLoggerProperties.Sampling();
+        settings.setMode(CommonLoggerProperties.Sampling.Mode.PER_LOG_POINT);
+        settings.setRate(0.0);
+        settings.setLogPointRates(Map.of("Orders-getorder-End", 1.0));
+        SuccessSampler sampler = new SuccessSampler(settings);
+
+        assertThat(sampler.sample(metadata("getOrder"))).isEqualTo(1.0);
+        assertThat(sampler.sample(metadata("listOrders"))).isEqualTo(SuccessSampler.SKIP);
+    }
+
+    @Test
+    void budgetAllowsOneSecondBurstThenRefillsAtConfiguredRate() {
+        SuccessSampler.Budget budget = new SuccessSampler.Budget();
+        long now = System.nanoTime();
+
+        int kept = 0;
+        for (int i = 0; i < 50; i++) {
+            if (budget.acquire(10, now) != SuccessSampler.SKIP) {
+                kept++;
+            }
+        }
+        assertThat(kept).isEqualTo(10);
+
+        assertThat(budget.acquire(10, now + SECOND / 20)).isEqualTo(SuccessSampler.SKIP);
+        assertThat(budget.acquire(10, now + SECOND / 10)).isNotEqualTo(SuccessSampler.SKIP);
+    }
+
+    @Test
+    void budgetReportsShareKeptInPreviousSecond() {
+        SuccessSampler.Budget budget = new SuccessSampler.Budget();
+        long now = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            budget.acquire(10, now);
+        }
+
+        double rate = budget.acquire(10, now + 2 * SECOND);
+
+        assertThat(rate).isEqualTo(0.1);
+    }
+
+    private static JoinPointMetadata metadata(String method) {
+        Signature signature = mock(Signature.class);
+        when(signature.getName()).thenReturn(method);
+        when(signature.getDeclaringTypeName()).thenReturn("com.example.OrderService");
+        return JoinPointMetadata.resolve(signature, "Orders");
+    }
+}
@@ -0,0 +1,57 @@
+package com.yahya.commonlogger;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a successful {@code @Loggable} call through a real Spring AOP proxy without sampling,
+ * with a 1% fixed rate and with the adaptive budget (saturated, so almost every call is skipped),
+ * from four threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(4)
+public class SuccessSamplingBenchmark {
+
+    @Param({"OFF", "FIXED", "ADAPTIVE"})
+    public String sampling;
+
+    private LoggingAspectEncodingBenchmark.Target target;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.silence(LoggingAspect.class, Level.INFO);
+        CommonLoggerProperties properties = new CommonLoggerProperties();
+        if (!"OFF".equals(sampling)) {
+            properties.getSampling().setEnabled(true);
+            properties.getSampling().setMode(CommonLoggerProperties.Sampling.Mode.valueOf(sampling));
+            properties.getSampling().setRate(0.01);
+        }
+        LoggingAspect aspect = new LoggingAspect(properties, List.of(), List.of(), new ObjectMapper());
+        target = BenchmarkSupport.proxy(new LoggingAspectEncodingBenchmark.Target(), aspect);
+    }
+
+    @Benchmark
+    public Object successfulCall() {
+        return target.handle("payload");
+    }
+}